@@ -32,6 +32,7 @@ public class NimbusRunApplication {
       System.setProperty("spring.profiles.active", Constants.STANDALONE_PROFILE_NAME);
     }
     System.setProperty("spring.application.name", config.getName());
+    System.setProperty("spring.threads.virtual.enabled", "true");
 
   }
 
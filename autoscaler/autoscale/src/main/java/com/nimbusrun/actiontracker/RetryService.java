@@ -2,11 +2,17 @@ package com.nimbusrun.actiontracker;
 
 import com.nimbusrun.autoscaler.autoscaler.Autoscaler;
 import com.nimbusrun.autoscaler.autoscaler.ValidWorkFlowJob;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
 import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.config.AutoscalerSettings;
+import com.nimbusrun.config.AutoscalerSettings.QueueSettings;
 import com.nimbusrun.config.ConfigReader;
 import com.nimbusrun.github.GithubActionJob;
 import com.nimbusrun.github.WorkflowJobAction;
+import com.nimbusrun.queue.IngestQueue;
+import com.nimbusrun.state.StateStore;
 import com.nimbusrun.webhook.WebhookReceiver;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Comparator;
@@ -14,14 +20,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -32,8 +38,13 @@ public class RetryService implements WebhookReceiver {
   private static Integer MAX_JOB_IN_QUEUED_IN_MINUTES_DEFAULT = 7;
   private static Integer MAX_TIME_BTW_RETRIES_IN_MINUTES_DEFAULT = 7;
   private static Integer MAX_RETRY_ATTEMPTS_DEFAULT = 3;
+  public static final String STATE_RETRY_TRACKERS = "retry_trackers";
+  /**
+   * GitHub cancels jobs queued for 24 hours, after that a job's retry attempts no longer matter.
+   */
+  private static final Duration RETRY_TRACKER_TTL = Duration.ofHours(24);
   private final Map<String, WorkflowJobWatcher> workflowJobWatcherMap = new ConcurrentHashMap<>();
-  private final BlockingDeque<GithubActionJob> jobQueue = new LinkedBlockingDeque<>();
+  private final IngestQueue<GithubActionJob> jobQueue;
   private final Map<String, RetryTracker> retryTrackerMap = new ConcurrentHashMap<>();
   private final ExecutorService mainThread;
   private final ScheduledExecutorService runUpdateWatcher;
@@ -43,20 +54,31 @@ public class RetryService implements WebhookReceiver {
   private final Integer maxRetries;
   private final Autoscaler autoscaler;
   private final Map<String, ActionPool> actionPoolMap;
+  private final StateStore stateStore;
 
   public RetryService(Autoscaler autoscaler, @Value("${github.groupName}") String actionGroupName,
       @Value("${retryPolicy.maxJobInQueuedInMinutes:#{null}}") Integer maxJobInQueuedInMinutes,
       @Value("${retryPolicy.maxTimeBtwRetriesInMinutes:#{null}}") Integer maxTimeBtwRetriesInMinutes,
-      @Value("${retryPolicy.maxRetries:#{null}}") Integer maxRetries, ConfigReader configReader) {
+      @Value("${retryPolicy.maxRetries:#{null}}") Integer maxRetries, ConfigReader configReader,
+      AutoscalerSettings autoscalerSettings, MetricsContainer metricsContainer,
+      StateStore stateStore) {
     this.autoscaler = autoscaler;
+    this.stateStore = stateStore;
+    restoreRetryTrackers();
+    QueueSettings queueSettings = autoscalerSettings.getJobWatcherQueue();
+    this.jobQueue = new IngestQueue<>("job_watcher", queueSettings.getCapacity(),
+        queueSettings.getOverflowPolicy(), gj -> gj.getId() + ":" + gj.getAction(),
+        metricsContainer);
     this.maxJobInQueuedInMinutes = Optional.ofNullable(maxJobInQueuedInMinutes)
         .orElse(MAX_JOB_IN_QUEUED_IN_MINUTES_DEFAULT);
     this.maxTimeBtwRetriesInMinutes = Optional.ofNullable(maxTimeBtwRetriesInMinutes)
         .orElse(MAX_TIME_BTW_RETRIES_IN_MINUTES_DEFAULT);
     this.maxRetries = Optional.ofNullable(maxRetries).orElse(MAX_RETRY_ATTEMPTS_DEFAULT);
     this.actionGroupName = actionGroupName;
-    mainThread = Executors.newSingleThreadExecutor();
-    runUpdateWatcher = Executors.newSingleThreadScheduledExecutor();
+    mainThread = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("retry-service-", 0).factory());
+    runUpdateWatcher = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name("retry-service-watcher-", 0).factory());
 
     mainThread.execute(this::runUpdateWatcher);
     runUpdateWatcher.scheduleWithFixedDelay(this::checkRetryStatus, 30, 20, TimeUnit.SECONDS);
@@ -78,6 +100,9 @@ public class RetryService implements WebhookReceiver {
                   .withRunId(finalGj.getRunId()).withJobId(finalGj.getId()).build());
           watcher.getGithubActionJobs().add(gj);
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       } catch (Exception e) {
       }
     }
@@ -86,6 +111,12 @@ public class RetryService implements WebhookReceiver {
   public void checkRetryStatus() {
     try {
       Map<String, WorkflowJobWatcher> watcherMap = new HashMap<>(workflowJobWatcherMap);
+      watcherMap.values().stream().filter(this::leftQueued)
+          .forEach(w -> forget(w.getJobId()));
+      long expiredBefore = System.currentTimeMillis() - RETRY_TRACKER_TTL.toMillis();
+      retryTrackerMap.values().stream()
+          .filter(t -> t.getRetryTimes().stream().allMatch(time -> time < expiredBefore))
+          .forEach(t -> forget(t.getJobId()));
       List<WorkflowJobWatcher> watchersToRetry = watcherMap.values().stream()
           .filter(this::safeToRetry).toList();
       for (WorkflowJobWatcher w : watchersToRetry) {
@@ -104,6 +135,9 @@ public class RetryService implements WebhookReceiver {
               log.info("Attempting to retrying Github Job {}", opt.get().simpleDescription());
               autoscaler.receiveRetry(opt.get());
               retryTracker.getRetryTimes().add(System.currentTimeMillis());
+              stateStore.put(STATE_RETRY_TRACKERS, retryTracker.getJobId(),
+                  new JSONObject().put("runId", retryTracker.getRunId())
+                      .put("retryTimes", retryTracker.getRetryTimes()).toString());
             }
 
           }
@@ -117,6 +151,50 @@ public class RetryService implements WebhookReceiver {
     }
   }
 
+  /**
+   * Drops the watcher and retry attempts of a job, in memory and in the {@link StateStore}.
+   */
+  private void forget(String jobId) {
+    workflowJobWatcherMap.remove(jobId);
+    if (retryTrackerMap.remove(jobId) != null) {
+      stateStore.remove(STATE_RETRY_TRACKERS, jobId);
+    }
+  }
+
+  /**
+   * @return {@code true} once the job was picked up, after which it's never retried
+   */
+  private boolean leftQueued(WorkflowJobWatcher watcher) {
+    return watcher.getGithubActionJobs().stream()
+        .anyMatch(gj -> WorkflowJobAction.isActiveStatus(gj.getAction()));
+  }
+
+  /**
+   * Reloads the retry attempts of each job from the {@link StateStore} so a restart doesn't reset
+   * them. Attempts last written more than {@link #RETRY_TRACKER_TTL} ago are dropped.
+   */
+  private void restoreRetryTrackers() {
+    long now = System.currentTimeMillis();
+    stateStore.load(STATE_RETRY_TRACKERS).forEach((jobId, entry) -> {
+      if (entry.writtenAtMillis() + RETRY_TRACKER_TTL.toMillis() < now) {
+        stateStore.remove(STATE_RETRY_TRACKERS, jobId);
+        return;
+      }
+      try {
+        JSONObject json = new JSONObject(entry.value());
+        RetryTracker retryTracker = new RetryTracker(jobId, json.optString("runId", null));
+        JSONArray retryTimes = json.getJSONArray("retryTimes");
+        for (int i = 0; i < retryTimes.length(); i++) {
+          retryTracker.getRetryTimes().add(retryTimes.getLong(i));
+        }
+        retryTrackerMap.put(jobId, retryTracker);
+      } catch (Exception e) {
+        log.warn("Dropping unreadable retry tracker state for job {}", jobId);
+        stateStore.remove(STATE_RETRY_TRACKERS, jobId);
+      }
+    });
+  }
+
   public boolean safeToRetry(WorkflowJobWatcher watcher) {
     boolean hasQueued = watcher.getGithubActionJobs().stream()
         .anyMatch(gj -> WorkflowJobAction.QUEUED == gj.getAction());
@@ -132,6 +210,12 @@ public class RetryService implements WebhookReceiver {
     return elapsedTime > this.maxTimeBtwRetriesInMinutes && retryAttempts > this.maxRetries;
   }
 
+  @PreDestroy
+  public void shutdown() {
+    runUpdateWatcher.shutdownNow();
+    mainThread.shutdownNow();
+  }
+
   public boolean receive(GithubActionJob gj) {
     return jobQueue.offer(gj);
   }
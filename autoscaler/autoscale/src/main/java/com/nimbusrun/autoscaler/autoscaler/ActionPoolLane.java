@@ -0,0 +1,101 @@
+package com.nimbusrun.autoscaler.autoscaler;
+
+import com.nimbusrun.autoscaler.autoscaler.Autoscaler.UpscaleRequest;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.queue.IngestQueue;
+import com.nimbusrun.queue.OverflowPolicy;
+import io.micrometer.core.instrument.Tag;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+
+/**
+ * A worker lane dedicated to a single {@link ActionPool}. Each lane owns a bounded queue of
+ * upscale requests and a limit on how many creates may be in flight at once, so a slow provider
+ * call in one pool never holds up the requests of another pool.
+ */
+public class ActionPoolLane {
+
+  @Getter
+  private final ActionPool actionPool;
+  private final IngestQueue<UpscaleRequest> upscaleRequests;
+  private final Semaphore createPermits;
+
+  public ActionPoolLane(ActionPool actionPool, int queueCapacity, int maxConcurrentCreates) {
+    this(actionPool, queueCapacity, OverflowPolicy.DROP_NEWEST, maxConcurrentCreates, null);
+  }
+
+  /**
+   * @param metricsContainer where to export the lane's queue metrics, may be {@code null}
+   */
+  public ActionPoolLane(ActionPool actionPool, int queueCapacity, OverflowPolicy overflowPolicy,
+      int maxConcurrentCreates, MetricsContainer metricsContainer) {
+    this.actionPool = actionPool;
+    this.upscaleRequests = new IngestQueue<>("action_pool_lane", queueCapacity, overflowPolicy,
+        UpscaleRequest::getWorkflowJobId, metricsContainer,
+        List.of(Tag.of(MetricsContainer.POOL_NAME_TAG, actionPool.getName())));
+    this.createPermits = new Semaphore(Math.max(1, maxConcurrentCreates));
+  }
+
+  /**
+   * @return {@code false} if the lane is full and the request was dropped
+   */
+  public boolean offer(UpscaleRequest upscaleRequest) {
+    return this.upscaleRequests.offer(upscaleRequest);
+  }
+
+  public UpscaleRequest poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return this.upscaleRequests.poll(timeout, unit);
+  }
+
+  /**
+   * Waits up to {@code timeout} for a request and then keeps collecting the requests that arrive
+   * within {@code batchWindowInMilli} of it, so a burst for this pool is handled as one batch.
+   *
+   * @return the batch, empty if nothing arrived before the timeout
+   */
+  public List<UpscaleRequest> pollBatch(long timeout, TimeUnit unit, long batchWindowInMilli,
+      int maxBatchSize) throws InterruptedException {
+    List<UpscaleRequest> batch = new ArrayList<>();
+    UpscaleRequest first = this.upscaleRequests.poll(timeout, unit);
+    if (first == null) {
+      return batch;
+    }
+    batch.add(first);
+    int max = Math.max(1, maxBatchSize);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowInMilli);
+    while (batch.size() < max) {
+      long remaining = deadline - System.nanoTime();
+      UpscaleRequest next = remaining > 0
+          ? this.upscaleRequests.poll(remaining, TimeUnit.NANOSECONDS)
+          : this.upscaleRequests.poll();
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  /**
+   * Blocks the lane until a create slot is available. Only this pool's lane waits.
+   */
+  public void acquireCreatePermit() throws InterruptedException {
+    this.createPermits.acquire();
+  }
+
+  public void releaseCreatePermit() {
+    this.createPermits.release();
+  }
+
+  public int size() {
+    return this.upscaleRequests.size();
+  }
+
+  public String getName() {
+    return this.actionPool.getName();
+  }
+}
@@ -0,0 +1,124 @@
+package com.nimbusrun.autoscaler.autoscaler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seasonal model of queued workflow job arrivals per action pool.
+ * <p>
+ * A week is split into fixed size buckets (for example 15 minutes). When a bucket closes, the
+ * number of jobs that arrived in it is folded into an exponentially weighted moving average kept
+ * for the same bucket of the week. The forecast for a point in time is that average, i.e. how many
+ * jobs arrived around the same time of week in past weeks, weighted towards recent weeks.
+ */
+public class ArrivalForecaster {
+
+  private static final Duration WEEK = Duration.ofDays(7);
+
+  /**
+   * Notified each time a bucket closes, with the forecast the bucket had and the actual arrivals.
+   */
+  public interface BucketListener {
+
+    void bucketClosed(String actionPoolName, double forecast, long actual);
+  }
+
+  private final long bucketMillis;
+  private final int bucketsPerWeek;
+  private final double smoothing;
+  private final BucketListener listener;
+  private final Map<String, PoolModel> models = new ConcurrentHashMap<>();
+
+  /**
+   * @param bucket    size of a bucket. Should divide a week evenly.
+   * @param smoothing weight given to the latest week, between 0 and 1
+   * @param listener  notified when a bucket closes
+   */
+  public ArrivalForecaster(Duration bucket, double smoothing, BucketListener listener) {
+    this.bucketMillis = Math.max(1, bucket.toMillis());
+    this.bucketsPerWeek = (int) Math.max(1, WEEK.toMillis() / this.bucketMillis);
+    this.smoothing = Math.min(1, Math.max(0, smoothing));
+    this.listener = listener;
+  }
+
+  /**
+   * Records a queued job for the action pool.
+   */
+  public void record(String actionPoolName, Instant at) {
+    model(actionPoolName).record(at);
+  }
+
+  /**
+   * Closes buckets that ended before {@code now} even when no job arrived in them.
+   */
+  public void advance(String actionPoolName, Instant now) {
+    model(actionPoolName).advance(now);
+  }
+
+  /**
+   * @return expected number of job arrivals in the bucket that contains {@code at}
+   */
+  public double forecast(String actionPoolName, Instant at) {
+    return model(actionPoolName).forecast(at);
+  }
+
+  private PoolModel model(String actionPoolName) {
+    return models.computeIfAbsent(actionPoolName, PoolModel::new);
+  }
+
+  private class PoolModel {
+
+    private final String actionPoolName;
+    private final double[] expected = new double[bucketsPerWeek];
+    private final boolean[] seen = new boolean[bucketsPerWeek];
+    private long currentBucket = -1;
+    private long currentCount = 0;
+
+    PoolModel(String actionPoolName) {
+      this.actionPoolName = actionPoolName;
+    }
+
+    synchronized void record(Instant at) {
+      advance(at);
+      currentCount++;
+    }
+
+    synchronized void advance(Instant now) {
+      long bucket = now.toEpochMilli() / bucketMillis;
+      if (currentBucket < 0) {
+        currentBucket = bucket;
+        return;
+      }
+      if (bucket <= currentBucket) {
+        return;
+      }
+      close(currentBucket, currentCount, true);
+      // Buckets nobody asked about had no arrivals. A week at most, older ones are overwritten.
+      for (long b = Math.max(currentBucket + 1, bucket - bucketsPerWeek); b < bucket; b++) {
+        close(b, 0, false);
+      }
+      currentBucket = bucket;
+      currentCount = 0;
+    }
+
+    synchronized double forecast(Instant at) {
+      return expected[slot(at.toEpochMilli() / bucketMillis)];
+    }
+
+    private void close(long bucket, long count, boolean notify) {
+      int slot = slot(bucket);
+      double forecast = expected[slot];
+      expected[slot] = seen[slot] ? smoothing * count + (1 - smoothing) * forecast : count;
+      seen[slot] = true;
+      if (notify && listener != null) {
+        listener.bucketClosed(actionPoolName, forecast, count);
+      }
+    }
+
+    private int slot(long bucket) {
+      return (int) (bucket % bucketsPerWeek);
+    }
+  }
+}
@@ -3,22 +3,33 @@ package com.nimbusrun.autoscaler.autoscaler;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.nimbusrun.Utils;
+import com.nimbusrun.autoscaler.autoscaler.InstanceInventory.Reservation;
 import com.nimbusrun.autoscaler.github.GithubServiceApi;
 import com.nimbusrun.autoscaler.github.orm.listDelivery.DeliveryRecord;
 import com.nimbusrun.autoscaler.github.orm.runner.Runner;
 import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import com.nimbusrun.cluster.ClusterCoordinator;
 import com.nimbusrun.compute.ActionPool;
 import com.nimbusrun.compute.Compute;
+import com.nimbusrun.compute.ComputeOperation;
 import com.nimbusrun.compute.Constants;
 import com.nimbusrun.compute.DeleteInstanceRequest;
 import com.nimbusrun.compute.ListInstanceResponse;
 import com.nimbusrun.compute.ListInstanceResponse.Instance;
 import com.nimbusrun.compute.exceptions.InstanceCreateTimeoutException;
+import com.nimbusrun.config.AutoscalerSettings;
+import com.nimbusrun.config.AutoscalerSettings.QueueSettings;
 import com.nimbusrun.config.ConfigReader;
 import com.nimbusrun.github.GithubActionJob;
+import com.nimbusrun.github.WorkflowJobAction;
+import com.nimbusrun.queue.IngestQueue;
+import com.nimbusrun.state.StateStore;
+import com.nimbusrun.state.StateStore.StateEntry;
 import com.nimbusrun.webhook.WebhookReceiver;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -31,22 +42,29 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -56,21 +74,82 @@ public class Autoscaler implements WebhookReceiver {
 
   public static final Integer MAX_CREATE_FAILURE_RETRIES = 3;
   public static final Integer MAX_CREATE_POOL_FULL_RETRIES = 1000;
+  public static final Duration SHUTDOWN_GRACE_PERIOD = Duration.ofSeconds(30);
+  public static final String DELAYED_RETRY_STAGE = "delayed_retry";
+  public static final String STATE_UPSCALED_JOBS = "upscaled_jobs";
+  public static final String STATE_RUNNER_LAST_BUSY = "runner_last_busy";
+  public static final String STATE_INSTANCE_DELETE_COUNTERS = "instance_delete_counters";
+  public static final String STATE_RUNNER_DELETE_COUNTERS = "runner_delete_counters";
+  public static final String STATE_DELAYED_RETRIES = "delayed_retries";
+  public static final String STATE_RETRY_REQUESTS = "retry_requests";
+  private static final Duration RUNNER_LAST_BUSY_TTL = Duration.ofHours(2);
+  private static final Duration DELETE_COUNTER_TTL = Duration.ofMinutes(30);
+  private static final Duration UPSCALED_JOB_TTL = Duration.ofMinutes(1);
+  /**
+   * Max retry requests whose job status is checked together.
+   */
+  private static final int MAX_RETRY_BATCH = 100;
 
 
   private final Map<String, Set<String>> currentInstances;
   private final ScheduledExecutorService scheduledExecutorService;
-  public BlockingDeque<UpscaleRequest> receivedRequests = new LinkedBlockingDeque<>();
-  public BlockingDeque<Pause<UpscaleRequest>> retryUpscaleRequests = new LinkedBlockingDeque<>();
-  public BlockingDeque<GithubActionJob> receivedRetryRequests = new LinkedBlockingDeque<>();
+  /**
+   * One worker lane per action pool. Upscale requests are routed to the lane of their pool so that
+   * pools scale in parallel and a slow pool cannot hold up the others.
+   */
+  private final Map<String, ActionPoolLane> actionPoolLanes;
+  /**
+   * Local view of each action pool's instances. Updated on create and delete and reconciled with
+   * the compute provider every {@code autoscalerThreadDelay}, so capacity checks do not call the
+   * provider's list API. Every create reserves its capacity here first and gives back what it did
+   * not create, so the action pool's maximum holds however long the provider takes.
+   */
+  private final InstanceInventory instanceInventory = new InstanceInventory();
+  /**
+   * Deferred upscale requests ordered by the time they become due.
+   */
+  private final DelayQueue<Pause<UpscaleRequest>> retryUpscaleRequests = new DelayQueue<>();
+  /**
+   * Number of deferred upscale requests per action pool, exposed as a gauge.
+   */
+  private final Map<String, AtomicInteger> pendingRetryUpscaleRequests;
+  private final int delayedRetryQueueCapacity;
+  /**
+   * Retries offered by {@link com.nimbusrun.actiontracker.RetryService}, waiting for GitHub to
+   * confirm the job is still queued.
+   */
+  private final IngestQueue<GithubActionJob> receivedRetryRequests;
   private final Map<String, ActionPool> actionPoolMap;
   private final Optional<ActionPool> defaultActionPool;
   private final MetricsContainer metricsContainer;
   private Compute compute;
   private GithubServiceApi githubService;
   private ConfigReader configReader;
+  /**
+   * All background work runs on virtual threads. A create or delete blocked on the compute
+   * provider for minutes only parks its virtual thread.
+   */
   private final ExecutorService processMessageThread;
+  private final ExecutorService laneWorkers;
   private final ExecutorService threadPerTasks;
+  /**
+   * Bounds the number of create and delete calls in flight against the compute provider across all
+   * action pools.
+   */
+  private final Semaphore computeCallPermits;
+  /**
+   * Callbacks of create and delete operations started against the compute provider that haven't
+   * completed yet.
+   */
+  private final Set<CompletableFuture<?>> inFlightComputeCalls = ConcurrentHashMap.newKeySet();
+  private final long upscaleBatchWindowInMilli;
+  private final int maxUpscaleBatchSize;
+  /**
+   * Seasonal model of each action pool's job arrivals. Only fed when predictive scaling is on.
+   */
+  private final ArrivalForecaster arrivalForecaster;
+  private final boolean predictiveScaling;
+  private final Duration forecastLeadTime;
   /**
    * Tracks whether a GitHub runner is currently busy. This helps determine when it is safe to
    * delete the instance after the runner reports it is no longer in use.
@@ -101,47 +180,81 @@ public class Autoscaler implements WebhookReceiver {
   private final Cache<String, AtomicInteger> githubRunnerIdUpscaledCache;
 
   /**
-   * When a burst of jobs arrives, the underlying compute engine (AWS, GCP, etc.) may not
-   * immediately report the total number of active instances. This race condition can temporarily
-   * allow more than the configured maximum number of instances to be created.
-   * <p>
-   * To mitigate this, we use a short-lived cache that tracks the number of instances created per
-   * action pool. The cache ensures that provisioning never exceeds the maximum allowed size of the
-   * pool during its lifetime.
-   * <p>
-   * In plain terms: the cache acts as a safeguard so we never provision more instances than the
-   * action pool’s maximum size.
+   * Write-through copy of the caches and retry queues above, so a restart picks up where the
+   * previous process left off.
+   */
+  private final StateStore stateStore;
+  /**
+   * Instance delete counters restored from the {@link StateStore}. A {@link DeleteInstanceRequest}
+   * needs the provider's instance details, so a restored count is only adopted when the instance's
+   * counter is incremented again.
    */
-  private final Cache<String, AtomicInteger> actionPoolUpScale;
+  private final Map<String, Integer> restoredInstanceDeleteCounters = new ConcurrentHashMap<>();
+  private final AtomicBoolean inventoryReconciled = new AtomicBoolean(false);
+  /**
+   * Decides which action pools this replica scales when several replicas run side by side.
+   */
+  private final ClusterCoordinator cluster;
 
   public Autoscaler(Compute compute, GithubServiceApi githubService, ConfigReader configReader,
-      MetricsContainer metricsContainer, @Value("${autoscalerThreadDelay:#{30*1000}}") int scheduleThreadDelayInMilli) throws InterruptedException {
+      MetricsContainer metricsContainer, AutoscalerSettings autoscalerSettings,
+      StateStore stateStore, ClusterCoordinator cluster,
+      @Value("${autoscalerThreadDelay:#{30*1000}}") int scheduleThreadDelayInMilli) throws InterruptedException {
     this.compute = compute;
+    this.stateStore = stateStore;
+    this.cluster = cluster;
     this.githubService = githubService;
     this.configReader = configReader;
     this.metricsContainer = metricsContainer;
-    this.processMessageThread = Executors.newFixedThreadPool(5);
-    this.scheduledExecutorService = Executors.newScheduledThreadPool(5);
-    this.threadPerTasks = Executors.newCachedThreadPool();
+    this.processMessageThread = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("autoscaler-message-", 0).factory());
+    this.scheduledExecutorService = Executors.newScheduledThreadPool(2,
+        Thread.ofVirtual().name("autoscaler-scheduler-", 0).factory());
+    this.threadPerTasks = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("autoscaler-task-", 0).factory());
+    this.computeCallPermits = new Semaphore(
+        Math.max(1, autoscalerSettings.getMaxConcurrentComputeCalls()));
     this.actionPoolMap = populateActionPoolMap();
     this.currentInstances =populateCurrentInstances();
+    this.actionPoolLanes = populateActionPoolLanes(autoscalerSettings);
+    QueueSettings retryQueue = autoscalerSettings.getRetryQueue();
+    this.receivedRetryRequests = new IngestQueue<>("retry", retryQueue.getCapacity(),
+        retryQueue.getOverflowPolicy(), GithubActionJob::getId, metricsContainer);
+    this.delayedRetryQueueCapacity = Math.max(1, autoscalerSettings.getDelayedRetryQueueCapacity());
+    metricsContainer.queueDepth(DELAYED_RETRY_STAGE, List.of(), this.retryUpscaleRequests::size);
+    this.pendingRetryUpscaleRequests = populatePendingRetryUpscaleRequests();
+    this.laneWorkers = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("autoscaler-lane-", 0).factory());
+    this.upscaleBatchWindowInMilli = Math.max(0, autoscalerSettings.getUpscaleBatchWindowInMilli());
+    this.maxUpscaleBatchSize = Math.max(1, autoscalerSettings.getMaxUpscaleBatchSize());
+    this.predictiveScaling = autoscalerSettings.isPredictiveScaling();
+    this.forecastLeadTime = Duration.ofMinutes(
+        Math.max(0, autoscalerSettings.getForecastLeadTimeInMinutes()));
+    this.arrivalForecaster = new ArrivalForecaster(
+        Duration.ofMinutes(Math.max(1, autoscalerSettings.getForecastBucketInMinutes())),
+        autoscalerSettings.getForecastSmoothing(), metricsContainer::jobArrivals);
     this.defaultActionPool = actionPoolMap.values().stream().filter(ActionPool::isDefault)
         .findAny();
     this.runnerLastBusy = Caffeine.newBuilder()
         .maximumSize(1_000_000)
-        .expireAfterWrite(Duration.ofHours(2))
+        .expireAfterWrite(RUNNER_LAST_BUSY_TTL)
+        .executor(Runnable::run)
+        .<String, AtomicBoolean>removalListener(
+            (key, value, cause) -> forget(STATE_RUNNER_LAST_BUSY, key, cause))
         .build();
     this.instanceIdDeleteCounter = Caffeine.newBuilder()
         .maximumSize(1_000_000)
-        .expireAfterWrite(Duration.ofMinutes(30))
+        .expireAfterWrite(DELETE_COUNTER_TTL)
+        .executor(Runnable::run)
+        .<DeleteInstanceRequest, AtomicInteger>removalListener(
+            (key, value, cause) -> forget(STATE_INSTANCE_DELETE_COUNTERS, stateKey(key), cause))
         .build();
     this.runnerIdDeleteCounter = Caffeine.newBuilder()
         .maximumSize(1_000_000)
-        .expireAfterWrite(Duration.ofMinutes(30))
-        .build();
-    this.actionPoolUpScale = Caffeine.newBuilder()
-        .maximumSize(1_000_000)
-        .expireAfterWrite(Duration.ofMinutes(1))
+        .expireAfterWrite(DELETE_COUNTER_TTL)
+        .executor(Runnable::run)
+        .<RunnerNameId, AtomicInteger>removalListener(
+            (key, value, cause) -> forget(STATE_RUNNER_DELETE_COUNTERS, key.id(), cause))
         .build();
     // This may lead to problems. For example if Nimbus Run has been down for a period of time and
     // there are jobs that haven't been triggered then when a new request comes it may not satisfy
@@ -151,16 +264,22 @@ public class Autoscaler implements WebhookReceiver {
     // We also have the protection of maximum number of instances for an Action Pool.
     this.githubRunnerIdUpscaledCache = Caffeine.newBuilder()
         .maximumSize(1_000_000)
-        .expireAfterWrite(Duration.ofMinutes(1))
+        .expireAfterWrite(UPSCALED_JOB_TTL)
+        .executor(Runnable::run)
+        .<String, AtomicInteger>removalListener(
+            (key, value, cause) -> forget(STATE_UPSCALED_JOBS, key, cause))
         .build();
+    restoreState();
 
     this.scheduledExecutorService.scheduleWithFixedDelay(this::handleComputeAndRunners, 10, scheduleThreadDelayInMilli,
         TimeUnit.MILLISECONDS);
     this.scheduledExecutorService.scheduleWithFixedDelay(this::updateCurrentInstances, 10, scheduleThreadDelayInMilli,
         TimeUnit.MILLISECONDS);
-    this.processMessageThread.execute(this::processMessage);
+    this.actionPoolLanes.values()
+        .forEach(lane -> this.laneWorkers.execute(() -> processLane(lane)));
     this.processMessageThread.execute(this::processRetryMessage);
     this.processMessageThread.execute(this::scheduleRetry);
+    this.cluster.onForwardedJob(this::receive);
   }
 
 
@@ -181,35 +300,53 @@ public class Autoscaler implements WebhookReceiver {
     return items;
   }
 
+  /**
+   * @return map of action pool names to their {@link ActionPoolLane}
+   */
+  private Map<String, ActionPoolLane> populateActionPoolLanes(AutoscalerSettings settings) {
+    Map<String, ActionPoolLane> lanes = new ConcurrentHashMap<>();
+    this.actionPoolMap.forEach((name, pool) -> lanes.put(name,
+        new ActionPoolLane(pool, settings.getActionPoolQueueCapacity(),
+            settings.getActionPoolQueueOverflowPolicy(), settings.getMaxConcurrentCreatesPerPool(),
+            this.metricsContainer)));
+    return lanes;
+  }
+
+  /**
+   * @return map of action pool names to their number of deferred upscale requests
+   */
+  private Map<String, AtomicInteger> populatePendingRetryUpscaleRequests() {
+    Map<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+    this.actionPoolMap.keySet().forEach(name -> {
+      AtomicInteger count = new AtomicInteger(0);
+      this.metricsContainer.pendingRetryUpscaleRequests(name, count);
+      pending.put(name, count);
+    });
+    return pending;
+  }
+
   private ConfigReader getConfigReader() {
     return configReader;
   }
 
 
   /**
-   * Items placed into {@link Autoscaler#retryUpscaleRequests} are moved back to
-   * {@link Autoscaler#receivedRequests} once their configured wait time has expired.
+   * Items placed into {@link Autoscaler#retryUpscaleRequests} are moved back to the
+   * {@link ActionPoolLane} of their action pool once their configured wait time has expired. The
+   * thread sleeps until the earliest deferred request is due.
    */
   private void scheduleRetry() {
     while (true) {
       try {
-        Thread.sleep(50);
-        Pause<UpscaleRequest> upscaleRequestPause;
-        List<Pause<UpscaleRequest>> addBack = new ArrayList<>();
-        while ((upscaleRequestPause = this.retryUpscaleRequests.poll(1, TimeUnit.MINUTES))
-            != null) {
-          try {
-            if (Instant.now().isAfter(upscaleRequestPause.instant())) {
-              this.receivedRequests.offer(upscaleRequestPause.object());
-            } else {
-              addBack.add(upscaleRequestPause);
-            }
-          } catch (Exception e) {
-            log.error("Some how there's an excpetion here", e);
-          }
-        }
-        addBack.forEach(this.retryUpscaleRequests::offer);
-
+        Pause<UpscaleRequest> upscaleRequestPause = this.retryUpscaleRequests.take();
+        pendingRetryUpscaleRequests(upscaleRequestPause.object()).decrementAndGet();
+        stateStore.remove(STATE_DELAYED_RETRIES, upscaleRequestPause.object().getWorkflowJobId());
+        metricsContainer.queueWaitTime(DELAYED_RETRY_STAGE, List.of(),
+            Duration.between(upscaleRequestPause.queuedAt(), Instant.now()));
+        offerToLane(upscaleRequestPause.object());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       } catch (Exception e) {
         log.error("Rescheduling experienced an error", e);
       }
@@ -217,7 +354,7 @@ public class Autoscaler implements WebhookReceiver {
   }
 
   /**
-   * Adds the upscale requests to the  {@link Autoscaler#retryUpscaleRequests} dequeue.
+   * Adds the upscale requests to the  {@link Autoscaler#retryUpscaleRequests} queue.
    *
    * @param waitInMilliseconds - the time the upscale should wait before being retried
    * @param upscaleRequest     - the upscale request that should be retried later
@@ -230,8 +367,29 @@ public class Autoscaler implements WebhookReceiver {
     } else if (upscaleRequest.upScaleReason == UpScaleReason.RETRY_FAILED_CREATE) {
       metricsContainer.instanceRetriesFailedCreate(upscaleRequest.actionPool.getName());
     }
-    retryUpscaleRequests.offer(
-        new Pause<>(Instant.now().plusMillis(waitInMilliseconds), upscaleRequest));
+    if (retryUpscaleRequests.size() >= delayedRetryQueueCapacity) {
+      log.warn("Too many upscale requests waiting to be retried. Dropping upscale request for "
+          + "workflow job id: {}", upscaleRequest.getWorkflowJobId());
+      metricsContainer.queueDropped(DELAYED_RETRY_STAGE, List.of(), "full");
+      return;
+    }
+    Instant now = Instant.now();
+    Pause<UpscaleRequest> pause = new Pause<>(now.plusMillis(waitInMilliseconds), upscaleRequest,
+        now);
+    stateStore.put(STATE_DELAYED_RETRIES, upscaleRequest.getWorkflowJobId(),
+        delayedRetryToJson(pause).toString());
+    deferRetry(pause);
+    metricsContainer.queueEnqueued(DELAYED_RETRY_STAGE, List.of());
+  }
+
+  private void deferRetry(Pause<UpscaleRequest> pause) {
+    pendingRetryUpscaleRequests(pause.object()).incrementAndGet();
+    retryUpscaleRequests.offer(pause);
+  }
+
+  private AtomicInteger pendingRetryUpscaleRequests(UpscaleRequest upscaleRequest) {
+    return this.pendingRetryUpscaleRequests.computeIfAbsent(
+        upscaleRequest.actionPool.getName(), name -> new AtomicInteger(0));
   }
 
   /**
@@ -244,25 +402,35 @@ public class Autoscaler implements WebhookReceiver {
           .collect(Collectors.toMap(Runner::getName, Function.identity()));
       updateRunnerInfo(runners);
       scaleDownInstance(runnersMap);
-      orphanedRunners(runners);
+      maintainWarmPools(runnersMap);
+      discardUnclaimedDeleteCounters();
       deleteExpiredInstances();
-      deleteExpiredRunners();
+      if (cluster.isLeader()) {
+        orphanedRunners(runners);
+        deleteExpiredRunners();
+      }
     } catch (Exception e) {
       log.error("Failed the main loop ", e);
     }
   }
 
   /**
-   * For metrics
+   * Reconciles the {@link InstanceInventory} with the compute provider and updates metrics.
    */
   private void updateCurrentInstances() {
-    Map<String, ListInstanceResponse> instanceMap = compute.listAllComputeInstances();
+    try {
+      Map<String, ListInstanceResponse> instanceMap = compute.listAllComputeInstances();
 
-    instanceMap.forEach((key, insts) ->
-        metricsContainer.updateInstanceCount(key, insts.instances().size()));
-    instanceMap.forEach((ap, lit)->{
-      currentInstances.put(ap,lit.instances().stream().map(Instance::getInstanceId).collect(Collectors.toSet()));
-    });
+      instanceMap.forEach(instanceInventory::reconcile);
+      inventoryReconciled.set(true);
+      instanceMap.forEach((key, insts) ->
+          metricsContainer.updateInstanceCount(key, insts.instances().size()));
+      instanceMap.forEach((ap, lit)->{
+        currentInstances.put(ap,lit.instances().stream().map(Instance::getInstanceId).collect(Collectors.toSet()));
+      });
+    } catch (Exception e) {
+      log.error("Failed to reconcile instance inventory ", e);
+    }
   }
 
   /**
@@ -273,7 +441,10 @@ public class Autoscaler implements WebhookReceiver {
   private void updateRunnerInfo(List<Runner> runners) {
     try {
       runners.stream().forEach(r -> {
-        this.runnerLastBusy.get(r.getName() + "", key -> new AtomicBoolean(true));
+        this.runnerLastBusy.get(r.getName() + "", key -> {
+          stateStore.put(STATE_RUNNER_LAST_BUSY, key, Boolean.TRUE.toString());
+          return new AtomicBoolean(true);
+        });
       });
     } catch (Exception e) {
       log.error("error updating runner last busy due to: {}", e.getMessage());
@@ -288,19 +459,7 @@ public class Autoscaler implements WebhookReceiver {
     map.keySet().stream()
         .filter(key -> map.get(key).intValue() > Constants.DELETE_INSTANCE_RUNNER_THRESHOLD)
         .forEach(key -> {
-          this.threadPerTasks.execute(() -> {
-            try {
-              if (this.compute.deleteCompute(key)) {
-                metricsContainer.instanceDeletedTotal(key.getActionPool().getName(), true);
-                metricsContainer.actionPoolProcessTime(key.getActionPool().getName(), System.currentTimeMillis() - key.getInstanceCreateTimeInMilli());
-              } else {
-                metricsContainer.instanceDeletedTotal(key.getActionPool().getName(), false);
-              }
-            } catch (Exception e) {
-              metricsContainer.instanceDeletedTotal(key.getActionPool().getName(), false);
-              throw new RuntimeException(e);
-            }
-          });
+          this.threadPerTasks.execute(() -> deleteInstance(key));
           try {
             instanceIdDeleteCounter.invalidate(key);
           } catch (NullPointerException e) {
@@ -309,6 +468,68 @@ public class Autoscaler implements WebhookReceiver {
         });
   }
 
+  private void deleteInstance(DeleteInstanceRequest key) {
+    long start = System.nanoTime();
+    track(callComputeAsync(() -> this.compute.startDeleteCompute(key))
+        .whenComplete((deleted, error) -> deletedInstance(key, deleted, unwrap(error),
+            Duration.ofNanos(System.nanoTime() - start))));
+  }
+
+  private void deletedInstance(DeleteInstanceRequest key, Boolean deleted, Throwable error,
+      Duration took) {
+    String poolName = key.getActionPool().getName();
+    if (error == null && deleted) {
+      instanceInventory.deleted(poolName, key.getInstanceId());
+      metricsContainer.instanceDeletedTotal(poolName, true);
+      metricsContainer.instanceOperationTime(poolName, MetricsContainer.DELETE_OPERATION,
+          MetricsContainer.SUCCESS_RESULT, took);
+      metricsContainer.actionPoolProcessTime(poolName, System.currentTimeMillis() - key.getInstanceCreateTimeInMilli());
+    } else {
+      metricsContainer.instanceDeletedTotal(poolName, false);
+      metricsContainer.instanceOperationTime(poolName, MetricsContainer.DELETE_OPERATION,
+          MetricsContainer.FAILURE_RESULT, took);
+      if (error != null) {
+        Utils.excessiveErrorLog("Failed to delete instance %s of action pool %s due to %s"
+            .formatted(key.getInstanceId(), poolName, error.getMessage()), error, log);
+      }
+    }
+  }
+
+  /**
+   * A completed workflow job means its ephemeral runner is done. If the runner ran on an instance
+   * this autoscaler created, the instance is deleted right away instead of waiting for
+   * {@link Autoscaler#scaleDownInstance(Map)} to notice the runner is gone over several cycles.
+   * Runners that can't be matched to an instance in the {@link InstanceInventory} are left to the
+   * polling scale-down.
+   *
+   * @param gj the completed GitHub Actions job
+   * @return {@code true} if an instance was scheduled for deletion
+   */
+  private boolean scaleDownCompletedRunner(GithubActionJob gj) {
+    Optional<String> runnerName = gj.getRunnerName();
+    if (runnerName.isEmpty()) {
+      return false;
+    }
+    for (ActionPool actionPool : this.actionPoolMap.values()) {
+      Optional<Instance> instance = instanceInventory.findByName(actionPool.getName(),
+          runnerName.get());
+      if (instance.isPresent()) {
+        if (!cluster.owns(actionPool.getName())) {
+          return cluster.forward(actionPool.getName(), gj);
+        }
+        DeleteInstanceRequest deleteInstanceRequest = new DeleteInstanceRequest(actionPool,
+            instance.get().getInstanceId(), instance.get().getInstanceName(),
+            instance.get().getInstanceCreateTimeInMilli(), instance.get().getExtraProperties());
+        log.info("Workflow job {} completed on runner {}. Deleting instance id: {}", gj.getId(),
+            runnerName.get(), deleteInstanceRequest.getInstanceId());
+        instanceIdDeleteCounter.invalidate(deleteInstanceRequest);
+        this.threadPerTasks.execute(() -> deleteInstance(deleteInstanceRequest));
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Deletes expired runners once the {@link Constants#DELETE_INSTANCE_RUNNER_THRESHOLD} has been
    * exceeded. The threshold is managed through
@@ -320,8 +541,8 @@ public class Autoscaler implements WebhookReceiver {
     map.keySet().stream()
         .filter(key -> map.get(key).intValue() > Constants.DELETE_INSTANCE_RUNNER_THRESHOLD)
         .forEach(key -> {
-          this.threadPerTasks.execute(() -> {
-            if (this.githubService.deleteRunner(key.id())) {
+          this.githubService.deleteRunnerAsync(key.id()).thenAccept(deleted -> {
+            if (deleted) {
               log.info("Deleted orphaned runner name: {} id: {}", key.name(), key.id());
             }
           });
@@ -339,8 +560,11 @@ public class Autoscaler implements WebhookReceiver {
    * @param deleteInstanceRequest
    */
   private void incrementInstanceIdDeleteCounter(DeleteInstanceRequest deleteInstanceRequest) {
-    this.instanceIdDeleteCounter.get(deleteInstanceRequest, (key) -> new AtomicInteger(1))
+    String stateKey = stateKey(deleteInstanceRequest);
+    int count = this.instanceIdDeleteCounter.get(deleteInstanceRequest, (key) -> new AtomicInteger(
+            Optional.ofNullable(restoredInstanceDeleteCounters.remove(stateKey)).orElse(1)))
         .incrementAndGet();
+    stateStore.put(STATE_INSTANCE_DELETE_COUNTERS, stateKey, Integer.toString(count));
   }
 
   /**
@@ -349,9 +573,11 @@ public class Autoscaler implements WebhookReceiver {
    * @param runner
    */
   private void incrementRunnerIdDeleteCounter(Runner runner) {
-    this.runnerIdDeleteCounter.get(new RunnerNameId(runner.getName(), runner.getId() + ""),
-        (key) -> new AtomicInteger(1)).incrementAndGet();
-
+    RunnerNameId runnerNameId = new RunnerNameId(runner.getName(), runner.getId() + "");
+    int count = this.runnerIdDeleteCounter.get(runnerNameId, (key) -> new AtomicInteger(1))
+        .incrementAndGet();
+    stateStore.put(STATE_RUNNER_DELETE_COUNTERS, runnerNameId.id(),
+        new JSONObject().put("name", runnerNameId.name()).put("count", count).toString());
   }
 
 
@@ -359,96 +585,236 @@ public class Autoscaler implements WebhookReceiver {
    * Consumes retry requests offered by {@link com.nimbusrun.actiontracker.RetryService}. For each
    * {@link GithubActionJob}, this method checks with the GitHub API to determine whether the job is
    * still queued. If so, the job is retried by passing it back to
-   * {@link #receive(GithubActionJob)}.
+   * {@link #receive(GithubActionJob)}. Pending requests are checked together, so jobs of the same
+   * workflow run share one GitHub call.
    */
-  private synchronized void processRetryMessage() {
+  private void processRetryMessage() {
     while (true) {
       try {
-        GithubActionJob gj;
-        while ((gj = this.receivedRetryRequests.poll(1, TimeUnit.MINUTES)) != null) {
-          if (this.githubService.isJobQueued(gj.getRunUrl())) {
-            log.info("Retrying payload {}", gj.getJsonStr());
-            receive(gj);
+        GithubActionJob first;
+        while ((first = this.receivedRetryRequests.poll(1, TimeUnit.MINUTES)) != null) {
+          List<GithubActionJob> batch = new ArrayList<>();
+          batch.add(first);
+          GithubActionJob next;
+          while (batch.size() < MAX_RETRY_BATCH
+              && (next = this.receivedRetryRequests.poll()) != null) {
+            batch.add(next);
+          }
+          List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+          for (GithubActionJob gj : batch) {
+            queued.add(this.githubService.isJobQueuedAsync(gj.getRunUrl(), gj.getId()));
+          }
+          for (int i = 0; i < batch.size(); i++) {
+            GithubActionJob gj = batch.get(i);
+            try {
+              if (queued.get(i).join()) {
+                log.info("Retrying payload {}", gj.getJsonStr());
+                receive(gj, true);
+              }
+            } catch (Exception e) {
+              log.error("Failed to retry job id: %s".formatted(gj.getId()), e);
+            }
+            // only once handled, so a crash mid-batch replays the rest on restart
+            stateStore.remove(STATE_RETRY_REQUESTS, gj.getId());
           }
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       } catch (Exception e) {
+        log.error("Processing retry messages experienced an error", e);
       }
     }
   }
 
   /**
-   * Core upscaler loop.
+   * Routes the upscale request to the {@link ActionPoolLane} of its action pool.
+   *
+   * @return {@code false} if the lane is full or the action pool has no lane
+   */
+  private boolean offerToLane(UpscaleRequest upscaleRequest) {
+    if (!cluster.owns(upscaleRequest.actionPool.getName())) {
+      // Ownership moved while the request was deferred
+      return cluster.forward(upscaleRequest.actionPool.getName(),
+          upscaleRequest.getGithubActionJob());
+    }
+    ActionPoolLane lane = this.actionPoolLanes.get(upscaleRequest.actionPool.getName());
+    if (lane == null) {
+      log.error("No lane exists for action pool {}", upscaleRequest.actionPool.getName());
+      return false;
+    }
+    if (!lane.offer(upscaleRequest)) {
+      log.warn("Lane for action pool {} is full. Dropping upscale request for workflow job id: {}",
+          lane.getName(), upscaleRequest.getWorkflowJobId());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Core upscaler loop for a single action pool.
    * <p>
-   * Consumes messages from {@link Autoscaler#receivedRequests}. If the target {@link ActionPool}
-   * has capacity, attempts to provision a new instance. If the pool is full or provisioning fails,
-   * the request is deferred to {@link Autoscaler#retryUpscaleRequests} for a later retry.
+   * Consumes messages from the {@link ActionPoolLane}. Requests that arrive for the pool within
+   * {@link AutoscalerSettings#getUpscaleBatchWindowInMilli()} of each other are merged into one
+   * batch, and the batch is created with a single {@link Compute#startCreateCompute(ActionPool, int)}
+   * call. Requests the pool has no capacity for, or whose instance failed to be created, are
+   * deferred to {@link Autoscaler#retryUpscaleRequests} for a later retry.
    * <p>
    * Duplicate protection: if a given workflow job has already triggered an upscale (tracked via
    * {@code githubRunnerIdUpscaledCache}), the request is ignored to prevent redundant scaling.
+   *
+   * @param lane the lane this worker is dedicated to
    */
-  private synchronized void processMessage() {
+  private void processLane(ActionPoolLane lane) {
     while (true) {
       try {
-
-        UpscaleRequest upscaleRequest;
-        while ((upscaleRequest = receivedRequests.poll(20, TimeUnit.SECONDS)) != null) {
-          if (githubRunnerIdUpscaledCache.getIfPresent(upscaleRequest.getWorkflowJobId()) != null) {
-            log.warn("Upscale event already happened for worflow job id: %s".formatted(
-                upscaleRequest.getWorkflowJobId()));
-            continue;
-          }
-          if (upscaleRequest.getRetryCreateFailed() > MAX_CREATE_FAILURE_RETRIES
-              || upscaleRequest.getRetryPoolFull() > MAX_CREATE_POOL_FULL_RETRIES) {
-            log.info(
-                "Action pool %s not being expanded due to too many retries. pool full: %s and failed create: %s"
-                    .formatted(upscaleRequest.actionPool.getName(),
-                        upscaleRequest.getRetryPoolFull(), upscaleRequest.getRetryCreateFailed()));
-            continue;
-          }
-          ActionPool pool = upscaleRequest.actionPool;
-          AtomicInteger numberOfInstances = actionPoolUpScale.get(pool.getName(),
-              (k) -> new AtomicInteger(0));
-          int maxInstanceCount = pool.getMaxInstances().orElse(Constants.DEFAULT_MAX_INSTANCES);
-          boolean hasUnlimitedInstances = maxInstanceCount == 0;
-          ListInstanceResponse listInstanceResponse = compute.listComputeInstances(pool);
-
-          if (!hasUnlimitedInstances && (maxInstanceCount <= listInstanceResponse.instances().size()
-              || maxInstanceCount <= numberOfInstances.get())) {
-            this.retryLater(5000,
-                upscaleRequest.retryPoolFull()); // So it doesn't occupy the CPU full time
-            continue;
-          }
-          ActionPool finalPool = pool;
-          UpscaleRequest finalUpscaleRequest = upscaleRequest;
-          numberOfInstances.incrementAndGet();
-          this.threadPerTasks.execute(() -> {
-            try {
-              log.info("Attempting to make instance for action pool: {}", finalPool.getName());
-              boolean successful = compute.createCompute(finalPool);
-              if (successful) {
-                metricsContainer.instanceCreatedTotal(finalPool.getName(), true);
-                metricsContainer.repositoryUpscaleTotal(finalPool.getName(), finalUpscaleRequest.getGithubActionJob().getRepositoryFullName());
-                githubRunnerIdUpscaledCache.put(finalUpscaleRequest.getWorkflowJobId(),
-                    new AtomicInteger(0));
-              } else {
-                metricsContainer.instanceCreatedTotal(finalPool.getName(), false);
-
-                this.retryLater(5000, finalUpscaleRequest.retryCreateFailed());
-              }
-            } catch (InstanceCreateTimeoutException e) {
-              metricsContainer.instanceCreatedTotal(finalPool.getName(),
-                  e.isShouldHaveBeenCreated());
-            } catch (Exception e) {
-              metricsContainer.instanceCreatedTotal(finalPool.getName(), false);
-              Utils.excessiveErrorLog(
-                  "Failed to create compute instance for action pool %s due to %s".formatted(
-                      finalPool.getName(), e.getMessage()), e, log);
-            }
-          });
+        List<UpscaleRequest> batch;
+        while (!(batch = lane.pollBatch(20, TimeUnit.SECONDS, this.upscaleBatchWindowInMilli,
+            this.maxUpscaleBatchSize)).isEmpty()) {
+          processUpscaleBatch(lane, batch);
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       } catch (Exception e) {
+        log.error("Lane for action pool {} experienced an error", lane.getName(), e);
+      }
+    }
+  }
+
+  private void processUpscaleBatch(ActionPoolLane lane, List<UpscaleRequest> batch)
+      throws InterruptedException {
+    Set<String> workflowJobIds = new HashSet<>();
+    List<UpscaleRequest> requests = new ArrayList<>();
+    for (UpscaleRequest upscaleRequest : batch) {
+      if (githubRunnerIdUpscaledCache.getIfPresent(upscaleRequest.getWorkflowJobId()) != null
+          || !workflowJobIds.add(upscaleRequest.getWorkflowJobId())) {
+        log.warn("Upscale event already happened for worflow job id: %s".formatted(
+            upscaleRequest.getWorkflowJobId()));
+        continue;
+      }
+      if (upscaleRequest.getRetryCreateFailed() > MAX_CREATE_FAILURE_RETRIES
+          || upscaleRequest.getRetryPoolFull() > MAX_CREATE_POOL_FULL_RETRIES) {
+        log.info(
+            "Action pool %s not being expanded due to too many retries. pool full: %s and failed create: %s"
+                .formatted(upscaleRequest.actionPool.getName(),
+                    upscaleRequest.getRetryPoolFull(), upscaleRequest.getRetryCreateFailed()));
+        continue;
+      }
+      requests.add(upscaleRequest);
+    }
+    if (requests.isEmpty()) {
+      return;
+    }
+    ActionPool pool = lane.getActionPool();
+    int maxInstanceCount = pool.getMaxInstances().orElse(Constants.DEFAULT_MAX_INSTANCES);
+    Reservation reservation = instanceInventory.reserve(pool.getName(), requests.size(),
+        maxInstanceCount);
+    int capacity = reservation.getCount();
+    List<UpscaleRequest> accepted = requests.subList(0, capacity);
+    // So it doesn't occupy the CPU full time
+    requests.subList(capacity, requests.size())
+        .forEach(r -> this.retryLater(5000, r.retryPoolFull()));
+    if (accepted.isEmpty()) {
+      return;
+    }
+    List<UpscaleRequest> toCreate = List.copyOf(accepted);
+    try {
+      lane.acquireCreatePermit();
+    } catch (InterruptedException e) {
+      reservation.release();
+      throw e;
+    }
+    try {
+      this.threadPerTasks.execute(() -> createInstances(pool, toCreate, reservation)
+          .whenComplete((ignored, error) -> lane.releaseCreatePermit()));
+    } catch (RuntimeException e) {
+      lane.releaseCreatePermit();
+      reservation.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates one instance per upscale request and completes the reservation that was made for them
+   * with the number of instances the provider created.
+   *
+   * @return completes once the provider reports the create operation done
+   */
+  private CompletableFuture<Void> createInstances(ActionPool pool,
+      List<UpscaleRequest> upscaleRequests, Reservation reservation) {
+    log.info("Attempting to make {} instance(s) for action pool: {}", upscaleRequests.size(),
+        pool.getName());
+    long start = System.nanoTime();
+    return track(callComputeAsync(() -> compute.startCreateCompute(pool, upscaleRequests.size()))
+        .handle((created, error) -> {
+          createdInstances(pool, upscaleRequests, reservation, created, unwrap(error),
+              Duration.ofNanos(System.nanoTime() - start));
+          return null;
+        }));
+  }
 
+  /**
+   * Completes the reservation made for a create operation of {@code requested} instances and
+   * records the operation's metrics. Shared by upscaling and warm pool top-ups.
+   *
+   * @return number of instances created, {@code null} if the operation failed or timed out
+   */
+  private Integer settleCreate(ActionPool pool, int requested, Reservation reservation,
+      Integer created, Throwable error, Duration took) {
+    if (error instanceof InstanceCreateTimeoutException e) {
+      // Keep them pending, the next reconciliations will tell
+      reservation.confirm(e.isShouldHaveBeenCreated() ? requested : 0);
+      metricsContainer.instanceOperationTime(pool.getName(), MetricsContainer.CREATE_OPERATION,
+          MetricsContainer.TIMEOUT_RESULT, took);
+      for (int i = 0; i < requested; i++) {
+        metricsContainer.instanceCreatedTotal(pool.getName(), e.isShouldHaveBeenCreated());
+      }
+      return null;
+    }
+    if (error != null) {
+      reservation.confirm(0);
+      metricsContainer.instanceOperationTime(pool.getName(), MetricsContainer.CREATE_OPERATION,
+          MetricsContainer.FAILURE_RESULT, took);
+      for (int i = 0; i < requested; i++) {
+        metricsContainer.instanceCreatedTotal(pool.getName(), false);
       }
+      Utils.excessiveErrorLog(
+          "Failed to create compute instance for action pool %s due to %s".formatted(
+              pool.getName(), error.getMessage()), error, log);
+      return null;
+    }
+    reservation.confirm(created);
+    metricsContainer.instanceOperationTime(pool.getName(), MetricsContainer.CREATE_OPERATION,
+        created > 0 ? MetricsContainer.SUCCESS_RESULT : MetricsContainer.FAILURE_RESULT, took);
+    for (int i = 0; i < requested; i++) {
+      metricsContainer.instanceCreatedTotal(pool.getName(), i < created);
+    }
+    return created;
+  }
+
+  private void createdInstances(ActionPool pool, List<UpscaleRequest> upscaleRequests,
+      Reservation reservation, Integer created, Throwable error, Duration took) {
+    if (settleCreate(pool, upscaleRequests.size(), reservation, created, error, took) == null) {
+      return;
+    }
+    try {
+      for (int i = 0; i < upscaleRequests.size(); i++) {
+        UpscaleRequest upscaleRequest = upscaleRequests.get(i);
+        if (i < created) {
+          metricsContainer.repositoryUpscaleTotal(pool.getName(),
+              upscaleRequest.getGithubActionJob().getRepositoryFullName());
+          githubRunnerIdUpscaledCache.put(upscaleRequest.getWorkflowJobId(),
+              new AtomicInteger(0));
+          stateStore.put(STATE_UPSCALED_JOBS, upscaleRequest.getWorkflowJobId(), "0");
+        } else {
+          this.retryLater(5000, upscaleRequest.retryCreateFailed());
+        }
+      }
+    } catch (Exception e) {
+      Utils.excessiveErrorLog(
+          "Failed to record created instances for action pool %s due to %s".formatted(
+              pool.getName(), e.getMessage()), e, log);
     }
   }
 
@@ -476,6 +842,10 @@ public class Autoscaler implements WebhookReceiver {
    * previously busy but is now deleted (i.e., the job finished and the runner was removed). 2. It
    * has exceeded its maximum idle time threshold.
    * <p>
+   * Idle instances of an action pool with {@link ActionPool#getMinIdleInstances()} are standby
+   * runners. Up to that many instances with a registered, idle runner are spared from the idle
+   * time check, youngest first.
+   * <p>
    * For each eligible instance, the delete counter is incremented, which eventually triggers the
    * instance to be terminated.
    *
@@ -486,10 +856,16 @@ public class Autoscaler implements WebhookReceiver {
 
     List<Callable<String>> callables = new ArrayList<>();
     this.actionPoolMap.forEach((key, actionPool) -> {
+      if (!cluster.owns(actionPool.getName())) {
+        return;
+      }
       callables.add(() -> {
         try {
-          ListInstanceResponse response = this.compute.listComputeInstances(actionPool);
-          response.instances().forEach(instance -> {
+          int idleTime = actionPool.getInstanceIdleScaleDownTimeInMinutes()
+              .orElse(Constants.DEFAULT_INSTANCE_IDLE_TIME_IN_MINUTES);
+          List<Instance> idleTimeExceeded = new ArrayList<>();
+          int standby = 0;
+          for (Instance instance : instanceInventory.instances(actionPool.getName())) {
             Runner runner = runners.get(instance.getInstanceName());
             Boolean runnerComplete = null;
             Boolean runnerBusy = null;
@@ -503,13 +879,11 @@ public class Autoscaler implements WebhookReceiver {
             }
             Duration instanceUpDuration = Duration.between(
                 Instant.ofEpochMilli(instance.getInstanceCreateTimeInMilli()), Instant.now());
-            int idleTime = actionPool.getInstanceIdleScaleDownTimeInMinutes()
-                .orElse(Constants.DEFAULT_INSTANCE_IDLE_TIME_IN_MINUTES);
             if (idleTime < instanceUpDuration.toMinutes()) {
               instanceIdleTimeExceeded = true;
             }
             if (runnerBusy != null && runnerBusy) {
-              return;
+              continue;
             }
             if (Boolean.TRUE.equals(runnerComplete)) {
               log.debug(
@@ -519,14 +893,26 @@ public class Autoscaler implements WebhookReceiver {
                   new DeleteInstanceRequest(actionPool, instance.getInstanceId(),
                       instance.getInstanceName(), instance.getInstanceCreateTimeInMilli(), instance.getExtraProperties()));
             } else if (instanceIdleTimeExceeded) {
-              log.debug(
-                  "incrementing delete counter for instance id: {}, name: {} due to idle time exceeded.",
-                  instance.getInstanceId(), instance.getInstanceName());
-              incrementInstanceIdDeleteCounter(
-                  new DeleteInstanceRequest(actionPool, instance.getInstanceId(),
-                      instance.getInstanceName(), instance.getInstanceCreateTimeInMilli(), instance.getExtraProperties()));
+              idleTimeExceeded.add(instance);
+            } else if (runner != null) {
+              standby++;
             }
-          });
+          }
+          int spare = Math.max(0, standbyTarget(actionPool) - standby);
+          idleTimeExceeded.sort(Comparator.comparing(Instance::getInstanceCreateTimeInMilli)
+              .reversed());
+          for (Instance instance : idleTimeExceeded) {
+            if (spare > 0 && runners.containsKey(instance.getInstanceName())) {
+              spare--;
+              continue;
+            }
+            log.debug(
+                "incrementing delete counter for instance id: {}, name: {} due to idle time exceeded.",
+                instance.getInstanceId(), instance.getInstanceName());
+            incrementInstanceIdDeleteCounter(
+                new DeleteInstanceRequest(actionPool, instance.getInstanceId(),
+                    instance.getInstanceName(), instance.getInstanceCreateTimeInMilli(), instance.getExtraProperties()));
+          }
         } catch (Exception e) {
           log.error("Failed to evaluate scale down for action pool: %s, due to %s".formatted(
               actionPool.getName(), e.getMessage()), e);
@@ -535,16 +921,95 @@ public class Autoscaler implements WebhookReceiver {
       });
 
     });
-    try {
-      List<Future<String>> list = this.threadPerTasks.invokeAll(callables);
+    // One virtual thread per action pool, all of them done before the scope is closed
+    try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<String>> list = scope.invokeAll(callables);
       for (var f : list) {
         f.get();
       }
-    } catch (InterruptedException | ExecutionException e) {
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
       log.error("Failed to invoke scaled due to: {}", e.getMessage());
     }
   }
 
+  /**
+   * @return number of standby runners the action pool should have: its
+   * {@link ActionPool#getMinIdleInstances()}, raised to the forecast job arrivals
+   * {@code forecastLeadTime} from now when predictive scaling is on
+   */
+  private int standbyTarget(ActionPool actionPool) {
+    int minIdle = actionPool.getMinIdleInstances().orElse(0);
+    if (!predictiveScaling) {
+      return minIdle;
+    }
+    Instant now = Instant.now();
+    arrivalForecaster.advance(actionPool.getName(), now);
+    int predicted = (int) Math.round(
+        arrivalForecaster.forecast(actionPool.getName(), now.plus(forecastLeadTime)));
+    return Math.max(minIdle, predicted);
+  }
+
+  /**
+   * Keeps {@link #standbyTarget(ActionPool)} standby runners available for each action pool.
+   * A standby runner is an instance whose runner is registered and idle, or an instance that is
+   * still booting. When jobs take standby runners, new instances are created to replace them, up
+   * to the action pool's maximum.
+   *
+   * @param runners map of runner name → runner object
+   */
+  private void maintainWarmPools(Map<String, Runner> runners) {
+    this.actionPoolMap.values().forEach(actionPool -> {
+      int minIdle = standbyTarget(actionPool);
+      if (minIdle <= 0 || !cluster.owns(actionPool.getName())) {
+        return;
+      }
+      int idleTime = actionPool.getInstanceIdleScaleDownTimeInMinutes()
+          .orElse(Constants.DEFAULT_INSTANCE_IDLE_TIME_IN_MINUTES);
+      long standby = instanceInventory.instances(actionPool.getName()).stream()
+          .filter(instance -> {
+            Runner runner = runners.get(instance.getInstanceName());
+            if (runner != null) {
+              return !runner.isBusy();
+            }
+            boolean booting = Duration.between(
+                Instant.ofEpochMilli(instance.getInstanceCreateTimeInMilli()), Instant.now())
+                .toMinutes() <= idleTime;
+            return booting && this.runnerLastBusy.getIfPresent(instance.getInstanceName()) == null;
+          }).count() + instanceInventory.pending(actionPool.getName());
+      int missing = (int) (minIdle - standby);
+      if (missing <= 0) {
+        return;
+      }
+      int maxInstanceCount = actionPool.getMaxInstances().orElse(Constants.DEFAULT_MAX_INSTANCES);
+      Reservation reservation = instanceInventory.reserve(actionPool.getName(), missing,
+          maxInstanceCount);
+      int count = reservation.getCount();
+      if (count <= 0) {
+        return;
+      }
+      log.info("Topping up warm pool of action pool {} with {} instance(s)", actionPool.getName(),
+          count);
+      ActionPoolLane lane = this.actionPoolLanes.get(actionPool.getName());
+      this.threadPerTasks.execute(() -> {
+        try {
+          lane.acquireCreatePermit();
+        } catch (InterruptedException e) {
+          reservation.release();
+          Thread.currentThread().interrupt();
+          return;
+        }
+        long start = System.nanoTime();
+        track(callComputeAsync(() -> compute.startCreateCompute(actionPool, count))
+            .whenComplete((created, error) -> {
+              lane.releaseCreatePermit();
+              settleCreate(actionPool, count, reservation, created, unwrap(error),
+                  Duration.ofNanos(System.nanoTime() - start));
+            }));
+      });
+    });
+  }
 
   /**
    * So not to block receiver the githubActionJob is offered to a dequeue for later processing in
@@ -553,7 +1018,11 @@ public class Autoscaler implements WebhookReceiver {
    * @param githubActionJob
    */
   public void receiveRetry(GithubActionJob githubActionJob) {
-    this.receivedRetryRequests.offer(githubActionJob);
+    if (this.receivedRetryRequests.offer(githubActionJob)) {
+      stateStore.put(STATE_RETRY_REQUESTS, githubActionJob.getId(), githubActionJob.getJsonStr());
+    } else {
+      log.warn("Retry queue is full. Dropping retry of job {}", githubActionJob.simpleDescription());
+    }
   }
 
   /**
@@ -571,13 +1040,27 @@ public class Autoscaler implements WebhookReceiver {
    * are logged and recorded in metrics, but not processed further.
    * <p>
    * If valid, the job is assigned to a matching action pool (or the default
-   * action pool if available) and added to the {@code receivedRequests} queue
-   * for scaling.
+   * action pool if available) and added to the {@link ActionPoolLane} of that
+   * action pool for scaling.
+   * <p>
+   * Completed jobs trigger an immediate scale-down of the runner's instance through
+   * {@link Autoscaler#scaleDownCompletedRunner(GithubActionJob)}.
    *
    * @param gj the GitHub Actions job under evaluation
    * @return {@code true} if the job was accepted and queued for processing; {@code false} otherwise
    */
   public boolean receive(GithubActionJob gj) {
+    return receive(gj, false);
+  }
+
+  /**
+   * @param retry {@code true} when the job is retried by {@link #processRetryMessage()}, so it is
+   *              not counted as a new arrival
+   */
+  private boolean receive(GithubActionJob gj, boolean retry) {
+    if (gj.getAction() == WorkflowJobAction.COMPLETED) {
+      return scaleDownCompletedRunner(gj);
+    }
 
     ValidWorkFlowJob validWorkflowJob = new ValidWorkFlowJob(gj, actionPoolMap,
         this.githubService.getRunnerGroupName());
@@ -617,8 +1100,13 @@ public class Autoscaler implements WebhookReceiver {
       }
       log.info("Received action pool request for {} and runner group: {}, run_url: {}",
           actionPool.getName(), this.githubService.getRunnerGroupName(), gj.getHtmlUrl());
-
-      return receivedRequests.add(new UpscaleRequest(actionPool, gj));
+      if (!cluster.owns(actionPool.getName())) {
+        return cluster.forward(actionPool.getName(), gj);
+      }
+      if (predictiveScaling && !retry) {
+        arrivalForecaster.record(actionPool.getName(), Instant.now());
+      }
+      return offerToLane(new UpscaleRequest(actionPool, gj));
     }
     return false;
   }
@@ -631,14 +1119,194 @@ public class Autoscaler implements WebhookReceiver {
     NEW_REQUEST, RETRY_POOL_FULL, RETRY_FAILED_CREATE;
   }
 
-  public record Pause<T>(Instant instant, T object) {
+  /**
+   * @param instant  when the object is due
+   * @param queuedAt when the object was deferred
+   */
+  public record Pause<T>(Instant instant, T object, Instant queuedAt) implements Delayed {
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(Duration.between(Instant.now(), instant));
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+      if (o instanceof Pause<?> other) {
+        return instant.compareTo(other.instant);
+      }
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
+
+  /**
+   * Removes a cache entry from the {@link StateStore} once Caffeine drops it. Replaced entries are
+   * kept, they were just written again.
+   */
+  private void forget(String namespace, String key, RemovalCause cause) {
+    if (key != null && cause != RemovalCause.REPLACED) {
+      stateStore.remove(namespace, key);
+    }
+  }
 
+  private static String stateKey(DeleteInstanceRequest deleteInstanceRequest) {
+    return deleteInstanceRequest.getActionPool().getName() + "/"
+        + deleteInstanceRequest.getInstanceId();
+  }
 
+  private static JSONObject delayedRetryToJson(Pause<UpscaleRequest> pause) {
+    UpscaleRequest upscaleRequest = pause.object();
+    return new JSONObject()
+        .put("due", pause.instant().toEpochMilli())
+        .put("queuedAt", pause.queuedAt().toEpochMilli())
+        .put("actionPool", upscaleRequest.actionPool.getName())
+        .put("retryPoolFull", upscaleRequest.getRetryPoolFull())
+        .put("retryCreateFailed", upscaleRequest.getRetryCreateFailed())
+        .put("upScaleReason", Optional.ofNullable(upscaleRequest.getUpScaleReason())
+            .orElse(UpScaleReason.NEW_REQUEST).name())
+        .put("job", upscaleRequest.getGithubActionJob().getJsonStr());
+  }
+
+  /**
+   * Reloads the caches and retry queues from the {@link StateStore}. Entries older than their
+   * cache's expiry are dropped.
+   */
+  private void restoreState() {
+    long start = System.currentTimeMillis();
+    restore(STATE_UPSCALED_JOBS, UPSCALED_JOB_TTL, (key, entry) ->
+        githubRunnerIdUpscaledCache.put(key, new AtomicInteger(Integer.parseInt(entry.value()))));
+    restore(STATE_RUNNER_LAST_BUSY, RUNNER_LAST_BUSY_TTL, (key, entry) ->
+        runnerLastBusy.put(key, new AtomicBoolean(Boolean.parseBoolean(entry.value()))));
+    restore(STATE_INSTANCE_DELETE_COUNTERS, DELETE_COUNTER_TTL, (key, entry) ->
+        restoredInstanceDeleteCounters.put(key, Integer.parseInt(entry.value())));
+    restore(STATE_RUNNER_DELETE_COUNTERS, DELETE_COUNTER_TTL, (key, entry) -> {
+      JSONObject json = new JSONObject(entry.value());
+      runnerIdDeleteCounter.put(new RunnerNameId(json.getString("name"), key),
+          new AtomicInteger(json.getInt("count")));
+    });
+    restore(STATE_DELAYED_RETRIES, null, (key, entry) -> {
+      JSONObject json = new JSONObject(entry.value());
+      ActionPool actionPool = actionPoolMap.get(json.getString("actionPool"));
+      if (actionPool == null) {
+        stateStore.remove(STATE_DELAYED_RETRIES, key);
+        return;
+      }
+      UpscaleRequest upscaleRequest = new UpscaleRequest(actionPool,
+          GithubActionJob.fromJson(json.getString("job")), json.getInt("retryPoolFull"),
+          json.getInt("retryCreateFailed"), UpScaleReason.valueOf(json.getString("upScaleReason")));
+      deferRetry(new Pause<>(Instant.ofEpochMilli(json.getLong("due")), upscaleRequest,
+          Instant.ofEpochMilli(json.getLong("queuedAt"))));
+    });
+    restore(STATE_RETRY_REQUESTS, null, (key, entry) ->
+        receivedRetryRequests.offer(GithubActionJob.fromJson(entry.value())));
+    log.info("Restored autoscaler state in {}ms", System.currentTimeMillis() - start);
+  }
+
+  private void restore(String namespace, Duration ttl, BiConsumer<String, StateEntry> restorer) {
+    long now = System.currentTimeMillis();
+    stateStore.load(namespace).forEach((key, entry) -> {
+      if (ttl != null && entry.writtenAtMillis() + ttl.toMillis() < now) {
+        stateStore.remove(namespace, key);
+        return;
+      }
+      try {
+        restorer.accept(key, entry);
+      } catch (Exception e) {
+        log.warn("Dropping unreadable {} state for {}: {}", namespace, key, e.getMessage());
+        stateStore.remove(namespace, key);
+      }
+    });
+  }
+
+  /**
+   * Restored instance delete counters that the first scale-down after a reconciliation did not
+   * claim belong to instances that are gone or no longer eligible for deletion.
+   */
+  private void discardUnclaimedDeleteCounters() {
+    if (restoredInstanceDeleteCounters.isEmpty() || !inventoryReconciled.get()) {
+      return;
+    }
+    restoredInstanceDeleteCounters.keySet().forEach(key -> {
+      restoredInstanceDeleteCounters.remove(key);
+      stateStore.remove(STATE_INSTANCE_DELETE_COUNTERS, key);
+    });
+  }
+
+  /**
+   * Starts a create or delete operation against the compute provider once a
+   * {@link Autoscaler#computeCallPermits} permit is available. The permit is held until the
+   * provider accepted the request, waiting for the outcome doesn't count against it. Failing to
+   * start the operation, including being interrupted while waiting for a permit, completes the
+   * returned future exceptionally.
+   *
+   * @return completes with the operation's confirmed outcome
+   */
+  private <T> CompletableFuture<T> callComputeAsync(Supplier<ComputeOperation<T>> call) {
+    try {
+      computeCallPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    }
+    ComputeOperation<T> operation;
+    try {
+      operation = call.get();
+    } catch (RuntimeException e) {
+      operation = ComputeOperation.of(CompletableFuture.failedFuture(e));
+    }
+    CompletableFuture.anyOf(operation.accepted(), operation.result())
+        .whenComplete((result, error) -> computeCallPermits.release());
+    return operation.result();
+  }
+
+  /**
+   * Registers the callback handling a compute operation's result so {@link #shutdown()} waits for
+   * it.
+   */
+  private <T> CompletableFuture<T> track(CompletableFuture<T> callback) {
+    inFlightComputeCalls.add(callback);
+    callback.whenComplete((result, error) -> inFlightComputeCalls.remove(callback));
+    return callback;
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause()
+        : error;
+  }
+
+  /**
+   * Stops the background loops and gives in-flight creates and deletes
+   * {@link #SHUTDOWN_GRACE_PERIOD} to complete.
+   */
+  @PreDestroy
+  public void shutdown() {
+    this.scheduledExecutorService.shutdownNow();
+    this.laneWorkers.shutdownNow();
+    this.processMessageThread.shutdownNow();
+    this.threadPerTasks.shutdown();
+    long deadline = System.nanoTime() + SHUTDOWN_GRACE_PERIOD.toNanos();
+    try {
+      if (!this.threadPerTasks.awaitTermination(SHUTDOWN_GRACE_PERIOD.toMillis(),
+          TimeUnit.MILLISECONDS)) {
+        log.warn("Compute calls still running after {}, interrupting them", SHUTDOWN_GRACE_PERIOD);
+        this.threadPerTasks.shutdownNow();
+      }
+      CompletableFuture.allOf(inFlightComputeCalls.toArray(CompletableFuture[]::new))
+          .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      log.warn("{} compute operation(s) still running after {}", inFlightComputeCalls.size(),
+          SHUTDOWN_GRACE_PERIOD);
+    } catch (ExecutionException e) {
+      // Failures are handled by each operation's callback
+    } catch (InterruptedException e) {
+      this.threadPerTasks.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
   }
 
   @PostConstruct
   public void redeliver() {
-    if (!this.githubService.isReplayFailedDeliverOnStartup()
+    if (!cluster.isLeader() || !this.githubService.isReplayFailedDeliverOnStartup()
         || this.githubService.getWebhookId() == null) {
       return;
     }
@@ -673,9 +1341,15 @@ public class Autoscaler implements WebhookReceiver {
     private final ActionPool actionPool;
 
     public UpscaleRequest(ActionPool actionPool, GithubActionJob gj) {
+      this(actionPool, gj, 0, 0, null);
+    }
+
+    private UpscaleRequest(ActionPool actionPool, GithubActionJob gj, int retryPoolFull,
+        int retryCreateFailed, UpScaleReason upScaleReason) {
       this.githubActionJob = gj;
-      this.retryPoolFull = 0;
-      this.retryCreateFailed = 0;
+      this.retryPoolFull = retryPoolFull;
+      this.retryCreateFailed = retryCreateFailed;
+      this.upScaleReason = upScaleReason;
       this.actionPool = actionPool;
     }
 
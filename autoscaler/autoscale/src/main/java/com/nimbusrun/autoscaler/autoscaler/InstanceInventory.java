@@ -0,0 +1,225 @@
+package com.nimbusrun.autoscaler.autoscaler;
+
+import com.nimbusrun.compute.ListInstanceResponse;
+import com.nimbusrun.compute.ListInstanceResponse.Instance;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local view of the compute instances of every action pool.
+ * <p>
+ * Creates and deletes are written through as soon as the provider call returns, and a periodic
+ * reconciliation against the provider list API replaces the local state. Capacity checks read the
+ * local state instead of calling the list API for every upscale request.
+ * <p>
+ * Capacity is handed out through a per pool reservation ledger. {@link #reserve(String, int, int)}
+ * atomically grants slots against running instances, pending creates and other reservations. A
+ * reservation stays in flight for as long as the provider call takes, and is then confirmed with
+ * the number of instances actually created, the rest of its slots being given back. Confirmed
+ * instances stay pending creates until a reconciliation sees them, because
+ * {@code createCompute} only reports how many instances were created. Pending creates that never
+ * show up expire after {@link #PENDING_CREATE_TTL}. Deleted instances are hidden from
+ * reconciliations for {@link #DELETED_TTL} because the list APIs may still report them for a
+ * while.
+ */
+public class InstanceInventory {
+
+  public static final Duration PENDING_CREATE_TTL = Duration.ofMinutes(2);
+  public static final Duration DELETED_TTL = Duration.ofMinutes(5);
+
+  private final Map<String, PoolInventory> pools = new ConcurrentHashMap<>();
+
+  /**
+   * @return instances known to exist plus pending creates and in flight reservations for the
+   * action pool
+   */
+  public int count(String actionPoolName) {
+    return pool(actionPoolName).count();
+  }
+
+  /**
+   * @return instances of the action pool as of the last reconciliation, minus deleted instances
+   */
+  public List<Instance> instances(String actionPoolName) {
+    return pool(actionPoolName).instances();
+  }
+
+  /**
+   * @return instances being created or created for the action pool that no reconciliation has seen
+   * yet
+   */
+  public int pending(String actionPoolName) {
+    return pool(actionPoolName).pending();
+  }
+
+  public Optional<Instance> findByName(String actionPoolName, String instanceName) {
+    return pool(actionPoolName).findByName(instanceName);
+  }
+
+  /**
+   * Reserves capacity for up to {@code requested} instances of the action pool. Call before the
+   * provider call so a reconciliation that lists the new instances before the call returns still
+   * matches them.
+   *
+   * @param maxInstances max instances of the action pool, 0 for unlimited
+   * @return the reservation, holding between 0 and {@code requested} slots. It must be completed
+   * with {@link Reservation#confirm(int)} or {@link Reservation#release()}
+   */
+  public Reservation reserve(String actionPoolName, int requested, int maxInstances) {
+    return pool(actionPoolName).reserve(requested, maxInstances);
+  }
+
+  public void deleted(String actionPoolName, String instanceId) {
+    pool(actionPoolName).deleted(instanceId);
+  }
+
+  /**
+   * Replaces the local state of the action pool with the provider's view.
+   */
+  public void reconcile(String actionPoolName, ListInstanceResponse listInstanceResponse) {
+    pool(actionPoolName).reconcile(listInstanceResponse.instances());
+  }
+
+  private PoolInventory pool(String actionPoolName) {
+    return pools.computeIfAbsent(actionPoolName, k -> new PoolInventory());
+  }
+
+  /**
+   * Capacity reserved for instances of an action pool while they are being created.
+   */
+  public static class Reservation {
+
+    private final PoolInventory pool;
+    private final int count;
+    private int seen;
+    private boolean completed;
+
+    private Reservation(PoolInventory pool, int count) {
+      this.pool = pool;
+      this.count = count;
+    }
+
+    /**
+     * @return number of slots granted
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * Completes the reservation. {@code created} instances become pending creates until a
+     * reconciliation sees them, the remaining slots are given back. Only the first completion
+     * counts.
+     */
+    public void confirm(int created) {
+      pool.complete(this, Math.max(0, Math.min(created, count)));
+    }
+
+    /**
+     * Gives back all slots, nothing was created.
+     */
+    public void release() {
+      confirm(0);
+    }
+
+    private int unseen() {
+      return count - seen;
+    }
+  }
+
+  private static class PoolInventory {
+
+    private Map<String, Instance> instances = new HashMap<>();
+    private final Deque<Instant> pendingCreates = new ArrayDeque<>();
+    private final List<Reservation> inFlight = new ArrayList<>();
+    private final Map<String, Instant> deleted = new HashMap<>();
+
+    synchronized int count() {
+      return instances.size() + pending();
+    }
+
+    synchronized int pending() {
+      int reserved = 0;
+      for (Reservation reservation : inFlight) {
+        reserved += reservation.unseen();
+      }
+      return pendingCreates.size() + reserved;
+    }
+
+    synchronized List<Instance> instances() {
+      return List.copyOf(instances.values());
+    }
+
+    synchronized Optional<Instance> findByName(String instanceName) {
+      return instances.values().stream()
+          .filter(i -> instanceName.equals(i.getInstanceName())).findAny();
+    }
+
+    synchronized Reservation reserve(int requested, int maxInstances) {
+      int granted = Math.max(0, requested);
+      if (maxInstances != 0) {
+        granted = Math.max(0, Math.min(granted, maxInstances - count()));
+      }
+      Reservation reservation = new Reservation(this, granted);
+      if (granted > 0) {
+        inFlight.add(reservation);
+      }
+      return reservation;
+    }
+
+    synchronized void complete(Reservation reservation, int created) {
+      if (reservation.completed) {
+        return;
+      }
+      reservation.completed = true;
+      inFlight.remove(reservation);
+      // Instances a reconciliation already matched against the reservation are not pending anymore
+      Instant now = Instant.now();
+      for (int i = reservation.seen; i < created; i++) {
+        pendingCreates.addLast(now);
+      }
+    }
+
+    synchronized void deleted(String instanceId) {
+      instances.remove(instanceId);
+      deleted.put(instanceId, Instant.now());
+    }
+
+    synchronized void reconcile(Collection<Instance> listed) {
+      Instant now = Instant.now();
+      deleted.values().removeIf(at -> at.plus(DELETED_TTL).isBefore(now));
+
+      Map<String, Instance> current = new HashMap<>();
+      listed.stream().filter(i -> !deleted.containsKey(i.getInstanceId()))
+          .forEach(i -> current.put(i.getInstanceId(), i));
+      Set<String> newIds = new HashSet<>(current.keySet());
+      newIds.removeAll(instances.keySet());
+      // Instances that just appeared are the ones we created, oldest first
+      int appeared = newIds.size();
+      for (; appeared > 0 && !pendingCreates.isEmpty(); appeared--) {
+        pendingCreates.removeFirst();
+      }
+      for (Reservation reservation : inFlight) {
+        int matched = Math.min(appeared, reservation.unseen());
+        reservation.seen += matched;
+        appeared -= matched;
+      }
+      while (!pendingCreates.isEmpty()
+          && pendingCreates.peekFirst().plus(PENDING_CREATE_TTL).isBefore(now)) {
+        pendingCreates.removeFirst();
+      }
+      instances = current;
+    }
+  }
+}
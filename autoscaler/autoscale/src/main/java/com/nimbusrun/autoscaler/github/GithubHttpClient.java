@@ -0,0 +1,337 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * The one HTTP client every GitHub API call of a {@link GithubService} goes through.
+ * <p>
+ * Connections are pooled and kept alive between calls, so only the first call to api.github.com
+ * pays for the TCP and TLS handshake. HTTP/2 is negotiated through ALPN, which lets concurrent
+ * calls share a single connection. Calls are asynchronous; the blocking {@link #execute} waits for
+ * {@link #executeAsync}. The latency of every call is recorded per endpoint.
+ * <p>
+ * Calls are queued and sent by {@link GithubRequestPriority}, at most {@link #MAX_IN_FLIGHT} at a
+ * time. Each priority only spends the {@link RateLimitBudget} down to its reserve; beyond that its
+ * calls wait for the rate limit to reset. While a call waits the dispatcher is parked, and only a
+ * call of a higher priority wakes it before the reset. GET responses carrying an ETag are kept, and the next GET
+ * of the same URL is sent with {@code If-None-Match}. GitHub answers it with a
+ * {@code 304 Not Modified} that doesn't count against the rate limit, and the kept response is
+ * returned instead.
+ */
+public class GithubHttpClient implements AutoCloseable {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  /**
+   * Max connections to api.github.com. With HTTP/2 one connection carries many calls, this only
+   * matters if the server falls back to HTTP/1.1.
+   */
+  private static final int MAX_CONNECTIONS = 20;
+  /**
+   * Max calls waiting for a response. GitHub's secondary rate limit kicks in at 100 concurrent
+   * calls.
+   */
+  private static final int MAX_IN_FLIGHT = 20;
+  /**
+   * How long a call held back by the rate limit waits before the budget is checked again. Calls of
+   * a higher priority arriving in the meantime are checked right away.
+   */
+  private static final Duration MAX_BUDGET_WAIT = Duration.ofSeconds(10);
+  private static final int MAX_CACHED_RESPONSES = 1_000;
+
+  private final CloseableHttpAsyncClient client;
+  private final MetricsContainer metricsContainer;
+  private final RateLimitBudget budget;
+  private final Cache<String, CachedResponse> responses = Caffeine.newBuilder()
+      .maximumSize(MAX_CACHED_RESPONSES)
+      .build();
+  private final PriorityBlockingQueue<Call> calls = new PriorityBlockingQueue<>(11,
+      Comparator.comparing(Call::priority).thenComparingLong(Call::sequence));
+  private final AtomicLong sequence = new AtomicLong();
+  private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+  /**
+   * Guards {@link #heldBack}. A lock rather than a monitor so the virtual dispatcher thread doesn't
+   * pin its carrier while parked.
+   */
+  private final ReentrantLock dispatchLock = new ReentrantLock();
+  private final Condition higherPriorityArrived = dispatchLock.newCondition();
+  /**
+   * Priority of the call the dispatcher is parked on, {@code null} while it isn't parked.
+   */
+  private GithubRequestPriority heldBack;
+  private final Thread dispatcher;
+  private volatile boolean closed;
+
+  /**
+   * @param metricsContainer where to record the latencies, may be {@code null}
+   */
+  public GithubHttpClient(String token, MetricsContainer metricsContainer) {
+    this(token, metricsContainer, new RateLimitBudget(Clock.systemUTC()));
+  }
+
+  GithubHttpClient(String token, MetricsContainer metricsContainer, RateLimitBudget budget) {
+    this.metricsContainer = metricsContainer;
+    this.budget = budget;
+    try {
+      var tlsStrategy = ClientTlsStrategyBuilder.create()
+          .setSslContext(SSLContextBuilder.create()
+              .loadTrustMaterial(TrustAllStrategy.INSTANCE)
+              .build())
+          .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+          .build();
+      var connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+          .setTlsStrategy(tlsStrategy)
+          .setMaxConnTotal(MAX_CONNECTIONS)
+          .setMaxConnPerRoute(MAX_CONNECTIONS)
+          .setDefaultConnectionConfig(ConnectionConfig.custom()
+              .setConnectTimeout(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+              .build())
+          .setDefaultTlsConfig(TlsConfig.custom()
+              .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+              .build())
+          .build();
+      this.client = HttpAsyncClients.custom()
+          .setConnectionManager(connectionManager)
+          .setDefaultRequestConfig(RequestConfig.custom()
+              .setConnectionRequestTimeout(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+              .setResponseTimeout(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+              .build())
+          .setDefaultHeaders(List.of(
+              new BasicHeader("Authorization", "Bearer " + token),
+              new BasicHeader("Accept", "application/vnd.github+json"),
+              new BasicHeader("X-GitHub-Api-Version", "2022-11-28")
+          ))
+          .evictIdleConnections(TimeValue.ofMinutes(1))
+          .build();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to create GitHub http client", e);
+    }
+    this.client.start();
+    if (metricsContainer != null) {
+      metricsContainer.githubRateLimit(budget::remaining, budget::limit,
+          budget::secondsUntilReset, calls::size);
+    }
+    this.dispatcher = Thread.ofVirtual().name("github-dispatcher").start(this::dispatch);
+  }
+
+  /**
+   * @param endpoint names the API called in the latency metric, e.g. {@code list_runners}
+   * @return completes with the response, whatever its status, or exceptionally if no response
+   * was received
+   */
+  public CompletableFuture<SimpleHttpResponse> executeAsync(String endpoint,
+      GithubRequestPriority priority, SimpleHttpRequest request) {
+    Call call = new Call(endpoint, priority, request, sequence.getAndIncrement(),
+        new CompletableFuture<>());
+    if (closed) {
+      call.future().completeExceptionally(new IllegalStateException("GitHub client is closed"));
+    } else {
+      calls.add(call);
+      wakeDispatcherFor(priority);
+    }
+    return call.future();
+  }
+
+  private void wakeDispatcherFor(GithubRequestPriority priority) {
+    dispatchLock.lock();
+    try {
+      if (heldBack != null && priority.compareTo(heldBack) < 0) {
+        heldBack = null;
+        higherPriorityArrived.signal();
+      }
+    } finally {
+      dispatchLock.unlock();
+    }
+  }
+
+  private void dispatch() {
+    try {
+      while (!closed) {
+        Call next = calls.take();
+        Duration wait = budget.acquire(next.priority());
+        if (!wait.isZero()) {
+          calls.add(next);
+          awaitBudget(next.priority(), wait);
+          continue;
+        }
+        inFlight.acquire();
+        send(next);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Parks the dispatcher for {@code wait}, at most {@link #MAX_BUDGET_WAIT}, or until a call of a
+   * higher priority than {@code held} is queued.
+   */
+  private void awaitBudget(GithubRequestPriority held, Duration wait)
+      throws InterruptedException {
+    dispatchLock.lock();
+    try {
+      heldBack = held;
+      // a call queued before heldBack was set didn't signal
+      Call head = calls.peek();
+      if (head != null && head.priority().compareTo(held) < 0) {
+        return;
+      }
+      long nanos = Math.min(wait.toNanos(), MAX_BUDGET_WAIT.toNanos());
+      while (nanos > 0 && heldBack != null && !closed) {
+        nanos = higherPriorityArrived.awaitNanos(nanos);
+      }
+    } finally {
+      heldBack = null;
+      dispatchLock.unlock();
+    }
+  }
+
+  private void send(Call call) {
+    SimpleHttpRequest request = call.request();
+    long start = System.nanoTime();
+    String cacheKey = cacheKey(request);
+    CachedResponse cached = cacheKey == null ? null : responses.getIfPresent(cacheKey);
+    if (cached != null) {
+      request.setHeader(HttpHeaders.IF_NONE_MATCH, cached.etag());
+    }
+    try {
+      client.execute(SimpleRequestProducer.create(request), SimpleResponseConsumer.create(),
+          new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+              inFlight.release();
+              budget.update(response);
+              record(call, String.valueOf(response.getCode()), start);
+              if (cached != null && response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+                call.future().complete(cached.response());
+                return;
+              }
+              Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+              if (cacheKey != null && etag != null && response.getCode() == HttpStatus.SC_OK) {
+                responses.put(cacheKey, new CachedResponse(etag.getValue(), response));
+              }
+              call.future().complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+              inFlight.release();
+              record(call, "error", start);
+              call.future().completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+              inFlight.release();
+              record(call, "error", start);
+              call.future().completeExceptionally(new CancellationException());
+            }
+          });
+    } catch (RuntimeException e) {
+      inFlight.release();
+      call.future().completeExceptionally(e);
+    }
+  }
+
+  /**
+   * @return the URL of a GET, {@code null} for calls whose response isn't kept
+   */
+  private static String cacheKey(SimpleHttpRequest request) {
+    if (!Method.GET.isSame(request.getMethod())) {
+      return null;
+    }
+    try {
+      return request.getUri().toString();
+    } catch (URISyntaxException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Blocking {@link #executeAsync}.
+   */
+  public SimpleHttpResponse execute(String endpoint, GithubRequestPriority priority,
+      SimpleHttpRequest request) throws IOException {
+    try {
+      return executeAsync(endpoint, priority, request).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted calling " + request.getRequestUri(), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      throw new IOException("Failed calling " + request.getRequestUri(), e.getCause());
+    }
+  }
+
+  private void record(Call call, String status, long start) {
+    if (metricsContainer != null) {
+      metricsContainer.githubRequestTime(call.endpoint(), call.request().getMethod(), status,
+          Duration.ofNanos(System.nanoTime() - start));
+    }
+  }
+
+  /**
+   * Called by Spring on shutdown through {@link GithubService#close()}.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    dispatcher.interrupt();
+    Call call;
+    while ((call = calls.poll()) != null) {
+      call.future().completeExceptionally(new IllegalStateException("GitHub client is closed"));
+    }
+    client.close(CloseMode.GRACEFUL);
+  }
+
+  private record Call(String endpoint, GithubRequestPriority priority, SimpleHttpRequest request,
+                      long sequence, CompletableFuture<SimpleHttpResponse> future) {
+
+  }
+
+  private record CachedResponse(String etag, SimpleHttpResponse response) {
+
+  }
+}
@@ -0,0 +1,173 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Walks the pages of a GitHub list endpoint and hands the items to a visitor one by one.
+ * <p>
+ * Pages are requested with {@value #PER_PAGE} items, the most GitHub allows. Items are decoded
+ * with Jackson's streaming parser straight from the page's bytes, so no page is ever turned into
+ * a String or an object holding all of its items. Once the first page's {@code Link} header names
+ * the last page, the remaining pages are requested {@value #PARALLEL_PAGES} at a time; cursor
+ * paginated endpoints, which have no last page, are followed one {@code next} link at a time.
+ * Items are visited in order and the walk stops as soon as the visitor returns {@code false}, so
+ * no further pages are requested.
+ */
+class GithubPaginator {
+
+  static final int PER_PAGE = 100;
+  static final int PARALLEL_PAGES = 4;
+  private static final Pattern LINK = Pattern.compile("<([^>]+)>;\\s*rel=\"([^\"]+)\"");
+
+  private final GithubHttpClient http;
+  private final ObjectMapper objectMapper;
+
+  GithubPaginator(GithubHttpClient http, ObjectMapper objectMapper) {
+    this.http = http;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @param arrayField field of the page object holding the items, {@code null} if the page itself
+   *                   is the array
+   * @param visitor    called with every item in order, returns {@code false} to stop
+   * @throws IOException if a page couldn't be fetched or was answered with an error
+   */
+  <T> void forEach(String endpoint, GithubRequestPriority priority, String url, String arrayField,
+      Class<T> type, Predicate<T> visitor) throws IOException {
+    SimpleHttpResponse page = http.execute(endpoint, priority,
+        SimpleRequestBuilder.get(withQueryParameter(url, "per_page", PER_PAGE)).build());
+    if (!visit(url, page, arrayField, type, visitor)) {
+      return;
+    }
+    String last = link(page, "last");
+    Integer lastPage = last == null ? null : pageNumber(last);
+    if (lastPage != null) {
+      for (int window = 2; window <= lastPage; window += PARALLEL_PAGES) {
+        List<CompletableFuture<SimpleHttpResponse>> pages = new ArrayList<>();
+        for (int number = window; number < window + PARALLEL_PAGES && number <= lastPage;
+            number++) {
+          pages.add(http.executeAsync(endpoint, priority,
+              SimpleRequestBuilder.get(withQueryParameter(last, "page", number)).build()));
+        }
+        for (CompletableFuture<SimpleHttpResponse> next : pages) {
+          if (!visit(last, join(next), arrayField, type, visitor)) {
+            return;
+          }
+        }
+      }
+      return;
+    }
+    String next = link(page, "next");
+    while (next != null) {
+      page = http.execute(endpoint, priority, SimpleRequestBuilder.get(next).build());
+      if (!visit(next, page, arrayField, type, visitor)) {
+        return;
+      }
+      next = link(page, "next");
+    }
+  }
+
+  /**
+   * @return {@code false} if the visitor stopped the walk
+   */
+  private <T> boolean visit(String url, SimpleHttpResponse page, String arrayField, Class<T> type,
+      Predicate<T> visitor) throws IOException {
+    if (page.getCode() >= 300) {
+      throw new IOException("Received response code %s from request %s".formatted(
+          page.getCode(), url));
+    }
+    byte[] body = page.getBodyBytes();
+    if (body == null) {
+      return true;
+    }
+    try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+      if (!moveToArray(parser, arrayField)) {
+        return true;
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        if (!visitor.test(objectMapper.readValue(parser, type))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Moves the parser onto the start of the item array.
+   *
+   * @return {@code false} if the page has no such array
+   */
+  private static boolean moveToArray(JsonParser parser, String arrayField) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (arrayField == null) {
+      return token == JsonToken.START_ARRAY;
+    }
+    if (token != JsonToken.START_OBJECT) {
+      return false;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (arrayField.equals(name)) {
+        return value == JsonToken.START_ARRAY;
+      }
+      parser.skipChildren();
+    }
+    return false;
+  }
+
+  private static SimpleHttpResponse join(CompletableFuture<SimpleHttpResponse> page)
+      throws IOException {
+    try {
+      return page.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  static String link(SimpleHttpResponse response, String rel) {
+    Header header = response.getFirstHeader("link");
+    if (header == null) {
+      return null;
+    }
+    return Arrays.stream(header.getValue().split(","))
+        .map(LINK::matcher)
+        .filter(Matcher::find)
+        .filter(link -> rel.equals(link.group(2)))
+        .map(link -> link.group(1))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static Integer pageNumber(String url) {
+    Matcher page = Pattern.compile("[?&]page=(\\d+)").matcher(url);
+    return page.find() ? Integer.valueOf(page.group(1)) : null;
+  }
+
+  static String withQueryParameter(String url, String name, int value) {
+    Matcher existing = Pattern.compile("([?&])" + name + "=[^&]*").matcher(url);
+    if (existing.find()) {
+      return existing.replaceFirst("$1" + name + "=" + value);
+    }
+    return url + (url.contains("?") ? "&" : "?") + name + "=" + value;
+  }
+}
@@ -0,0 +1,38 @@
+package com.nimbusrun.autoscaler.github;
+
+/**
+ * Order GitHub API calls are sent in, and how much of the rate limit they may use.
+ * <p>
+ * Lower priorities leave a larger share of the hourly budget untouched, so when the budget runs low
+ * the calls needed to upscale still go through while cleanup waits for the limit to reset.
+ */
+public enum GithubRequestPriority {
+  /**
+   * Needed to create runners, e.g. registration tokens.
+   */
+  CRITICAL(0),
+  /**
+   * Keeps the autoscaler's view of GitHub current, e.g. listing runners.
+   */
+  NORMAL(0.05),
+  /**
+   * Can wait, e.g. deleting orphaned runners and redelivering webhooks.
+   */
+  BACKGROUND(0.2);
+
+  /**
+   * Share of the rate limit left untouched by calls of this priority.
+   */
+  private final double reserve;
+
+  GithubRequestPriority(double reserve) {
+    this.reserve = reserve;
+  }
+
+  /**
+   * @return number of calls of the hourly {@code limit} this priority leaves to higher ones
+   */
+  public long reserve(long limit) {
+    return (long) Math.ceil(limit * reserve);
+  }
+}
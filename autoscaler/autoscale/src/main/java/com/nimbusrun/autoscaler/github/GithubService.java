@@ -1,57 +1,45 @@
 package com.nimbusrun.autoscaler.github;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
-import com.nimbusrun.Utils;
+import com.nimbusrun.autoscaler.github.RegistrationTokenCache.RegistrationToken;
 import com.nimbusrun.autoscaler.github.orm.listDelivery.DeliveryRecord;
-import com.nimbusrun.autoscaler.github.orm.runner.ListSelfHostedRunners;
 import com.nimbusrun.autoscaler.github.orm.runner.Runner;
 import com.nimbusrun.autoscaler.github.orm.runnergroup.ListRunnerGroup;
 import com.nimbusrun.autoscaler.github.orm.runnergroup.RunnerGroup;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
 import com.nimbusrun.compute.Constants;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-import java.util.function.BiPredicate;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.hc.client5.http.classic.methods.HttpDelete;
-import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
-import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
-import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
-import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
-import org.apache.hc.client5.http.ssl.TrustAllStrategy;
-import org.apache.hc.core5.http.Header;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
 import org.apache.hc.core5.http.ProtocolException;
-import org.apache.hc.core5.http.message.BasicHeader;
-import org.apache.hc.core5.ssl.SSLContextBuilder;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-public class GithubService implements GithubServiceApi {
+public class GithubService implements GithubServiceApi, AutoCloseable {
 
-  private final String token;
+  private final GithubHttpClient http;
+  private final GithubPaginator paginator;
+  private final JobStatusResolver jobStatuses;
   @Getter
   private final String organization;
   @Getter
@@ -64,7 +52,13 @@ public class GithubService implements GithubServiceApi {
   @Getter
   private final boolean replayFailedDeliverOnStartup;
 
+  private final RegistrationTokenCache registrationTokens;
+
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  /**
+   * Lifetime GitHub documents for registration tokens, assumed if a response has no expiry.
+   */
+  private static final Duration REGISTRATION_TOKEN_LIFETIME = Duration.ofHours(1);
 
   static {
     OBJECT_MAPPER.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
@@ -77,21 +71,39 @@ public class GithubService implements GithubServiceApi {
       @Value("${github.organizationName}") String organization,
       @Value("${github.groupName}") String runnerGroupName,
       @Value("${github.webhookId:#{null}}") String webhookId,
-      @Value("${github.replayFailedDeliverOnStartup:#{false}}") boolean replayFailedDeliverOnStartup) {
-    this.token = token;
+      @Value("${github.replayFailedDeliverOnStartup:#{false}}") boolean replayFailedDeliverOnStartup,
+      MetricsContainer metricsContainer) {
+    this.http = new GithubHttpClient(token, metricsContainer);
+    this.paginator = new GithubPaginator(http, OBJECT_MAPPER);
+    this.jobStatuses = new JobStatusResolver(paginator);
     this.organization = organization;
     this.runnerGroupName = runnerGroupName;
     this.runnerGroupId = resolveRunnerGroupId(runnerGroupName);
     this.webhookId = webhookId;
     this.replayFailedDeliverOnStartup = replayFailedDeliverOnStartup;
+    this.registrationTokens = new RegistrationTokenCache(this::fetchRegistrationToken,
+        metricsContainer, Clock.systemUTC());
   }
 
+  /**
+   * Stops listing runner groups at the first one named {@code groupName}.
+   */
   private Integer resolveRunnerGroupId(String groupName) {
-    return fetchRunnerGroups().stream()
-        .flatMap(wrapper -> wrapper.getRunnerGroups().stream())
-        .filter(group -> group.getName().equals(groupName))
+    AtomicReference<RunnerGroup> found = new AtomicReference<>();
+    try {
+      paginator.forEach("runner_groups", GithubRequestPriority.CRITICAL, runnerGroupsUrl(),
+          "runner_groups", RunnerGroup.class, group -> {
+            if (groupName.equals(group.getName())) {
+              found.set(group);
+              return false;
+            }
+            return true;
+          });
+    } catch (Exception e) {
+      log.error("Unable to fetch runner groups", e);
+    }
+    return Optional.ofNullable(found.get())
         .map(RunnerGroup::getId)
-        .findFirst()
         .orElseThrow(() -> {
           log.error("Runner group not found: {} or the token has expired", groupName);
           return new IllegalStateException("Runner group not found: %s or the token has expired".formatted( groupName));
@@ -100,28 +112,45 @@ public class GithubService implements GithubServiceApi {
 
   public List<ListRunnerGroup> fetchRunnerGroups() {
     try {
-      return fetchPaginatedData(
-          new HttpGet(
-              String.format("https://api.github.com/orgs/%s/actions/runner-groups", organization)),
-          new TypeReference<ListRunnerGroup>() {
-          });
+      List<RunnerGroup> groups = new ArrayList<>();
+      paginator.forEach("runner_groups", GithubRequestPriority.CRITICAL, runnerGroupsUrl(),
+          "runner_groups", RunnerGroup.class, groups::add);
+      ListRunnerGroup all = new ListRunnerGroup();
+      all.setTotalCount(groups.size());
+      all.setRunnerGroups(groups);
+      return List.of(all);
     } catch (Exception e) {
       log.error("Unable to fetch runner groups", e);
       return Collections.emptyList();
     }
   }
 
+  private String runnerGroupsUrl() {
+    return String.format("https://api.github.com/orgs/%s/actions/runner-groups", organization);
+  }
+
+  /**
+   * @return a cached registration token, see {@link RegistrationTokenCache}
+   */
   public Optional<String> generateRunnerToken() {
-    try (var client = createHttpClient()) {
-      var request = new HttpPost(
-          String.format("https://api.github.com/orgs/%s/actions/runners/registration-token",
-              organization));
-      try (var response = client.execute(request)) {
-        if (response.getCode() >= 200 && response.getCode() < 300) {
-          var body = new String(response.getEntity().getContent().readAllBytes());
-          return Optional.of(new JSONObject(body).getString("token"));
-        }
+    return registrationTokens.get();
+  }
+
+  private Optional<RegistrationToken> fetchRegistrationToken() {
+    try {
+      var response = http.execute("registration_token", GithubRequestPriority.CRITICAL,
+          SimpleRequestBuilder.post(String.format(
+              "https://api.github.com/orgs/%s/actions/runners/registration-token",
+              organization)).build());
+      if (response.getCode() >= 200 && response.getCode() < 300) {
+        var body = new JSONObject(body(response));
+        Instant expiresAt = body.has("expires_at")
+            ? OffsetDateTime.parse(body.getString("expires_at")).toInstant()
+            : Instant.now().plus(REGISTRATION_TOKEN_LIFETIME);
+        return Optional.of(new RegistrationToken(body.getString("token"), expiresAt));
       }
+      log.error("Failed to generate runner token, received response code {}",
+          response.getCode());
     } catch (Exception e) {
       log.error("Failed to generate runner token", e);
     }
@@ -129,27 +158,19 @@ public class GithubService implements GithubServiceApi {
   }
 
   @Override
-  public boolean isJobQueued(String runUrl) {
-    try (var client = createHttpClient()) {
-      var request = new HttpGet(runUrl);
-      CloseableHttpResponse response = client.execute(request);
-      String body = new String(response.getEntity().getContent().readAllBytes());
-      if (response.getCode() >= 200 && response.getCode() < 300) {
-        JSONObject obj = new JSONObject(body);
-        if (obj.has("status") && obj.getString("status").equalsIgnoreCase("queued")) {
-          return true;
-        } else {
-          return false;
-        }
-      } else {
-        log.error("Error fetching job info for %s. Due to: %s".formatted(runUrl,
-            response.getEntity().getContent(), body));
-        return false;
-      }
-    } catch (Exception e) {
-      Utils.excessiveErrorLog("Error fetching job info for %s".formatted(runUrl), e, log);
-    }
-    return false;
+  public boolean isJobQueued(String runUrl, String jobId) {
+    return isJobQueuedAsync(runUrl, jobId).join();
+  }
+
+  /**
+   * Checks of jobs of the same run share one call, see {@link JobStatusResolver}.
+   *
+   * @param runUrl API URL of the workflow run the job belongs to
+   * @return completes with {@code false} if the job isn't queued or its status couldn't be read
+   */
+  @Override
+  public CompletableFuture<Boolean> isJobQueuedAsync(String runUrl, String jobId) {
+    return jobStatuses.isQueued(runUrl, jobId);
   }
 
   public List<Runner> listRunnersInGroup() {
@@ -158,14 +179,16 @@ public class GithubService implements GithubServiceApi {
 
   public List<Runner> listRunnersInGroup(String groupId) {
     try {
-      var request = new HttpGet(
+      List<Runner> runners = new ArrayList<>();
+      paginator.forEach("list_runners", GithubRequestPriority.NORMAL,
           String.format("https://api.github.com/orgs/%s/actions/runner-groups/%s/runners",
-              organization, groupId));
-      var pages = fetchPaginatedData(request, new TypeReference<ListSelfHostedRunners>() {
-      });
-      List<Runner> allRunners = new ArrayList<>();
-      pages.forEach(page -> allRunners.addAll(page.getRunners()));
-      return allRunners.stream().filter(this::runnerHaveCorrectActionGroupLabel).toList();
+              organization, groupId), "runners", Runner.class, runner -> {
+            if (runnerHaveCorrectActionGroupLabel(runner)) {
+              runners.add(runner);
+            }
+            return true;
+          });
+      return runners;
     } catch (Exception e) {
       log.error("Error listing runners for group {}", groupId, e);
       throw new RuntimeException(e);
@@ -188,37 +211,49 @@ public class GithubService implements GithubServiceApi {
   }
 
   public boolean deleteRunner(String runnerId) {
-    HttpDelete httpDelete = new HttpDelete(
-        "https://api.github.com/orgs/%s/actions/runners/%s".formatted(this.organization, runnerId));
-    try (var client = createHttpClient(); var response = client.execute(httpDelete)) {
-      if (response.getCode() >= 200 && 300 > response.getCode()) {
-        return true;
-      }
-    } catch (Exception e) {
-      String msg = "Failed to delete Runner";
-      log.error(msg, e);
-    }
-    return false;
+    return deleteRunnerAsync(runnerId).join();
+  }
+
+  @Override
+  public CompletableFuture<Boolean> deleteRunnerAsync(String runnerId) {
+    return http.executeAsync("delete_runner", GithubRequestPriority.BACKGROUND,
+            SimpleRequestBuilder.delete(
+                "https://api.github.com/orgs/%s/actions/runners/%s".formatted(this.organization,
+                    runnerId)).build())
+        .handle((response, error) -> {
+          if (error != null) {
+            String msg = "Failed to delete Runner";
+            log.error(msg, error);
+            return false;
+          }
+          return response.getCode() >= 200 && 300 > response.getCode();
+        });
   }
 
+  /**
+   * @return the deliveries of the last 24 hours, newest first
+   */
   public List<DeliveryRecord> listDeliveries()
       throws ProtocolException, GeneralSecurityException, IOException {
-    HttpGet httpGet = new HttpGet(
+    List<DeliveryRecord> deliveries = new ArrayList<>();
+    paginator.forEach("deliveries", GithubRequestPriority.BACKGROUND,
         "https://api.github.com/orgs/%s/hooks/%s/deliveries".formatted(this.organization,
-            this.webhookId));
-    var dd = fetchPaginatedData(httpGet, new TypeReference<List<DeliveryRecord>>() {
-    }, (a, b) -> a.stream().anyMatch(d -> {
-      return Duration.between(d.getDeliveredAt(), ZonedDateTime.now()).toHours() > 24;
-//             return d.getDeliveredAt().toLocalDate().isBefore(LocalDate.now());
-    }));
-    return dd.stream().flatMap(Collection::stream).toList();
+            this.webhookId), null, DeliveryRecord.class, delivery -> {
+          if (Duration.between(delivery.getDeliveredAt(), ZonedDateTime.now()).toHours() > 24) {
+            return false;
+          }
+          deliveries.add(delivery);
+          return true;
+        });
+    return deliveries;
   }
 
   public boolean reDeliveryFailures(String deliveryId) {
-    HttpPost httpPost = new HttpPost(
-        "https://api.github.com/orgs/%s/hooks/%s/deliveries/%s/attempts".formatted(
-            this.organization, this.webhookId, deliveryId));
-    try (var client = createHttpClient(); var response = client.execute(httpPost)) {
+    try {
+      var response = http.execute("redeliver", GithubRequestPriority.BACKGROUND,
+          SimpleRequestBuilder.post(
+              "https://api.github.com/orgs/%s/hooks/%s/deliveries/%s/attempts".formatted(
+                  this.organization, this.webhookId, deliveryId)).build());
       if (response.getCode() >= 200 && 300 > response.getCode()) {
         return true;
       }
@@ -229,86 +264,18 @@ public class GithubService implements GithubServiceApi {
     return false;
   }
 
-  private <T> List<T> fetchPaginatedData(HttpUriRequestBase request, TypeReference<T> clazz)
-      throws GeneralSecurityException, IOException, ProtocolException {
-    return fetchPaginatedData(request, clazz, (a, b) -> false);
+  private static String body(SimpleHttpResponse response) {
+    byte[] body = response.getBodyBytes();
+    return body == null ? "" : new String(body, StandardCharsets.UTF_8);
   }
 
-  private <T> List<T> fetchPaginatedData(HttpUriRequestBase request, TypeReference<T> clazz,
-      BiPredicate<T, Integer> shouldStop)
-      throws GeneralSecurityException, IOException, ProtocolException {
-    List<T> results = new ArrayList<>();
-    Function<String, T> func = (json) -> {
-      try {
-        T t = OBJECT_MAPPER.readValue(json, clazz);
-        results.add(t);
-        return t;
-      } catch (JsonProcessingException e) {
-        throw new RuntimeException(e);
-      }
-    };
-
-    try (var client = createHttpClient(); var response = client.execute(request)) {
-
-      collectPaginatedResponses(response, client, func, shouldStop);
-      if (response.getCode() >= 300) {
-        log.error(
-            "Received response code %s from request %s".formatted(response.getCode(), request));
-      }
-      return results;
-    }
-  }
-
-  private <T> void collectPaginatedResponses(CloseableHttpResponse response,
-      CloseableHttpClient client, Function<String, T> pageProcessor,
-      BiPredicate<T, Integer> shouldStop)
-      throws IOException, ProtocolException {
-    Header linkHeader;
-    int count = 1;
-    do {
-      T processed = pageProcessor.apply(
-          new String(response.getEntity().getContent().readAllBytes()));
-      if (shouldStop.test(processed, count)) {
-        return;
-      }
-      linkHeader = response.getHeader("link");
-      if (linkHeader != null) {
-        String nextUrl = Arrays.stream(linkHeader.getValue().split(","))
-            .filter(link -> link.contains("rel=\"next\""))
-            .map(link -> link.split(";")[0].replace("<", "").replace(">", "").trim())
-            .findFirst()
-            .orElse(null);
-        response = client.execute(new HttpGet(nextUrl));
-      }
-      count++;
-    } while (linkHeader != null);
-  }
-
-  private CloseableHttpClient createHttpClient() throws GeneralSecurityException {
-    var config = RequestConfig.custom()
-        .setConnectionRequestTimeout(5, TimeUnit.SECONDS)
-        .setResponseTimeout(5, TimeUnit.SECONDS)
-        .build();
-
-    var sslContext = SSLContextBuilder.create()
-        .loadTrustMaterial(TrustAllStrategy.INSTANCE)
-        .build();
-
-    var sslSocketFactory = SSLConnectionSocketFactoryBuilder.create()
-        .setSslContext(sslContext)
-        .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
-        .build();
-
-    return HttpClients.custom()
-        .setDefaultRequestConfig(config)
-        .setDefaultHeaders(List.of(
-            new BasicHeader("Authorization", "Bearer " + token),
-            new BasicHeader("Accept", "application/vnd.github+json"),
-            new BasicHeader("X-GitHub-Api-Version", "2022-11-28")
-        ))
-        .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
-            .setSSLSocketFactory(sslSocketFactory)
-            .build())
-        .build();
+  /**
+   * Stops the job status listings, then closes the shared HTTP client. Called by Spring on
+   * shutdown.
+   */
+  @Override
+  public void close() {
+    jobStatuses.close();
+    http.close();
   }
 }
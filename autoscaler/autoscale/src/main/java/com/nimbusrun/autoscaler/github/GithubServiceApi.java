@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.apache.hc.core5.http.ProtocolException;
 
 public interface GithubServiceApi extends GithubApi {
@@ -25,7 +26,9 @@ public interface GithubServiceApi extends GithubApi {
   Optional<String> generateRunnerToken();
 
   // From GithubApi (declared here for completeness)
-  boolean isJobQueued(String runUrl);
+  boolean isJobQueued(String runUrl, String jobId);
+
+  CompletableFuture<Boolean> isJobQueuedAsync(String runUrl, String jobId);
 
   List<Runner> listRunnersInGroup();
 
@@ -33,6 +36,8 @@ public interface GithubServiceApi extends GithubApi {
 
   boolean deleteRunner(String runnerId);
 
+  CompletableFuture<Boolean> deleteRunnerAsync(String runnerId);
+
   List<DeliveryRecord> listDeliveries()
       throws ProtocolException, GeneralSecurityException, IOException;
 
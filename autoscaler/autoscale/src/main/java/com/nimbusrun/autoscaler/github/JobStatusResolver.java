@@ -0,0 +1,97 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusrun.Utils;
+import com.nimbusrun.autoscaler.github.orm.job.WorkflowJob;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers whether workflow jobs are still queued with one "list jobs for a workflow run" call per
+ * run instead of one call per job.
+ * <p>
+ * Checks are grouped by their run URL. Checks arriving while the jobs of a run are being listed
+ * wait for that listing, and the statuses are kept for {@link #TTL}, so retrying every job of a
+ * matrix costs a single call. The TTL is short since a queued job is usually picked up within
+ * seconds.
+ * <p>
+ * Runs are listed on virtual threads that {@link #close()} interrupts, so no listing outlives the
+ * HTTP client it calls.
+ */
+@Slf4j
+class JobStatusResolver implements AutoCloseable {
+
+  static final Duration TTL = Duration.ofSeconds(10);
+  private static final int MAX_CACHED_RUNS = 1_000;
+  private static final String QUEUED = "queued";
+
+  private final GithubPaginator paginator;
+  private final ExecutorService listings = Executors.newVirtualThreadPerTaskExecutor();
+  private final AsyncLoadingCache<String, Map<String, String>> jobStatusesByRun;
+
+  JobStatusResolver(GithubPaginator paginator) {
+    this(paginator, TTL);
+  }
+
+  JobStatusResolver(GithubPaginator paginator, Duration ttl) {
+    this.paginator = paginator;
+    this.jobStatusesByRun = Caffeine.newBuilder()
+        .expireAfterWrite(ttl)
+        .maximumSize(MAX_CACHED_RUNS)
+        .executor(listings)
+        .buildAsync(this::listJobStatuses);
+  }
+
+  /**
+   * @param runUrl API URL of the workflow run the job belongs to
+   * @return completes with {@code false} if the job isn't queued or its status couldn't be read
+   */
+  CompletableFuture<Boolean> isQueued(String runUrl, String jobId) {
+    return jobStatusesByRun.get(runUrl)
+        .handle((statuses, error) -> {
+          if (error != null) {
+            Utils.excessiveErrorLog("Error fetching jobs of run %s".formatted(runUrl), error, log);
+            return false;
+          }
+          String status = statuses.get(jobId);
+          if (status == null) {
+            log.debug("Job {} isn't part of the latest attempt of run {}", jobId, runUrl);
+            return false;
+          }
+          return QUEUED.equalsIgnoreCase(status);
+        });
+  }
+
+  /**
+   * @return status by job id of the jobs of the run's latest attempt
+   */
+  private Map<String, String> listJobStatuses(String runUrl) {
+    Map<String, String> statuses = new HashMap<>();
+    try {
+      paginator.forEach("run_jobs", GithubRequestPriority.NORMAL,
+          runUrl + "/jobs?filter=latest", "jobs", WorkflowJob.class, job -> {
+            statuses.put(String.valueOf(job.getId()), job.getStatus());
+            return true;
+          });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return statuses;
+  }
+
+  /**
+   * Interrupts the listings in flight. Checks waiting for them complete with {@code false}.
+   */
+  @Override
+  public void close() {
+    listings.shutdownNow();
+  }
+}
@@ -0,0 +1,118 @@
+package com.nimbusrun.autoscaler.github;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+
+/**
+ * What is left of the GitHub rate limit, as reported by the {@code X-RateLimit-*} headers of the
+ * last response.
+ * <p>
+ * Every call sent counts against the remaining budget right away, so concurrent calls don't all
+ * see the same budget until their responses arrive. Each response corrects the estimate, which
+ * also gives back the calls answered with {@code 304 Not Modified}. A {@code Retry-After} header,
+ * GitHub's answer to hitting the secondary rate limit, holds back every call until it passed.
+ */
+class RateLimitBudget {
+
+  static final String LIMIT_HEADER = "X-RateLimit-Limit";
+  static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+  static final String RESET_HEADER = "X-RateLimit-Reset";
+  static final String RETRY_AFTER_HEADER = "Retry-After";
+
+  private final Clock clock;
+  /**
+   * A lock rather than a monitor so virtual threads don't pin their carrier.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * -1 until the first response reported it.
+   */
+  private long limit = -1;
+  private long remaining = -1;
+  private Instant resetAt = Instant.EPOCH;
+  private Instant retryAfter = Instant.EPOCH;
+
+  RateLimitBudget(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Takes one call of the budget if {@code priority} may use it.
+   *
+   * @return zero if the call may be sent now, otherwise how long until the budget resets
+   */
+  Duration acquire(GithubRequestPriority priority) {
+    lock.lock();
+    try {
+      Instant now = clock.instant();
+      if (retryAfter.isAfter(now)) {
+        return Duration.between(now, retryAfter);
+      }
+      if (remaining < 0 || !resetAt.isAfter(now)) {
+        return Duration.ZERO;
+      }
+      if (remaining > priority.reserve(limit)) {
+        remaining--;
+        return Duration.ZERO;
+      }
+      return Duration.between(now, resetAt);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void update(HttpResponse response) {
+    lock.lock();
+    try {
+      Long responseLimit = longHeader(response, LIMIT_HEADER);
+      Long responseRemaining = longHeader(response, REMAINING_HEADER);
+      Long reset = longHeader(response, RESET_HEADER);
+      if (responseLimit != null && responseRemaining != null && reset != null) {
+        Instant responseResetAt = Instant.ofEpochSecond(reset);
+        // late responses of calls sent in the previous window don't touch the new one
+        if (!responseResetAt.isBefore(resetAt)) {
+          remaining = responseRemaining;
+          limit = responseLimit;
+          resetAt = responseResetAt;
+        }
+      }
+      Long retryAfterSeconds = longHeader(response, RETRY_AFTER_HEADER);
+      if (retryAfterSeconds != null && (response.getCode() == 403 || response.getCode() == 429)) {
+        retryAfter = clock.instant().plusSeconds(retryAfterSeconds);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long limit() {
+    return limit;
+  }
+
+  long remaining() {
+    return remaining;
+  }
+
+  /**
+   * @return seconds until the budget resets, zero if unknown or already reset
+   */
+  long secondsUntilReset() {
+    return Math.max(0, Duration.between(clock.instant(), resetAt).toSeconds());
+  }
+
+  private static Long longHeader(HttpResponse response, String name) {
+    Header header = response.getFirstHeader(name);
+    if (header == null) {
+      return null;
+    }
+    try {
+      return Long.parseLong(header.getValue().trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runner registration token shared by every instance created while it is valid.
+ * <p>
+ * GitHub hands out registration tokens that are valid for an hour and can register any number of
+ * runners, so fetching one per instance only costs rate limit and a round trip. A token is reused
+ * until less than {@link #REFRESH_AHEAD} of its life is left, which leaves an instance using it
+ * enough time to boot and register. Callers arriving while a refresh is running wait for that
+ * refresh instead of starting their own. If a refresh fails the cached token is handed out for as
+ * long as it stays valid for at least {@link #MIN_VALIDITY}.
+ */
+@Slf4j
+public class RegistrationTokenCache {
+
+  public static final Duration REFRESH_AHEAD = Duration.ofMinutes(15);
+  public static final Duration MIN_VALIDITY = Duration.ofMinutes(5);
+
+  private final Supplier<Optional<RegistrationToken>> fetcher;
+  private final MetricsContainer metricsContainer;
+  private final Clock clock;
+  /**
+   * Guards {@link #refresh}. A lock rather than a monitor so virtual threads waiting on it don't
+   * pin their carrier.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile Cached cached;
+  private CompletableFuture<Optional<Cached>> refresh;
+
+  /**
+   * @param fetcher          fetches a new token from GitHub, empty if that failed
+   * @param metricsContainer where to export the token age and refresh time, may be {@code null}
+   */
+  public RegistrationTokenCache(Supplier<Optional<RegistrationToken>> fetcher,
+      MetricsContainer metricsContainer, Clock clock) {
+    this.fetcher = fetcher;
+    this.metricsContainer = metricsContainer;
+    this.clock = clock;
+    if (metricsContainer != null) {
+      metricsContainer.registrationTokenAge(this::ageInSeconds);
+    }
+  }
+
+  /**
+   * @return a token valid for at least {@link #REFRESH_AHEAD}, or if GitHub can't be reached for
+   * at least {@link #MIN_VALIDITY}. Empty if there is none.
+   */
+  public Optional<String> get() {
+    Cached current = cached;
+    if (validFor(current, REFRESH_AHEAD)) {
+      return Optional.of(current.token());
+    }
+    CompletableFuture<Optional<Cached>> pending;
+    boolean refreshing = false;
+    lock.lock();
+    try {
+      current = cached;
+      if (validFor(current, REFRESH_AHEAD)) {
+        return Optional.of(current.token());
+      }
+      if (refresh == null) {
+        refresh = new CompletableFuture<>();
+        refreshing = true;
+      }
+      pending = refresh;
+    } finally {
+      lock.unlock();
+    }
+    if (refreshing) {
+      pending.complete(fetch());
+      lock.lock();
+      try {
+        refresh = null;
+      } finally {
+        lock.unlock();
+      }
+    }
+    Optional<Cached> fetched = pending.join();
+    if (fetched.isPresent()) {
+      return Optional.of(fetched.get().token());
+    }
+    if (validFor(current, MIN_VALIDITY)) {
+      log.warn("Failed to refresh the runner registration token, reusing the cached one which "
+          + "expires at {}", current.expiresAt());
+      return Optional.of(current.token());
+    }
+    return Optional.empty();
+  }
+
+  private Optional<Cached> fetch() {
+    long start = System.nanoTime();
+    Optional<Cached> fetched;
+    try {
+      fetched = fetcher.get()
+          .map(token -> new Cached(token.token(), clock.instant(), token.expiresAt()));
+    } catch (RuntimeException e) {
+      log.error("Failed to fetch runner registration token", e);
+      fetched = Optional.empty();
+    }
+    fetched.ifPresent(token -> cached = token);
+    if (metricsContainer != null) {
+      metricsContainer.registrationTokenRefreshTime(fetched.isPresent(),
+          Duration.ofNanos(System.nanoTime() - start));
+    }
+    return fetched;
+  }
+
+  private boolean validFor(Cached token, Duration duration) {
+    return token != null && token.expiresAt().isAfter(clock.instant().plus(duration));
+  }
+
+  private double ageInSeconds() {
+    Cached current = cached;
+    if (current == null) {
+      return Double.NaN;
+    }
+    return Duration.between(current.fetchedAt(), clock.instant()).toMillis() / 1000.0;
+  }
+
+  /**
+   * @param expiresAt when GitHub stops accepting the token
+   */
+  public record RegistrationToken(String token, Instant expiresAt) {
+
+  }
+
+  private record Cached(String token, Instant fetchedAt, Instant expiresAt) {
+
+  }
+}
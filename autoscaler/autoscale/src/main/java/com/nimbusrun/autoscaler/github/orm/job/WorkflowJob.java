@@ -0,0 +1,14 @@
+package com.nimbusrun.autoscaler.github.orm.job;
+
+import lombok.Data;
+
+@Data
+public class WorkflowJob {
+
+  private Long id;
+  private Long runId;
+  private String name;
+  private String status;
+  private String conclusion;
+
+}
@@ -4,11 +4,16 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -16,6 +21,9 @@ public class MetricsContainer {
 
   public static final String CREATE_OPERATION = "create";
   public static final String DELETE_OPERATION = "delete";
+  public static final String SUCCESS_RESULT = "success";
+  public static final String FAILURE_RESULT = "failure";
+  public static final String TIMEOUT_RESULT = "timeout";
   public static final String POOL_NAME_TAG = "pool_name";
   public static final String REPOSITORY_NAME_TAG = "repository_name";
   public static final String WORKFLOW_NAME_TAG = "workflow_name";
@@ -26,12 +34,35 @@ public class MetricsContainer {
   public static String INVALID_WORKFLOW_JOB_LABEL_TOTAL = "invalid_workflow_job_label_total";
   public static String ACTION_POOL_PROCESS_TIME_TOTAL = "action_pool_process_time_total";
   public static String REPOSITORY_UPSCALE_TOTAL = "repository_upscale_total";
+  public static String PENDING_RETRY_UPSCALE_REQUESTS = "pending_retry_upscale_requests";
+  public static String JOB_ARRIVALS_FORECAST = "job_arrivals_forecast";
+  public static String JOB_ARRIVALS_ACTUAL = "job_arrivals_actual";
+  public static final String STAGE_TAG = "stage";
+  /**
+   * {@link #POOL_NAME_TAG} of pipeline stages not tied to an action pool.
+   */
+  public static final String NO_POOL = "none";
+  public static String QUEUE_DEPTH = "queue_depth";
+  public static String QUEUE_ENQUEUED_TOTAL = "queue_enqueued_total";
+  public static String QUEUE_DROPPED_TOTAL = "queue_dropped_total";
+  public static String QUEUE_WAIT_TIME = "queue_wait_time";
+  public static String INSTANCE_OPERATION_TIME = "instance_operation_time";
+  public static String IMAGE_BAKE_TIME = "image_bake_time";
+  public static String REGISTRATION_TOKEN_AGE = "github_registration_token_age_seconds";
+  public static String REGISTRATION_TOKEN_REFRESH_TIME = "github_registration_token_refresh_time";
+  public static String GITHUB_REQUEST_TIME = "github_request_time";
+  public static String GITHUB_RATE_LIMIT_REMAINING = "github_rate_limit_remaining";
+  public static String GITHUB_RATE_LIMIT_LIMIT = "github_rate_limit_limit";
+  public static String GITHUB_RATE_LIMIT_RESET_SECONDS = "github_rate_limit_reset_seconds";
+  public static String GITHUB_REQUESTS_WAITING = "github_requests_waiting";
   /*TODO
       - counter user trigger a workflow_run
       - counter repository triggering workflow_run
    */
   private final MeterRegistry meterRegistry;
   private final Map<String, AtomicInteger> actionPoolGaugeMap = new ConcurrentHashMap<>();
+  private final Map<String, AtomicReference<Double>> jobArrivalsForecastMap = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> jobArrivalsActualMap = new ConcurrentHashMap<>();
 
   public MetricsContainer(MeterRegistry meterRegistry) {
     this.meterRegistry = meterRegistry;
@@ -48,6 +79,87 @@ public class MetricsContainer {
     mapAi.set(instanceCount);
   }
 
+  /**
+   * Forecast and actual number of queued jobs for the last closed forecast bucket of the action
+   * pool.
+   */
+  public void jobArrivals(String actionPoolName, double forecast, long actual) {
+    jobArrivalsForecastMap.computeIfAbsent(actionPoolName, (key) -> {
+      AtomicReference<Double> ref = new AtomicReference<>(forecast);
+      Gauge.builder(JOB_ARRIVALS_FORECAST, ref, AtomicReference::get).description("""
+              Number of queued jobs the forecast expected in the last closed forecast bucket
+              """)
+          .tag(POOL_NAME_TAG, actionPoolName).register(this.meterRegistry);
+      return ref;
+    }).set(forecast);
+    jobArrivalsActualMap.computeIfAbsent(actionPoolName, (key) -> {
+      AtomicLong al = new AtomicLong(actual);
+      Gauge.builder(JOB_ARRIVALS_ACTUAL, al::get).description("""
+              Number of queued jobs that arrived in the last closed forecast bucket
+              """)
+          .tag(POOL_NAME_TAG, actionPoolName).register(this.meterRegistry);
+      return al;
+    }).set(actual);
+  }
+
+  /**
+   * Registers a gauge backed by {@code pending}, the number of upscale requests of the action pool
+   * waiting to be retried.
+   */
+  public void pendingRetryUpscaleRequests(String actionPoolName, AtomicInteger pending) {
+    Gauge.builder(PENDING_RETRY_UPSCALE_REQUESTS, pending::get).description("""
+            Number of upscale requests waiting for their back-off to expire before being retried
+            """)
+        .tag(POOL_NAME_TAG, actionPoolName).register(this.meterRegistry);
+  }
+
+  /**
+   * Registers a gauge reporting the number of items waiting in a stage of the webhook → upscale
+   * pipeline.
+   */
+  public void queueDepth(String stage, List<Tag> tags, Supplier<Number> depth) {
+    Gauge.builder(QUEUE_DEPTH, depth).description("""
+            Number of items waiting in a stage of the webhook to upscale pipeline
+            """)
+        .tags(stageTags(stage, tags)).register(this.meterRegistry);
+  }
+
+  public void queueEnqueued(String stage, List<Tag> tags) {
+    Counter.builder(QUEUE_ENQUEUED_TOTAL).description("""
+            Items accepted by a stage of the webhook to upscale pipeline. The rate of this counter is the enqueue rate
+            """)
+        .tags(stageTags(stage, tags)).register(meterRegistry).increment();
+  }
+
+  public void queueDropped(String stage, List<Tag> tags, String reason) {
+    List<Tag> dropTags = stageTags(stage, tags);
+    dropTags.add(Tag.of("reason", reason));
+    Counter.builder(QUEUE_DROPPED_TOTAL).description("""
+            Items dropped by a full stage of the webhook to upscale pipeline. reason(full/duplicate/oldest)
+            """)
+        .tags(dropTags).register(meterRegistry).increment();
+  }
+
+  public void queueWaitTime(String stage, List<Tag> tags, Duration waited) {
+    Timer.builder(QUEUE_WAIT_TIME).description("""
+            Time items spend waiting in a stage of the webhook to upscale pipeline
+            """)
+        .tags(stageTags(stage, tags)).register(meterRegistry).record(waited);
+  }
+
+  /**
+   * Every stage carries a {@code pool_name} tag, {@value #NO_POOL} for stages shared by all action
+   * pools, since Prometheus rejects a meter name registered with different tag keys.
+   */
+  private List<Tag> stageTags(String stage, List<Tag> tags) {
+    List<Tag> stageTags = new ArrayList<>(tags);
+    if (stageTags.stream().noneMatch(tag -> POOL_NAME_TAG.equals(tag.getKey()))) {
+      stageTags.add(Tag.of(POOL_NAME_TAG, NO_POOL));
+    }
+    stageTags.add(Tag.of(STAGE_TAG, stage));
+    return stageTags;
+  }
+
   public void instanceRetriesPoolFull(String actionPoolName) {
     List<Tag> tags = new ArrayList<>();
     tags.add(Tag.of(POOL_NAME_TAG, actionPoolName));
@@ -97,6 +209,88 @@ public class MetricsContainer {
   public void instanceDeletedTotal(String actionPoolName, boolean success) {
     instanceOperations(actionPoolName, success, DELETE_OPERATION);
   }
+  /**
+   * Records how long a create or delete took from the call to the compute provider until the
+   * provider reported the operation done.
+   */
+  public void instanceOperationTime(String actionPoolName, String operation, String result,
+      Duration took) {
+    List<Tag> tags = new ArrayList<>();
+    tags.add(Tag.of(POOL_NAME_TAG, actionPoolName));
+    tags.add(Tag.of("type", operation));
+    tags.add(Tag.of("result", result));
+    Timer.builder(INSTANCE_OPERATION_TIME).description("""
+            Time a compute instance operation took until the provider reported it done. type(%s/%s) and result(%s/%s/%s)
+            """.formatted(CREATE_OPERATION, DELETE_OPERATION, SUCCESS_RESULT, FAILURE_RESULT,
+            TIMEOUT_RESULT))
+        .tags(tags).register(meterRegistry).record(took);
+  }
+
+  public void imageBakeTime(String actionPoolName, boolean success, Duration took) {
+    List<Tag> tags = new ArrayList<>();
+    tags.add(Tag.of(POOL_NAME_TAG, actionPoolName));
+    tags.add(Tag.of("result", success ? SUCCESS_RESULT : FAILURE_RESULT));
+    Timer.builder(IMAGE_BAKE_TIME).description("""
+            Time an action pool image bake took, from booting the builder until the image was ready. result(%s/%s)
+            """.formatted(SUCCESS_RESULT, FAILURE_RESULT))
+        .tags(tags).register(meterRegistry).record(took);
+  }
+
+  /**
+   * Registers a gauge reporting the age of the cached runner registration token.
+   */
+  public void registrationTokenAge(Supplier<Number> ageInSeconds) {
+    Gauge.builder(REGISTRATION_TOKEN_AGE, ageInSeconds).description("""
+            Seconds since the cached GitHub runner registration token was fetched. NaN before the first fetch
+            """)
+        .register(this.meterRegistry);
+  }
+
+  public void registrationTokenRefreshTime(boolean success, Duration took) {
+    Timer.builder(REGISTRATION_TOKEN_REFRESH_TIME).description("""
+            Time fetching a new GitHub runner registration token took. result(%s/%s)
+            """.formatted(SUCCESS_RESULT, FAILURE_RESULT))
+        .tag("result", success ? SUCCESS_RESULT : FAILURE_RESULT)
+        .register(meterRegistry).record(took);
+  }
+
+  /**
+   * Records how long a GitHub API call took until its response was received.
+   *
+   * @param status response code, {@code error} if no response was received
+   */
+  public void githubRequestTime(String endpoint, String method, String status, Duration took) {
+    Timer.builder(GITHUB_REQUEST_TIME).description("""
+            Time a GitHub API call took until its response was received. status is the response code or error
+            """)
+        .tag("endpoint", endpoint).tag("method", method).tag("status", status)
+        .register(meterRegistry).record(took);
+  }
+
+  /**
+   * Registers gauges reporting what is left of the GitHub rate limit and how many calls wait to be
+   * sent.
+   */
+  public void githubRateLimit(Supplier<Number> remaining, Supplier<Number> limit,
+      Supplier<Number> secondsUntilReset, Supplier<Number> waiting) {
+    Gauge.builder(GITHUB_RATE_LIMIT_REMAINING, remaining).description("""
+            GitHub API calls left until the rate limit resets. -1 until the first response
+            """)
+        .register(this.meterRegistry);
+    Gauge.builder(GITHUB_RATE_LIMIT_LIMIT, limit).description("""
+            GitHub API calls allowed per rate limit window. -1 until the first response
+            """)
+        .register(this.meterRegistry);
+    Gauge.builder(GITHUB_RATE_LIMIT_RESET_SECONDS, secondsUntilReset).description("""
+            Seconds until the GitHub rate limit resets
+            """)
+        .register(this.meterRegistry);
+    Gauge.builder(GITHUB_REQUESTS_WAITING, waiting).description("""
+            GitHub API calls waiting to be sent, held back by priority or the rate limit
+            """)
+        .register(this.meterRegistry);
+  }
+
   public void repositoryUpscaleTotal(String actionPoolName, String repositoryName){
     List<Tag> tags = new ArrayList<>();
     tags.add(Tag.of(POOL_NAME_TAG, actionPoolName));
@@ -118,8 +312,8 @@ public class MetricsContainer {
     List<Tag> tags = new ArrayList<>();
     tags.add(Tag.of(POOL_NAME_TAG, actionPoolName));
     tags.add(Tag.of("type", operation));
-    String successTag = "success";
-    String failureTag = "failure";
+    String successTag = SUCCESS_RESULT;
+    String failureTag = FAILURE_RESULT;
     tags.add(Tag.of("result", success ? successTag : failureTag));
     Counter.builder(INSTANCE_OPERATIONS_TOTAL).description("""
             Increments when an operation to a compute instance occurs. type(%s/%s) and result(%s/%s)
@@ -0,0 +1,180 @@
+package com.nimbusrun.bake;
+
+import com.nimbusrun.Utils;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import com.nimbusrun.cluster.ClusterCoordinator;
+import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.compute.BakedImage;
+import com.nimbusrun.compute.Compute;
+import com.nimbusrun.compute.ImageBakeSettings;
+import com.nimbusrun.compute.ImageBaking;
+import com.nimbusrun.config.AutoscalerSettings;
+import com.nimbusrun.config.AutoscalerSettings.ImageBakingSettings;
+import com.nimbusrun.config.ConfigReader;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the images of the action pools that opt in to baking fresh.
+ * <p>
+ * Every {@link #CHECK_INTERVAL} each owned pool is switched to its newest baked image, which also
+ * picks up images baked by another replica before a pool changed owner. Once the newest image is
+ * older than {@link ImageBakingSettings#getIntervalInHours()}, or the pool has none yet, a new one
+ * is baked through the {@link ImageBaking} provider. The pool only switches to it once the bake
+ * succeeded, and the images beyond {@link ImageBakingSettings#getRetainedImages()} are deleted.
+ */
+@Slf4j
+@Component
+public class ImageBaker implements AutoCloseable {
+
+  public static final Duration CHECK_INTERVAL = Duration.ofMinutes(10);
+
+  private final Compute compute;
+  private final Collection<ActionPool> actionPools;
+  private final ClusterCoordinator cluster;
+  private final MetricsContainer metricsContainer;
+  private final Duration bakeInterval;
+  private final Duration bakeTimeout;
+  private final int retainedImages;
+  private final Clock clock;
+  /**
+   * Pools with a bake in progress.
+   */
+  private final Set<String> baking = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService scheduler;
+
+  @Autowired
+  public ImageBaker(Compute compute, ConfigReader configReader, ClusterCoordinator cluster,
+      MetricsContainer metricsContainer, AutoscalerSettings autoscalerSettings) {
+    this(compute, configReader.getActionPoolMap().values(), cluster, metricsContainer,
+        autoscalerSettings.getImageBaking(), Clock.systemUTC());
+  }
+
+  public ImageBaker(Compute compute, Collection<ActionPool> actionPools,
+      ClusterCoordinator cluster, MetricsContainer metricsContainer, ImageBakingSettings settings,
+      Clock clock) {
+    this.compute = compute;
+    this.actionPools = List.copyOf(actionPools);
+    this.cluster = cluster;
+    this.metricsContainer = metricsContainer;
+    this.bakeInterval = Duration.ofHours(Math.max(1, settings.getIntervalInHours()));
+    this.bakeTimeout = Duration.ofMinutes(Math.max(1, settings.getTimeoutInMinutes()));
+    this.retainedImages = Math.max(1, settings.getRetainedImages());
+    this.clock = clock;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name("image-baker-", 0).factory());
+    if (settings.isEnabled()) {
+      if (compute instanceof ImageBaking) {
+        this.scheduler.scheduleWithFixedDelay(this::checkQuietly, 0, CHECK_INTERVAL.toMillis(),
+            TimeUnit.MILLISECONDS);
+      } else {
+        log.warn("Image baking is enabled but {} can't bake images",
+            compute.getClass().getSimpleName());
+      }
+    }
+  }
+
+  /**
+   * Switches every owned pool to its newest baked image and starts the bakes that are due.
+   *
+   * @return completes once the started bakes are done
+   */
+  public CompletableFuture<Void> check() {
+    if (!(compute instanceof ImageBaking imageBaking)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    List<CompletableFuture<Void>> bakes = new ArrayList<>();
+    for (ActionPool actionPool : actionPools) {
+      Optional<ImageBakeSettings> bakeSettings = imageBaking.imageBakeSettings(actionPool);
+      if (bakeSettings.isEmpty() || !bakeSettings.get().isEnabled()
+          || !cluster.owns(actionPool.getName())) {
+        continue;
+      }
+      try {
+        List<BakedImage> images = imageBaking.listBakedImages(actionPool);
+        if (!images.isEmpty()) {
+          imageBaking.useImage(actionPool, images.get(0).image());
+        }
+        boolean due = images.isEmpty()
+            || images.get(0).createdAt().plus(bakeInterval).isBefore(clock.instant());
+        if (due && baking.add(actionPool.getName())) {
+          bakes.add(bake(imageBaking, actionPool));
+        }
+      } catch (RuntimeException e) {
+        Utils.excessiveErrorLog("Failed to check baked images of action pool %s due to %s"
+            .formatted(actionPool.getName(), e.getMessage()), e, log);
+      }
+    }
+    return CompletableFuture.allOf(bakes.toArray(CompletableFuture[]::new));
+  }
+
+  private CompletableFuture<Void> bake(ImageBaking imageBaking, ActionPool actionPool) {
+    log.info("Baking a new image for action pool {}", actionPool.getName());
+    long start = System.nanoTime();
+    CompletableFuture<String> bake;
+    try {
+      bake = imageBaking.bakeImage(actionPool, bakeTimeout);
+    } catch (RuntimeException e) {
+      bake = CompletableFuture.failedFuture(e);
+    }
+    return bake.handle((image, failure) -> {
+      Throwable error = failure instanceof CompletionException && failure.getCause() != null
+          ? failure.getCause() : failure;
+      try {
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        metricsContainer.imageBakeTime(actionPool.getName(), error == null, took);
+        if (error != null) {
+          Utils.excessiveErrorLog("Failed to bake image for action pool %s due to %s"
+              .formatted(actionPool.getName(), error.getMessage()), error, log);
+          return null;
+        }
+        imageBaking.useImage(actionPool, image);
+        log.info("Action pool {} now boots baked image {}, baked in {}", actionPool.getName(),
+            image, took);
+        deleteOldImages(imageBaking, actionPool, image);
+        return null;
+      } finally {
+        baking.remove(actionPool.getName());
+      }
+    });
+  }
+
+  private void deleteOldImages(ImageBaking imageBaking, ActionPool actionPool, String inUse) {
+    imageBaking.listBakedImages(actionPool).stream()
+        .skip(retainedImages)
+        .map(BakedImage::image)
+        .filter(image -> !image.equals(inUse))
+        .forEach(image -> {
+          if (imageBaking.deleteImage(actionPool, image)) {
+            log.info("Deleted baked image {} of action pool {}", image, actionPool.getName());
+          }
+        });
+  }
+
+  private void checkQuietly() {
+    try {
+      check();
+    } catch (Exception e) {
+      log.error("Failed to check baked images", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,257 @@
+package com.nimbusrun.cluster;
+
+import com.nimbusrun.config.AutoscalerSettings;
+import com.nimbusrun.config.AutoscalerSettings.ClusterSettings;
+import com.nimbusrun.config.ConfigReader;
+import com.nimbusrun.github.GithubActionJob;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shares the action pools between the replicas of the autoscaler so several can run side by side.
+ * <p>
+ * Every replica heartbeats into the {@link CoordinationBackend}. Each action pool is assigned to
+ * one live replica by rendezvous hashing, so when a replica joins or leaves only the pools it owned
+ * or now owns move. The assigned replica holds a lease on the pool for as long as it is alive and
+ * only the lease holder scales the pool. A replica that stops heartbeating loses its pools once its
+ * lease expires. Work that isn't tied to a pool, like deleting orphaned runners, is done by
+ * whichever replica holds the {@value #LEADER_LEASE} lease.
+ * <p>
+ * Webhooks reach whichever replica the load balancer picks, so events for a pool owned by another
+ * replica are forwarded to it through the backend.
+ * <p>
+ * When clustering is disabled this replica owns every pool and is always the leader.
+ */
+@Slf4j
+@Component
+public class ClusterCoordinator implements AutoCloseable {
+
+  public static final String LEADER_LEASE = "leader";
+  private static final String POOL_PREFIX = "action-pool/";
+  private static final int MAX_FORWARDED_PER_POLL = 100;
+
+  private final boolean enabled;
+  @Getter
+  private final String memberId;
+  private final CoordinationBackend backend;
+  private final Duration leaseTtl;
+  private final Clock clock;
+  private final Set<String> actionPools;
+  private final Set<String> ownedPools = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService scheduler;
+  private volatile boolean leader;
+  /**
+   * Ownership is only trusted until the leases taken by the last successful rebalance expire.
+   */
+  private volatile long leasesValidUntil;
+  private volatile Consumer<GithubActionJob> forwardedJobHandler = gj -> {
+  };
+
+  @Autowired
+  public ClusterCoordinator(AutoscalerSettings autoscalerSettings, CoordinationBackend backend,
+      ConfigReader configReader) {
+    this(autoscalerSettings.getCluster(), backend, configReader.getActionPoolMap().keySet(),
+        Clock.systemUTC());
+  }
+
+  public ClusterCoordinator(ClusterSettings settings, CoordinationBackend backend,
+      Collection<String> actionPools, Clock clock) {
+    this.clock = clock;
+    this.enabled = settings.isEnabled();
+    this.memberId = settings.getMemberId() == null || settings.getMemberId().isBlank()
+        ? defaultMemberId() : settings.getMemberId();
+    this.backend = backend;
+    this.leaseTtl = Duration.ofSeconds(Math.max(1, settings.getLeaseTtlInSeconds()));
+    this.actionPools = Set.copyOf(actionPools);
+    if (!enabled) {
+      this.scheduler = null;
+      return;
+    }
+    rebalance();
+    this.scheduler = Executors.newScheduledThreadPool(2,
+        Thread.ofVirtual().name("cluster-coordinator-", 0).factory());
+    long heartbeat = TimeUnit.SECONDS.toMillis(Math.max(1, settings.getHeartbeatIntervalInSeconds()));
+    this.scheduler.scheduleWithFixedDelay(this::rebalance, heartbeat, heartbeat,
+        TimeUnit.MILLISECONDS);
+    long poll = Math.max(10, settings.getForwardPollIntervalInMilli());
+    this.scheduler.scheduleWithFixedDelay(this::drainForwardedJobs, poll, poll,
+        TimeUnit.MILLISECONDS);
+    log.info("Joined autoscaler cluster as {}, owning action pools {}", memberId, ownedPools);
+  }
+
+  /**
+   * @return whether this replica scales the action pool
+   */
+  public boolean owns(String actionPool) {
+    return !enabled || (ownedPools.contains(actionPool) && leasesValid());
+  }
+
+  /**
+   * @return whether this replica does the work that isn't tied to an action pool
+   */
+  public boolean isLeader() {
+    return !enabled || (leader && leasesValid());
+  }
+
+  /**
+   * Sets what receives the webhook events other replicas forward to this replica's pools.
+   */
+  public void onForwardedJob(Consumer<GithubActionJob> handler) {
+    this.forwardedJobHandler = handler;
+  }
+
+  /**
+   * Hands the webhook event to the replica that owns the action pool.
+   *
+   * @return {@code false} if the event couldn't be forwarded
+   */
+  public boolean forward(String actionPool, GithubActionJob githubActionJob) {
+    try {
+      backend.publish(POOL_PREFIX + actionPool, githubActionJob.getJsonStr());
+      log.debug("Forwarded {} to the owner of action pool {}", githubActionJob.simpleDescription(),
+          actionPool);
+      return true;
+    } catch (Exception e) {
+      log.error("Failed to forward {} to the owner of action pool {}",
+          githubActionJob.simpleDescription(), actionPool, e);
+      return false;
+    }
+  }
+
+  /**
+   * Heartbeats and takes or gives up action pools to match the current members.
+   */
+  public void rebalance() {
+    long start = clock.millis();
+    try {
+      backend.heartbeat(memberId, leaseTtl);
+      Set<String> members = new HashSet<>(backend.liveMembers());
+      members.add(memberId);
+      for (String pool : actionPools) {
+        String resource = POOL_PREFIX + pool;
+        if (memberId.equals(assignedMember(pool, members))) {
+          if (backend.tryAcquireLease(resource, memberId, leaseTtl)) {
+            if (ownedPools.add(pool)) {
+              log.info("Took ownership of action pool {}", pool);
+            }
+          } else {
+            ownedPools.remove(pool);
+          }
+        } else if (ownedPools.remove(pool)) {
+          backend.releaseLease(resource, memberId);
+          log.info("Handed action pool {} over to another replica", pool);
+        }
+      }
+      leader = backend.tryAcquireLease(LEADER_LEASE, memberId, leaseTtl);
+      leasesValidUntil = start + leaseTtl.toMillis();
+    } catch (Exception e) {
+      log.error("Failed to renew cluster membership of {}, not scaling until it succeeds",
+          memberId, e);
+    }
+  }
+
+  /**
+   * Picks the member with the highest hash of pool and member, so every replica agrees on the owner
+   * given the same members.
+   */
+  static String assignedMember(String actionPool, Collection<String> members) {
+    String assigned = null;
+    long best = Long.MIN_VALUE;
+    for (String member : members) {
+      long weight = hash(actionPool + "\u0000" + member);
+      if (assigned == null || weight > best || (weight == best && member.compareTo(assigned) < 0)) {
+        assigned = member;
+        best = weight;
+      }
+    }
+    return assigned;
+  }
+
+  void drainForwardedJobs() {
+    for (String pool : actionPools) {
+      if (!owns(pool)) {
+        continue;
+      }
+      try {
+        List<String> messages;
+        do {
+          messages = backend.consume(POOL_PREFIX + pool, MAX_FORWARDED_PER_POLL);
+          for (String message : messages) {
+            forwardedJobHandler.accept(GithubActionJob.fromJson(message));
+          }
+        } while (messages.size() == MAX_FORWARDED_PER_POLL);
+      } catch (Exception e) {
+        log.error("Failed to pick up webhook events forwarded to action pool {}", pool, e);
+      }
+    }
+  }
+
+  /**
+   * Gives up the leases so the remaining replicas take over right away. Called by Spring on
+   * shutdown.
+   */
+  @Override
+  public void close() {
+    if (!enabled) {
+      return;
+    }
+    scheduler.shutdownNow();
+    try {
+      for (String pool : ownedPools) {
+        backend.releaseLease(POOL_PREFIX + pool, memberId);
+      }
+      backend.releaseLease(LEADER_LEASE, memberId);
+      backend.leave(memberId);
+    } catch (Exception e) {
+      log.warn("Failed to leave the autoscaler cluster cleanly, leases expire on their own", e);
+    }
+    ownedPools.clear();
+    leader = false;
+  }
+
+  private boolean leasesValid() {
+    return clock.millis() < leasesValidUntil;
+  }
+
+  /**
+   * 64 bit FNV-1a followed by a murmur finalizer so similar pool and member names still spread
+   * evenly.
+   */
+  private static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static String defaultMemberId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      host = "autoscaler";
+    }
+    return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+}
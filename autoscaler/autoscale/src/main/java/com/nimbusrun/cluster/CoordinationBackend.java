@@ -0,0 +1,54 @@
+package com.nimbusrun.cluster;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared state the replicas of a cluster coordinate through: membership, leases and a per channel
+ * message queue used to forward webhook events to the replica that owns their action pool.
+ * <p>
+ * Expiry times are computed from the calling replica's clock, so replica clocks should be kept in
+ * sync (e.g. NTP). Lease TTLs of several seconds absorb small skews.
+ */
+public interface CoordinationBackend extends AutoCloseable {
+
+  /**
+   * Registers the member, or renews its registration, until {@code ttl} from now.
+   */
+  void heartbeat(String memberId, Duration ttl);
+
+  /**
+   * Removes the member right away instead of waiting for its registration to expire.
+   */
+  void leave(String memberId);
+
+  /**
+   * @return members whose registration has not expired
+   */
+  Set<String> liveMembers();
+
+  /**
+   * Acquires the lease on {@code resource} if it is free or expired, or renews it if
+   * {@code memberId} already holds it.
+   *
+   * @return {@code true} if {@code memberId} holds the lease for {@code ttl} from now
+   */
+  boolean tryAcquireLease(String resource, String memberId, Duration ttl);
+
+  /**
+   * Releases the lease if {@code memberId} holds it.
+   */
+  void releaseLease(String resource, String memberId);
+
+  void publish(String channel, String message);
+
+  /**
+   * Removes and returns up to {@code max} of the oldest messages of the channel.
+   */
+  List<String> consume(String channel, int max);
+
+  @Override
+  default void close() {
+  }
+}
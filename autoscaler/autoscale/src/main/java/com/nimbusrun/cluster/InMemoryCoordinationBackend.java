@@ -0,0 +1,94 @@
+package com.nimbusrun.cluster;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link CoordinationBackend} shared by the replicas of a single process. Used when clustering is
+ * disabled and to run several replicas side by side in tests.
+ */
+@Component
+@ConditionalOnProperty(prefix = "autoscaler.cluster", name = "backend", havingValue = "memory",
+    matchIfMissing = true)
+public class InMemoryCoordinationBackend implements CoordinationBackend {
+
+  private final Clock clock;
+  private final Map<String, Long> members = new HashMap<>();
+  private final Map<String, Lease> leases = new HashMap<>();
+  private final Map<String, Deque<String>> channels = new HashMap<>();
+
+  @Autowired
+  public InMemoryCoordinationBackend() {
+    this(Clock.systemUTC());
+  }
+
+  public InMemoryCoordinationBackend(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public synchronized void heartbeat(String memberId, Duration ttl) {
+    members.put(memberId, clock.millis() + ttl.toMillis());
+  }
+
+  @Override
+  public synchronized void leave(String memberId) {
+    members.remove(memberId);
+  }
+
+  @Override
+  public synchronized Set<String> liveMembers() {
+    long now = clock.millis();
+    members.values().removeIf(expiresAt -> expiresAt <= now);
+    return new HashSet<>(members.keySet());
+  }
+
+  @Override
+  public synchronized boolean tryAcquireLease(String resource, String memberId, Duration ttl) {
+    long now = clock.millis();
+    Lease lease = leases.get(resource);
+    if (lease != null && !lease.holder().equals(memberId) && lease.expiresAt() > now) {
+      return false;
+    }
+    leases.put(resource, new Lease(memberId, now + ttl.toMillis()));
+    return true;
+  }
+
+  @Override
+  public synchronized void releaseLease(String resource, String memberId) {
+    Lease lease = leases.get(resource);
+    if (lease != null && lease.holder().equals(memberId)) {
+      leases.remove(resource);
+    }
+  }
+
+  @Override
+  public synchronized void publish(String channel, String message) {
+    channels.computeIfAbsent(channel, k -> new ArrayDeque<>()).addLast(message);
+  }
+
+  @Override
+  public synchronized List<String> consume(String channel, int max) {
+    Deque<String> messages = channels.get(channel);
+    List<String> consumed = new ArrayList<>();
+    while (messages != null && !messages.isEmpty() && consumed.size() < max) {
+      consumed.add(messages.removeFirst());
+    }
+    return consumed;
+  }
+
+  private record Lease(String holder, long expiresAt) {
+
+  }
+}
@@ -0,0 +1,299 @@
+package com.nimbusrun.cluster;
+
+import com.nimbusrun.config.AutoscalerSettings;
+import com.nimbusrun.config.AutoscalerSettings.ClusterSettings;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link CoordinationBackend} backed by a database shared by all replicas, e.g. PostgreSQL. The
+ * tables are created on startup if they don't exist.
+ * <p>
+ * Leases are taken with a conditional {@code UPDATE} and fall back to an {@code INSERT} whose
+ * primary key violation means another replica got there first, so no locking beyond what the
+ * database does for single statements is needed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "autoscaler.cluster", name = "backend", havingValue = "jdbc")
+public class JdbcCoordinationBackend implements CoordinationBackend {
+
+  private static final List<String> SCHEMA = List.of("""
+          CREATE TABLE IF NOT EXISTS nimbus_run_members (
+            member_id VARCHAR(255) PRIMARY KEY,
+            expires_at BIGINT NOT NULL)""",
+      """
+          CREATE TABLE IF NOT EXISTS nimbus_run_leases (
+            resource VARCHAR(255) PRIMARY KEY,
+            holder VARCHAR(255) NOT NULL,
+            expires_at BIGINT NOT NULL)""",
+      """
+          CREATE TABLE IF NOT EXISTS nimbus_run_messages (
+            id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+            channel VARCHAR(255) NOT NULL,
+            created_at BIGINT NOT NULL,
+            payload TEXT NOT NULL)""");
+
+  private final String url;
+  private final String username;
+  private final String password;
+  private final Clock clock;
+  /**
+   * Guards the connection. A lock rather than a monitor so virtual threads waiting on the database
+   * don't pin their carrier.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  private Connection connection;
+
+  @Autowired
+  public JdbcCoordinationBackend(AutoscalerSettings autoscalerSettings) {
+    this(autoscalerSettings.getCluster(), Clock.systemUTC());
+  }
+
+  public JdbcCoordinationBackend(ClusterSettings settings, Clock clock) {
+    if (settings.getJdbcUrl() == null || settings.getJdbcUrl().isBlank()) {
+      throw new IllegalArgumentException(
+          "autoscaler.cluster.jdbcUrl is required when autoscaler.cluster.backend is jdbc");
+    }
+    this.url = settings.getJdbcUrl();
+    this.username = settings.getUsername();
+    this.password = settings.getPassword();
+    this.clock = clock;
+    execute(c -> {
+      try (Statement statement = c.createStatement()) {
+        for (String ddl : SCHEMA) {
+          statement.execute(ddl);
+        }
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public void heartbeat(String memberId, Duration ttl) {
+    long now = clock.millis();
+    execute(c -> {
+      upsert(c, "UPDATE nimbus_run_members SET expires_at = ? WHERE member_id = ?",
+          "INSERT INTO nimbus_run_members (member_id, expires_at) VALUES (?, ?)", memberId,
+          now + ttl.toMillis());
+      try (PreparedStatement delete = c.prepareStatement(
+          "DELETE FROM nimbus_run_members WHERE expires_at <= ?")) {
+        delete.setLong(1, now);
+        delete.executeUpdate();
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public void leave(String memberId) {
+    execute(c -> {
+      try (PreparedStatement delete = c.prepareStatement(
+          "DELETE FROM nimbus_run_members WHERE member_id = ?")) {
+        delete.setString(1, memberId);
+        delete.executeUpdate();
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public Set<String> liveMembers() {
+    return execute(c -> {
+      try (PreparedStatement select = c.prepareStatement(
+          "SELECT member_id FROM nimbus_run_members WHERE expires_at > ?")) {
+        select.setLong(1, clock.millis());
+        Set<String> members = new HashSet<>();
+        try (ResultSet rs = select.executeQuery()) {
+          while (rs.next()) {
+            members.add(rs.getString(1));
+          }
+        }
+        return members;
+      }
+    });
+  }
+
+  @Override
+  public boolean tryAcquireLease(String resource, String memberId, Duration ttl) {
+    long now = clock.millis();
+    return execute(c -> {
+      try (PreparedStatement update = c.prepareStatement("""
+          UPDATE nimbus_run_leases SET holder = ?, expires_at = ?
+          WHERE resource = ? AND (holder = ? OR expires_at <= ?)""")) {
+        update.setString(1, memberId);
+        update.setLong(2, now + ttl.toMillis());
+        update.setString(3, resource);
+        update.setString(4, memberId);
+        update.setLong(5, now);
+        if (update.executeUpdate() > 0) {
+          return true;
+        }
+      }
+      try (PreparedStatement insert = c.prepareStatement(
+          "INSERT INTO nimbus_run_leases (resource, holder, expires_at) VALUES (?, ?, ?)")) {
+        insert.setString(1, resource);
+        insert.setString(2, memberId);
+        insert.setLong(3, now + ttl.toMillis());
+        insert.executeUpdate();
+        return true;
+      } catch (SQLException e) {
+        if (isUniqueViolation(e)) {
+          return false;
+        }
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public void releaseLease(String resource, String memberId) {
+    execute(c -> {
+      try (PreparedStatement delete = c.prepareStatement(
+          "DELETE FROM nimbus_run_leases WHERE resource = ? AND holder = ?")) {
+        delete.setString(1, resource);
+        delete.setString(2, memberId);
+        delete.executeUpdate();
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public void publish(String channel, String message) {
+    execute(c -> {
+      try (PreparedStatement insert = c.prepareStatement(
+          "INSERT INTO nimbus_run_messages (channel, created_at, payload) VALUES (?, ?, ?)")) {
+        insert.setString(1, channel);
+        insert.setLong(2, clock.millis());
+        insert.setString(3, message);
+        insert.executeUpdate();
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Messages are handed out in the order the database assigned their ids, which the clocks of the
+   * replicas can't disturb. Each message is deleted before it is returned, so when several replicas consume the same
+   * channel, e.g. right after a failover, every message is still handed to only one of them.
+   */
+  @Override
+  public List<String> consume(String channel, int max) {
+    return execute(c -> {
+      List<Map.Entry<Long, String>> candidates = new ArrayList<>();
+      try (PreparedStatement select = c.prepareStatement(
+          "SELECT id, payload FROM nimbus_run_messages WHERE channel = ? ORDER BY id")) {
+        select.setString(1, channel);
+        select.setMaxRows(max);
+        try (ResultSet rs = select.executeQuery()) {
+          while (rs.next()) {
+            candidates.add(Map.entry(rs.getLong(1), rs.getString(2)));
+          }
+        }
+      }
+      List<String> consumed = new ArrayList<>();
+      try (PreparedStatement delete = c.prepareStatement(
+          "DELETE FROM nimbus_run_messages WHERE id = ?")) {
+        for (Map.Entry<Long, String> candidate : candidates) {
+          delete.setLong(1, candidate.getKey());
+          if (delete.executeUpdate() > 0) {
+            consumed.add(candidate.getValue());
+          }
+        }
+      }
+      return consumed;
+    });
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closeConnection();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void upsert(Connection c, String updateSql, String insertSql, String key, long value)
+      throws SQLException {
+    try (PreparedStatement update = c.prepareStatement(updateSql)) {
+      update.setLong(1, value);
+      update.setString(2, key);
+      if (update.executeUpdate() > 0) {
+        return;
+      }
+    }
+    try (PreparedStatement insert = c.prepareStatement(insertSql)) {
+      insert.setString(1, key);
+      insert.setLong(2, value);
+      insert.executeUpdate();
+    } catch (SQLException e) {
+      if (!isUniqueViolation(e)) {
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * SQLState class 23 is an integrity constraint violation in both PostgreSQL and H2.
+   */
+  private static boolean isUniqueViolation(SQLException e) {
+    return e.getSQLState() != null && e.getSQLState().startsWith("23");
+  }
+
+  /**
+   * Runs the work on the shared connection, opening a new one if there is none. A failed connection
+   * is dropped so the next call reconnects.
+   */
+  private <T> T execute(SqlWork<T> work) {
+    lock.lock();
+    try {
+      if (connection == null || connection.isClosed()) {
+        connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(true);
+      }
+      return work.run(connection);
+    } catch (SQLException e) {
+      closeConnection();
+      throw new IllegalStateException("Coordination backend call failed: " + e.getMessage(), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void closeConnection() {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      log.debug("Failed to close coordination backend connection", e);
+    }
+    connection = null;
+  }
+
+  @FunctionalInterface
+  private interface SqlWork<T> {
+
+    T run(Connection connection) throws SQLException;
+  }
+}
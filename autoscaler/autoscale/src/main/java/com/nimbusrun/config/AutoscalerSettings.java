@@ -0,0 +1,220 @@
+package com.nimbusrun.config;
+
+import com.nimbusrun.queue.OverflowPolicy;
+import java.nio.file.Path;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning knobs for the {@link com.nimbusrun.autoscaler.autoscaler.Autoscaler}. Read from the
+ * {@code autoscaler} section of the configuration file. Every value has a default so the section
+ * can be omitted entirely.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "autoscaler")
+public class AutoscalerSettings {
+
+  public static final int DEFAULT_ACTION_POOL_QUEUE_CAPACITY = 1000;
+  public static final int DEFAULT_MAX_CONCURRENT_CREATES_PER_POOL = 5;
+  public static final int DEFAULT_WEBHOOK_QUEUE_CAPACITY = 10_000;
+  public static final int DEFAULT_JOB_WATCHER_QUEUE_CAPACITY = 10_000;
+  public static final int DEFAULT_RETRY_QUEUE_CAPACITY = 1000;
+  public static final int DEFAULT_DELAYED_RETRY_QUEUE_CAPACITY = 10_000;
+  public static final long DEFAULT_UPSCALE_BATCH_WINDOW_IN_MILLI = 100;
+  public static final int DEFAULT_MAX_UPSCALE_BATCH_SIZE = 50;
+  public static final int DEFAULT_MAX_CONCURRENT_COMPUTE_CALLS = 64;
+  public static final int DEFAULT_FORECAST_BUCKET_IN_MINUTES = 15;
+  public static final String DEFAULT_STATE_STORE_DIRECTORY = Path.of(
+      System.getProperty("java.io.tmpdir"), "nimbus-run", "state").toString();
+  public static final int DEFAULT_SNAPSHOT_INTERVAL_IN_SECONDS = 60;
+  public static final int DEFAULT_FORECAST_LEAD_TIME_IN_MINUTES = 5;
+  public static final double DEFAULT_FORECAST_SMOOTHING = 0.3;
+  public static final int DEFAULT_LEASE_TTL_IN_SECONDS = 15;
+  public static final int DEFAULT_HEARTBEAT_INTERVAL_IN_SECONDS = 5;
+  public static final long DEFAULT_FORWARD_POLL_INTERVAL_IN_MILLI = 500;
+  public static final int DEFAULT_IMAGE_BAKE_INTERVAL_IN_HOURS = 24;
+  public static final int DEFAULT_IMAGE_BAKE_TIMEOUT_IN_MINUTES = 60;
+  public static final int DEFAULT_RETAINED_BAKED_IMAGES = 2;
+
+  /**
+   * Max number of upscale requests that can wait in a single action pool's lane. Requests offered
+   * to a full lane are dropped and picked up again by the retry policy.
+   */
+  private int actionPoolQueueCapacity = DEFAULT_ACTION_POOL_QUEUE_CAPACITY;
+
+  /**
+   * What a full action pool lane drops.
+   */
+  private OverflowPolicy actionPoolQueueOverflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+  /**
+   * Workflow job and workflow run events waiting to be handed to the receivers.
+   */
+  private QueueSettings webhookQueue = new QueueSettings(DEFAULT_WEBHOOK_QUEUE_CAPACITY,
+      OverflowPolicy.SHED_DUPLICATES);
+
+  /**
+   * Workflow job events waiting to be tracked by the retry service.
+   */
+  private QueueSettings jobWatcherQueue = new QueueSettings(DEFAULT_JOB_WATCHER_QUEUE_CAPACITY,
+      OverflowPolicy.SHED_DUPLICATES);
+
+  /**
+   * Retried jobs waiting for GitHub to confirm they are still queued.
+   */
+  private QueueSettings retryQueue = new QueueSettings(DEFAULT_RETRY_QUEUE_CAPACITY,
+      OverflowPolicy.SHED_DUPLICATES);
+
+  /**
+   * Max number of upscale requests waiting for their back-off to expire. Requests beyond this are
+   * dropped and left to the retry policy.
+   */
+  private int delayedRetryQueueCapacity = DEFAULT_DELAYED_RETRY_QUEUE_CAPACITY;
+
+  /**
+   * Max number of in-flight create calls per action pool.
+   */
+  private int maxConcurrentCreatesPerPool = DEFAULT_MAX_CONCURRENT_CREATES_PER_POOL;
+
+  /**
+   * Max number of create and delete calls against the compute provider that are waiting for the
+   * provider to accept them, across all action pools. Waiting for instances to boot or terminate
+   * doesn't hold a call.
+   */
+  private int maxConcurrentComputeCalls = DEFAULT_MAX_CONCURRENT_COMPUTE_CALLS;
+
+  /**
+   * How long a lane keeps collecting upscale requests for its pool after the first one arrives.
+   * Everything collected is created with a single provider call. {@code 0} only merges requests
+   * that are already waiting.
+   */
+  private long upscaleBatchWindowInMilli = DEFAULT_UPSCALE_BATCH_WINDOW_IN_MILLI;
+
+  /**
+   * Max number of instances created by a single provider call.
+   */
+  private int maxUpscaleBatchSize = DEFAULT_MAX_UPSCALE_BATCH_SIZE;
+
+  /**
+   * Provision standby runners ahead of the demand forecast from past weeks' job arrivals.
+   */
+  private boolean predictiveScaling = false;
+
+  /**
+   * Size of the time of week buckets job arrivals are counted in.
+   */
+  private int forecastBucketInMinutes = DEFAULT_FORECAST_BUCKET_IN_MINUTES;
+
+  /**
+   * How far ahead to provision for the forecast. Should cover instance boot and runner startup.
+   */
+  private int forecastLeadTimeInMinutes = DEFAULT_FORECAST_LEAD_TIME_IN_MINUTES;
+
+  /**
+   * Weight of the latest week in the forecast, between 0 and 1.
+   */
+  private double forecastSmoothing = DEFAULT_FORECAST_SMOOTHING;
+
+  /**
+   * Where state that must survive a restart is kept.
+   */
+  private StateStoreSettings stateStore = new StateStoreSettings();
+
+  /**
+   * How replicas share the action pools between them.
+   */
+  private ClusterSettings cluster = new ClusterSettings();
+
+  /**
+   * How action pools that opt in get their images baked.
+   */
+  private ImageBakingSettings imageBaking = new ImageBakingSettings();
+
+  /**
+   * Capacity and overflow policy of a stage of the webhook → upscale pipeline.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class QueueSettings {
+
+    private int capacity;
+    private OverflowPolicy overflowPolicy;
+  }
+
+  /**
+   * Settings of the {@link com.nimbusrun.state.StateStore}.
+   */
+  @Data
+  public static class StateStoreSettings {
+
+    /**
+     * {@code journal} keeps state on a local volume, {@code memory} loses it on restart.
+     */
+    private String type = "journal";
+    /**
+     * Directory of the journal and snapshots. Mount a persistent volume here.
+     */
+    private String directory = DEFAULT_STATE_STORE_DIRECTORY;
+    private int snapshotIntervalInSeconds = DEFAULT_SNAPSHOT_INTERVAL_IN_SECONDS;
+  }
+
+  /**
+   * Settings of the {@link com.nimbusrun.cluster.ClusterCoordinator}.
+   */
+  @Data
+  public static class ClusterSettings {
+
+    /**
+     * When disabled this replica manages every action pool.
+     */
+    private boolean enabled = false;
+    /**
+     * {@code memory} only coordinates replicas of the same process, {@code jdbc} coordinates through
+     * a shared database.
+     */
+    private String backend = "memory";
+    /**
+     * Defaults to the host name plus a random suffix.
+     */
+    private String memberId;
+    private int leaseTtlInSeconds = DEFAULT_LEASE_TTL_IN_SECONDS;
+    private int heartbeatIntervalInSeconds = DEFAULT_HEARTBEAT_INTERVAL_IN_SECONDS;
+    /**
+     * How often the webhook events forwarded to this replica's action pools are picked up.
+     */
+    private long forwardPollIntervalInMilli = DEFAULT_FORWARD_POLL_INTERVAL_IN_MILLI;
+    private String jdbcUrl;
+    private String username;
+    private String password;
+  }
+
+  /**
+   * Settings of the {@link com.nimbusrun.bake.ImageBaker}. Action pools opt in with
+   * {@code imageBaking.enabled} in their compute configuration.
+   */
+  @Data
+  public static class ImageBakingSettings {
+
+    /**
+     * When disabled no images are baked and pools boot their configured or latest image.
+     */
+    private boolean enabled = false;
+    /**
+     * Age of a pool's newest baked image after which a new one is baked.
+     */
+    private int intervalInHours = DEFAULT_IMAGE_BAKE_INTERVAL_IN_HOURS;
+    /**
+     * Builders that haven't finished within this time fail the bake.
+     */
+    private int timeoutInMinutes = DEFAULT_IMAGE_BAKE_TIMEOUT_IN_MINUTES;
+    /**
+     * Baked images kept per pool, including the one in use. Older ones are deleted.
+     */
+    private int retainedImages = DEFAULT_RETAINED_BAKED_IMAGES;
+  }
+}
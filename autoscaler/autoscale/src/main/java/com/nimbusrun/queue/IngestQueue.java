@@ -0,0 +1,167 @@
+package com.nimbusrun.queue;
+
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import io.micrometer.core.instrument.Tag;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.Getter;
+
+/**
+ * Bounded queue between two stages of the webhook → upscale pipeline.
+ * <p>
+ * When the queue is full the {@link OverflowPolicy} decides what is dropped. Depth, enqueued and
+ * dropped items and the time items spend in the queue are exported per stage through
+ * {@link MetricsContainer}.
+ *
+ * @param <T> queued item
+ */
+public class IngestQueue<T> {
+
+  @Getter
+  private final String stage;
+  @Getter
+  private final int capacity;
+  private final OverflowPolicy overflowPolicy;
+  private final Function<T, ?> key;
+  private final MetricsContainer metricsContainer;
+  private final List<Tag> tags;
+  private final LinkedBlockingDeque<Entry<T>> entries;
+
+  /**
+   * @param stage            name of the pipeline stage, used as the {@code stage} tag
+   * @param capacity         max number of queued items
+   * @param overflowPolicy   what to drop when the queue is full
+   * @param key              identifies duplicates for {@link OverflowPolicy#SHED_DUPLICATES}
+   * @param metricsContainer where to export metrics, may be {@code null}
+   * @param tags             additional tags of the metrics
+   */
+  public IngestQueue(String stage, int capacity, OverflowPolicy overflowPolicy,
+      Function<T, ?> key, MetricsContainer metricsContainer, List<Tag> tags) {
+    this.stage = stage;
+    this.capacity = Math.max(1, capacity);
+    this.overflowPolicy = Objects.requireNonNullElse(overflowPolicy, OverflowPolicy.DROP_NEWEST);
+    this.key = key;
+    this.metricsContainer = metricsContainer;
+    this.tags = List.copyOf(tags);
+    this.entries = new LinkedBlockingDeque<>(this.capacity);
+    if (metricsContainer != null) {
+      metricsContainer.queueDepth(stage, this.tags, this.entries::size);
+    }
+  }
+
+  public IngestQueue(String stage, int capacity, OverflowPolicy overflowPolicy,
+      Function<T, ?> key, MetricsContainer metricsContainer) {
+    this(stage, capacity, overflowPolicy, key, metricsContainer, List.of());
+  }
+
+  /**
+   * Never blocks. If the queue is full the overflow policy applies.
+   *
+   * @return {@code false} if the item was dropped
+   */
+  public boolean offer(T item) {
+    Entry<T> entry = new Entry<>(item, System.nanoTime());
+    String dropReason = null;
+    synchronized (this) {
+      if (!entries.offerLast(entry)) {
+        dropReason = makeRoom(item);
+        if (dropReason == null && !entries.offerLast(entry)) {
+          dropReason = "full";
+        }
+      }
+    }
+    if (dropReason != null) {
+      dropped(dropReason);
+      return false;
+    }
+    if (metricsContainer != null) {
+      metricsContainer.queueEnqueued(stage, tags);
+    }
+    return true;
+  }
+
+  /**
+   * @return the next item, {@code null} if none arrived before the timeout
+   */
+  public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return taken(entries.poll(timeout, unit));
+  }
+
+  /**
+   * @return the next item, {@code null} if the queue is empty
+   */
+  public T poll() {
+    return taken(entries.poll());
+  }
+
+  public T take() throws InterruptedException {
+    return taken(entries.take());
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return {@code null} if there is room now, otherwise why the offered item is dropped
+   */
+  private String makeRoom(T item) {
+    switch (overflowPolicy) {
+      case DROP_OLDEST -> {
+        if (entries.pollFirst() != null) {
+          dropped("oldest");
+        }
+        return null;
+      }
+      case SHED_DUPLICATES -> {
+        Object itemKey = key.apply(item);
+        Set<Object> keys = new HashSet<>();
+        Entry<T> duplicate = null;
+        for (Entry<T> queued : entries) {
+          Object queuedKey = key.apply(queued.item());
+          if (Objects.equals(itemKey, queuedKey)) {
+            return "duplicate";
+          }
+          if (!keys.add(queuedKey) && duplicate == null) {
+            duplicate = queued;
+          }
+        }
+        if (duplicate != null && entries.removeFirstOccurrence(duplicate)) {
+          dropped("duplicate");
+          return null;
+        }
+        return "full";
+      }
+      default -> {
+        return "full";
+      }
+    }
+  }
+
+  private T taken(Entry<T> entry) {
+    if (entry == null) {
+      return null;
+    }
+    if (metricsContainer != null) {
+      metricsContainer.queueWaitTime(stage, tags,
+          Duration.ofNanos(System.nanoTime() - entry.enqueuedAt()));
+    }
+    return entry.item();
+  }
+
+  private void dropped(String reason) {
+    if (metricsContainer != null) {
+      metricsContainer.queueDropped(stage, tags, reason);
+    }
+  }
+
+  private record Entry<T>(T item, long enqueuedAt) {
+
+  }
+}
@@ -0,0 +1,21 @@
+package com.nimbusrun.queue;
+
+/**
+ * What an {@link IngestQueue} does with an item offered while it is full.
+ */
+public enum OverflowPolicy {
+  /**
+   * Reject the offered item.
+   */
+  DROP_NEWEST,
+  /**
+   * Evict the item that has been waiting the longest to make room.
+   */
+  DROP_OLDEST,
+  /**
+   * Reject the offered item if an item with the same key is already queued. Otherwise evict a
+   * queued item whose key is queued more than once, and reject the offered item if there is none.
+   * Redeliveries of the same event are shed before anything else.
+   */
+  SHED_DUPLICATES
+}
@@ -0,0 +1,39 @@
+package com.nimbusrun.state;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link StateStore} that only lives as long as the process. State is lost on restart.
+ */
+@Component
+@ConditionalOnProperty(prefix = "autoscaler.state-store", name = "type", havingValue = "memory")
+public class InMemoryStateStore implements StateStore {
+
+  private final Map<String, Map<String, StateEntry>> namespaces = new ConcurrentHashMap<>();
+
+  @Override
+  public void put(String namespace, String key, String value) {
+    namespaces.computeIfAbsent(namespace, k -> new ConcurrentHashMap<>())
+        .put(key, new StateEntry(value, System.currentTimeMillis()));
+  }
+
+  @Override
+  public void remove(String namespace, String key) {
+    Map<String, StateEntry> entries = namespaces.get(namespace);
+    if (entries != null) {
+      entries.remove(key);
+    }
+  }
+
+  @Override
+  public Map<String, StateEntry> load(String namespace) {
+    return Map.copyOf(namespaces.getOrDefault(namespace, Map.of()));
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,261 @@
+package com.nimbusrun.state;
+
+import com.nimbusrun.config.AutoscalerSettings;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link StateStore} kept on a local volume as an append-only journal plus periodic snapshots.
+ * <p>
+ * Every write is appended to {@value #JOURNAL_FILE} and applied to an in-memory copy of the state.
+ * Every {@code snapshotInterval} the in-memory copy is written to {@value #SNAPSHOT_FILE} and the
+ * journal is truncated. Opening the store loads the snapshot and replays the journal on top of it.
+ * A partially written last journal line, left by a crash, is ignored and closed off so later
+ * entries start on a line of their own.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "autoscaler.state-store", name = "type", havingValue = "journal",
+    matchIfMissing = true)
+public class JournalStateStore implements StateStore {
+
+  public static final String JOURNAL_FILE = "journal.log";
+  public static final String SNAPSHOT_FILE = "snapshot.json";
+  private static final String OPERATION = "o";
+  private static final String PUT = "p";
+  private static final String REMOVE = "r";
+  private static final String NAMESPACE = "n";
+  private static final String KEY = "k";
+  private static final String VALUE = "v";
+  private static final String WRITTEN_AT = "t";
+
+  private final Path directory;
+  private final Path journalFile;
+  private final Path snapshotFile;
+  private final Map<String, Map<String, StateEntry>> namespaces = new HashMap<>();
+  /**
+   * Guards the journal and the in-memory copy. A lock rather than a monitor so virtual threads
+   * writing to the journal don't pin their carrier.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ScheduledExecutorService snapshots;
+  private BufferedWriter journal;
+  private boolean closed;
+
+  @Autowired
+  public JournalStateStore(AutoscalerSettings autoscalerSettings) {
+    this(Path.of(autoscalerSettings.getStateStore().getDirectory()),
+        Duration.ofSeconds(Math.max(1,
+            autoscalerSettings.getStateStore().getSnapshotIntervalInSeconds())));
+  }
+
+  public JournalStateStore(Path directory, Duration snapshotInterval) {
+    this.directory = directory;
+    this.journalFile = directory.resolve(JOURNAL_FILE);
+    this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+    try {
+      Files.createDirectories(directory);
+      long start = System.currentTimeMillis();
+      int replayed = restore();
+      log.info("Restored autoscaler state from {} in {}ms, {} journal entries replayed", directory,
+          System.currentTimeMillis() - start, replayed);
+      this.journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      if (endsWithTornLine()) {
+        // keeps the next entry off the ignored line
+        journal.newLine();
+        journal.flush();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "Failed to open autoscaler state store at %s".formatted(directory), e);
+    }
+    this.snapshots = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name("state-store-snapshot-", 0).factory());
+    this.snapshots.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval.toMillis(),
+        snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void put(String namespace, String key, String value) {
+    StateEntry entry = new StateEntry(value, System.currentTimeMillis());
+    append(new JSONObject().put(OPERATION, PUT).put(NAMESPACE, namespace).put(KEY, key)
+        .put(VALUE, value).put(WRITTEN_AT, entry.writtenAtMillis()), () ->
+        namespaces.computeIfAbsent(namespace, k -> new HashMap<>()).put(key, entry));
+  }
+
+  @Override
+  public void remove(String namespace, String key) {
+    append(new JSONObject().put(OPERATION, REMOVE).put(NAMESPACE, namespace).put(KEY, key), () -> {
+      Map<String, StateEntry> entries = namespaces.get(namespace);
+      if (entries != null) {
+        entries.remove(key);
+      }
+    });
+  }
+
+  @Override
+  public Map<String, StateEntry> load(String namespace) {
+    lock.lock();
+    try {
+      return Map.copyOf(namespaces.getOrDefault(namespace, Map.of()));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes the current state to {@value #SNAPSHOT_FILE} and truncates the journal.
+   */
+  public void snapshot() throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      JSONObject state = new JSONObject();
+      namespaces.forEach((namespace, entries) -> {
+        JSONObject json = new JSONObject();
+        entries.forEach((key, entry) -> json.put(key,
+            new JSONObject().put(VALUE, entry.value()).put(WRITTEN_AT, entry.writtenAtMillis())));
+        state.put(namespace, json);
+      });
+      Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+      Files.writeString(tmp, state.toString(), StandardCharsets.UTF_8);
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      }
+      Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      journal.close();
+      journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Takes a last snapshot. Called by Spring on shutdown.
+   */
+  @Override
+  public void close() {
+    snapshots.shutdownNow();
+    snapshotQuietly();
+    lock.lock();
+    try {
+      closed = true;
+      journal.close();
+    } catch (IOException e) {
+      log.error("Failed to close autoscaler state journal", e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void append(JSONObject record, Runnable apply) {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      apply.run();
+      journal.write(record.toString());
+      journal.newLine();
+      journal.flush();
+    } catch (IOException e) {
+      log.error("Failed to write to autoscaler state journal {}", journalFile, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (Exception e) {
+      log.error("Failed to snapshot autoscaler state to {}", snapshotFile, e);
+    }
+  }
+
+  /**
+   * @return number of journal entries replayed on top of the snapshot
+   */
+  private int restore() throws IOException {
+    if (Files.exists(snapshotFile)) {
+      JSONObject state = new JSONObject(Files.readString(snapshotFile, StandardCharsets.UTF_8));
+      for (String namespace : state.keySet()) {
+        JSONObject json = state.getJSONObject(namespace);
+        Map<String, StateEntry> entries = namespaces.computeIfAbsent(namespace,
+            k -> new HashMap<>());
+        for (String key : json.keySet()) {
+          JSONObject entry = json.getJSONObject(key);
+          entries.put(key, new StateEntry(entry.getString(VALUE), entry.getLong(WRITTEN_AT)));
+        }
+      }
+    }
+    int replayed = 0;
+    if (Files.exists(journalFile)) {
+      try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.isBlank()) {
+            continue;
+          }
+          try {
+            replay(new JSONObject(line));
+            replayed++;
+          } catch (JSONException e) {
+            log.warn("Ignoring corrupt autoscaler state journal entry: {}", line);
+          }
+        }
+      }
+    }
+    return replayed;
+  }
+
+  private boolean endsWithTornLine() throws IOException {
+    try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+      if (channel.size() == 0) {
+        return false;
+      }
+      ByteBuffer last = ByteBuffer.allocate(1);
+      channel.read(last, channel.size() - 1);
+      return last.get(0) != '\n';
+    }
+  }
+
+  private void replay(JSONObject record) {
+    String namespace = record.getString(NAMESPACE);
+    String key = record.getString(KEY);
+    Map<String, StateEntry> entries = namespaces.computeIfAbsent(namespace, k -> new HashMap<>());
+    if (PUT.equals(record.getString(OPERATION))) {
+      entries.put(key, new StateEntry(record.getString(VALUE), record.getLong(WRITTEN_AT)));
+    } else {
+      entries.remove(key);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.nimbusrun.state;
+
+import java.util.Map;
+
+/**
+ * Durable key/value store for autoscaler state that must survive a restart, such as which jobs
+ * were already upscaled and the delete counters.
+ * <p>
+ * Keys are grouped in namespaces, one per kind of state. Writes are expected to be small and
+ * frequent, reads only happen at startup through {@link #load(String)}.
+ */
+public interface StateStore extends AutoCloseable {
+
+  void put(String namespace, String key, String value);
+
+  void remove(String namespace, String key);
+
+  /**
+   * @return every entry of the namespace, empty if there is none
+   */
+  Map<String, StateEntry> load(String namespace);
+
+  @Override
+  void close();
+
+  /**
+   * @param value           stored value
+   * @param writtenAtMillis when the value was written
+   */
+  record StateEntry(String value, long writtenAtMillis) {
+
+  }
+}
@@ -1,8 +1,8 @@
 package com.nimbusrun.webhook;
 
 import com.nimbusrun.github.WebhookVerifier;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -20,30 +20,29 @@ import org.springframework.web.bind.annotation.RestController;
 public class WebhookController {
 
   private final WebhookObservable webhookObservable;
-  private final String webhookSecret;
+  private final WebhookVerifier webhookVerifier;
 
   public WebhookController(WebhookObservable webhookObservable,
       @Value("${github.webhookSecret:#{null}}") String webhookSecret) {
-    this.webhookSecret = webhookSecret;
+    this.webhookVerifier = webhookSecret == null ? null : new WebhookVerifier(webhookSecret);
     this.webhookObservable = webhookObservable;
   }
 
 
+  /**
+   * Takes the body as raw bytes: the signature is verified over them before anything is parsed,
+   * and {@link WebhookPayload} reads the event from them in one pass.
+   */
   @PostMapping()
-  public ResponseEntity<Object> webhook(@RequestBody String payload,
+  public ResponseEntity<Object> webhook(@RequestBody byte[] payload,
       @RequestHeader(value = WebhookVerifier.SECRET_HEADER, required = false) String signature) {
     try {
-      log.debug("Recieved: \n" + payload.replace("\n", "\n\t"));
-      JSONObject json = new JSONObject(payload);
-
-      if (webhookSecret != null && !WebhookVerifier.verifySignature(payload.getBytes(),
-          webhookSecret, signature)) {
-        log.debug("Failed to verified webhook " + payload);
-        return new ResponseEntity<>(HttpStatusCode.valueOf(201));
+      if (log.isDebugEnabled()) {
+        log.debug("Recieved: \n" + new String(payload, StandardCharsets.UTF_8)
+            .replace("\n", "\n\t"));
       }
-      if (!json.has("workflow_job") && !json.has("workflow_run")) {
-        log.debug("Doesn't have workflow_(job|run) " + payload);
-
+      if (webhookVerifier != null && !webhookVerifier.verify(payload, signature)) {
+        log.debug("Failed to verified webhook");
         return new ResponseEntity<>(HttpStatusCode.valueOf(201));
       }
       webhookObservable.receive(payload);
@@ -1,15 +1,17 @@
 package com.nimbusrun.webhook;
 
 import com.nimbusrun.Utils;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import com.nimbusrun.config.AutoscalerSettings;
+import com.nimbusrun.config.AutoscalerSettings.QueueSettings;
 import com.nimbusrun.github.GithubActionJob;
 import com.nimbusrun.github.GithubActionRun;
-import java.util.concurrent.BlockingDeque;
+import com.nimbusrun.queue.IngestQueue;
+import jakarta.annotation.PreDestroy;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
@@ -17,13 +19,23 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class WebhookObservable {
 
-  private final BlockingDeque<GithubActionJob> githubActionJobs = new LinkedBlockingDeque<>();
-  private final BlockingDeque<GithubActionRun> githubActionRuns = new LinkedBlockingDeque<>();
+  private final IngestQueue<GithubActionJob> githubActionJobs;
+  private final IngestQueue<GithubActionRun> githubActionRuns;
   private final ApplicationContext context;
-  private final ExecutorService webhookProcessors = Executors.newFixedThreadPool(2);
+  private final ExecutorService webhookProcessors = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("webhook-processor-", 0).factory());
 
-  public WebhookObservable(ApplicationContext context) {
+  public WebhookObservable(ApplicationContext context, AutoscalerSettings autoscalerSettings,
+      MetricsContainer metricsContainer) {
     this.context = context;
+    QueueSettings queueSettings = autoscalerSettings.getWebhookQueue();
+    // A redelivered event has the same id and action as the original
+    this.githubActionJobs = new IngestQueue<>("webhook_workflow_job", queueSettings.getCapacity(),
+        queueSettings.getOverflowPolicy(), gj -> gj.getId() + ":" + gj.getAction(),
+        metricsContainer);
+    this.githubActionRuns = new IngestQueue<>("webhook_workflow_run", queueSettings.getCapacity(),
+        queueSettings.getOverflowPolicy(), gr -> gr.getId() + ":" + gr.getAction(),
+        metricsContainer);
     webhookProcessors.execute(this::processGithubJobs);
     webhookProcessors.execute(this::processGithubRuns);
   }
@@ -44,6 +56,9 @@ public class WebhookObservable {
             }
           }
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       } catch (Exception e) {
         log.error("Failed to to send github job payload to all receivers");
       }
@@ -65,30 +80,39 @@ public class WebhookObservable {
             }
           }
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
       } catch (Exception e) {
         log.error("Failed to to send github run payload to all receivers");
       }
     }
   }
 
+  @PreDestroy
+  public void shutdown() {
+    webhookProcessors.shutdownNow();
+  }
+
   /**
    * Pass off the load to a list for later processing so that the http connection with github can be
    * closed as soon as possible
    *
-   * @param message
+   * @param payload the webhook's body, see {@link WebhookPayload}
    */
-  public void receive(String message) {
+  public void receive(byte[] payload) {
     try {
-      // Parse the message as JSON
-      JSONObject json = new JSONObject(message);
-
-      // Check if this is a workflow job or workflow run event
-      if (json.has("workflow_job")) {
-        githubActionJobs.offer(GithubActionJob.fromJson(json));
-      } else if (json.has("workflow_run")) {
-        githubActionRuns.offer(GithubActionRun.fromJson(json));
+      WebhookPayload webhook = WebhookPayload.parse(payload);
+      if (webhook.job() != null) {
+        if (!githubActionJobs.offer(webhook.job())) {
+          log.warn("Webhook queue is full. Dropped workflow job event");
+        }
+      } else if (webhook.run() != null) {
+        if (!githubActionRuns.offer(webhook.run())) {
+          log.warn("Webhook queue is full. Dropped workflow run event");
+        }
       } else {
-        log.warn("Received message is not a workflow job or workflow run event");
+        log.debug("Received message is not a workflow job or workflow run event");
       }
     } catch (Exception e) {
       Utils.excessiveErrorLog("Error processing message", e, log);
@@ -0,0 +1,169 @@
+package com.nimbusrun.webhook;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.nimbusrun.github.GithubActionJob;
+import com.nimbusrun.github.GithubActionJob.GithubActionJobBuilder;
+import com.nimbusrun.github.GithubActionRun;
+import com.nimbusrun.github.GithubActionRun.GithubActionRunBuilder;
+import com.nimbusrun.github.WorkflowJobAction;
+import com.nimbusrun.github.WorkflowRunAction;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code workflow_job} or {@code workflow_run} event of a webhook, read straight from the
+ * request body.
+ * <p>
+ * The body is read in a single pass with Jackson's streaming parser, which pulls out only the
+ * fields NimbusRun uses and skips everything else, e.g. the steps of a job or the commit of a run,
+ * without building a JSON tree. The raw body is kept as the event's JSON.
+ *
+ * @param job the {@code workflow_job} event, {@code null} for other events
+ * @param run the {@code workflow_run} event, {@code null} for other events
+ */
+public record WebhookPayload(GithubActionJob job, GithubActionRun run) {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * @return neither a job nor a run if the webhook isn't a {@code workflow_job} or
+   * {@code workflow_run} event
+   */
+  public static WebhookPayload parse(byte[] body) throws IOException {
+    String action = null;
+    String repositoryFullName = null;
+    GithubActionJobBuilder job = null;
+    GithubActionRunBuilder run = null;
+    try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return new WebhookPayload(null, null);
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        switch (field) {
+          case "action" -> action = text(parser);
+          case "workflow_job" -> job = value == JsonToken.START_OBJECT ? readJob(parser) : null;
+          case "workflow_run" -> run = value == JsonToken.START_OBJECT ? readRun(parser) : null;
+          case "repository" -> repositoryFullName =
+              value == JsonToken.START_OBJECT ? readRepositoryFullName(parser) : null;
+          default -> parser.skipChildren();
+        }
+      }
+    }
+    String json = new String(body, StandardCharsets.UTF_8);
+    if (job != null) {
+      return new WebhookPayload(job.withAction(WorkflowJobAction.fromString(action))
+          .withRepositoryFullName(repositoryFullName)
+          .withJsonStr(json)
+          .build(), null);
+    }
+    if (run != null) {
+      return new WebhookPayload(null, run.withAction(WorkflowRunAction.fromString(action))
+          .withRepositoryFullName(repositoryFullName)
+          .withJsonStr(json)
+          .build());
+    }
+    return new WebhookPayload(null, null);
+  }
+
+  private static GithubActionJobBuilder readJob(JsonParser parser) throws IOException {
+    GithubActionJobBuilder job = GithubActionJobBuilder.aGithubActionJob()
+        .withNimbusRunLabels(List.of());
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "id" -> job.withId(text(parser));
+        case "run_id" -> job.withRunId(text(parser));
+        case "html_url" -> job.withHtmlUrl(text(parser));
+        case "name" -> job.withName(text(parser));
+        case "workflow_name" -> job.withWorkflowName(text(parser));
+        case "conclusion" -> job.withConclusion(text(parser));
+        case "started_at" -> job.withStartedAt(epochMilli(text(parser)));
+        case "completed_at" -> job.withCompletedAt(epochMilli(text(parser)));
+        case "run_url" -> job.withRunUrl(text(parser));
+        case "runner_name" -> job.withRunnerName(text(parser));
+        case "labels" -> {
+          if (value == JsonToken.START_ARRAY) {
+            List<String> labels = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              labels.add(text(parser));
+            }
+            job.withNimbusRunLabels(labels);
+          } else {
+            parser.skipChildren();
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    return job;
+  }
+
+  private static GithubActionRunBuilder readRun(JsonParser parser) throws IOException {
+    GithubActionRunBuilder run = GithubActionRunBuilder.aGithubActionRun();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field) {
+        case "id" -> run.withId(text(parser));
+        case "run_number" -> run.withRunNumber(text(parser));
+        case "name" -> run.withName(text(parser));
+        case "event" -> run.withEvent(text(parser));
+        case "conclusion" -> run.withConclusion(text(parser));
+        case "created_at" -> run.withCreatedAt(epochMilli(text(parser)));
+        case "updated_at" -> run.withUpdatedAt(epochMilli(text(parser)));
+        case "html_url" -> {
+          String htmlUrl = text(parser);
+          run.withHtmlUrl(htmlUrl).withRunHtmlUrl(htmlUrl);
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    return run;
+  }
+
+  private static String readRepositoryFullName(JsonParser parser) throws IOException {
+    String fullName = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      if ("full_name".equals(field)) {
+        fullName = text(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return fullName;
+  }
+
+  /**
+   * @return the scalar the parser is on as text, {@code null} for JSON null, objects and arrays
+   */
+  private static String text(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return null;
+    }
+    return token == JsonToken.VALUE_NULL ? null : parser.getText();
+  }
+
+  private static Long epochMilli(String timestamp) {
+    if (timestamp == null) {
+      return null;
+    }
+    try {
+      return Instant.parse(timestamp).toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
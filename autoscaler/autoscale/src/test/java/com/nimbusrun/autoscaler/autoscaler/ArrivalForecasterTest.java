@@ -0,0 +1,47 @@
+package com.nimbusrun.autoscaler.autoscaler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ArrivalForecasterTest {
+
+  private static final String POOL = "one";
+  private static final Instant MONDAY_9AM = Instant.parse("2025-09-01T09:00:00Z");
+
+  @Test
+  public void forecastsSameTimeNextWeek() {
+    ArrivalForecaster forecaster = new ArrivalForecaster(Duration.ofMinutes(15), 0.5, null);
+    for (int i = 0; i < 4; i++) {
+      forecaster.record(POOL, MONDAY_9AM.plusSeconds(i));
+    }
+    forecaster.advance(POOL, MONDAY_9AM.plus(Duration.ofMinutes(15)));
+
+    Instant nextWeek = MONDAY_9AM.plus(Duration.ofDays(7));
+    Assertions.assertEquals(4, forecaster.forecast(POOL, nextWeek));
+    Assertions.assertEquals(0, forecaster.forecast(POOL, nextWeek.plus(Duration.ofMinutes(15))));
+  }
+
+  @Test
+  public void smoothsAcrossWeeks() {
+    List<double[]> closed = new ArrayList<>();
+    ArrivalForecaster forecaster = new ArrivalForecaster(Duration.ofMinutes(15), 0.5,
+        (pool, forecast, actual) -> closed.add(new double[]{forecast, actual}));
+    for (int i = 0; i < 4; i++) {
+      forecaster.record(POOL, MONDAY_9AM.plusSeconds(i));
+    }
+    Instant nextWeek = MONDAY_9AM.plus(Duration.ofDays(7));
+    forecaster.advance(POOL, nextWeek);
+    forecaster.record(POOL, nextWeek);
+    forecaster.record(POOL, nextWeek.plusSeconds(1));
+    forecaster.advance(POOL, nextWeek.plus(Duration.ofMinutes(15)));
+
+    Assertions.assertEquals(3, forecaster.forecast(POOL, nextWeek.plus(Duration.ofDays(7))));
+    double[] last = closed.get(closed.size() - 1);
+    Assertions.assertEquals(4, last[0]);
+    Assertions.assertEquals(2, last[1]);
+  }
+}
@@ -1,19 +1,29 @@
 package com.nimbusrun.autoscaler.autoscaler;
 
 import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import com.nimbusrun.cluster.ClusterCoordinator;
+import com.nimbusrun.cluster.InMemoryCoordinationBackend;
 import com.nimbusrun.compute.ListInstanceResponse.Instance;
+import com.nimbusrun.config.AutoscalerSettings;
 import com.nimbusrun.config.ConfigReader;
 import com.nimbusrun.github.GithubActionJob;
+import com.nimbusrun.state.InMemoryStateStore;
+import com.nimbusrun.state.JournalStateStore;
+import com.nimbusrun.state.StateStore;
 import io.micrometer.prometheusmetrics.PrometheusConfig;
 import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
@@ -26,6 +36,7 @@ public class AutoScalerTest {
   public static final String JOB_ID_TEMPLATE = "${JOB_ID}";
   public static final String RUNNER_GROUP = "prod";
   public static final String ACTION_POOL_1 = "one";
+  public static final String ACTION_POOL_2 = "two";
   public static final String ACTION_POOL_3 = "three";
 
 //  @Value("classpath:configs/config.yaml")
@@ -49,20 +60,46 @@ public class AutoScalerTest {
   @Value("classpath:workflow_jobs/queued_good_workflow_job.json")
   Resource queuedGoodWorkflowJob;
 
+  @Value("classpath:workflow_jobs/completed_workflow_job.json")
+  Resource completedWorkflowJob;
+
   public AutoScalerTest() throws Exception {
 
   }
 
 
   public Beans createAutoScaler() throws InterruptedException, IOException {
+    return createAutoScaler(new ComputeMock());
+  }
+
+  public Beans createAutoScaler(ComputeMock computeMock) throws InterruptedException, IOException {
+    AutoscalerSettings settings = new AutoscalerSettings();
+    settings.setUpscaleBatchWindowInMilli(0);
+    return createAutoScaler(computeMock, settings);
+  }
+
+  public Beans createAutoScaler(ComputeMock computeMock, AutoscalerSettings settings)
+      throws InterruptedException, IOException {
+    return createAutoScaler(computeMock, settings, nimbusRunConfig, true);
+  }
+
+  public Beans createAutoScaler(ComputeMock computeMock, AutoscalerSettings settings,
+      String config, boolean runnersBusy) throws InterruptedException, IOException {
+    return createAutoScaler(computeMock, settings, config, runnersBusy, new InMemoryStateStore());
+  }
+
+  public Beans createAutoScaler(ComputeMock computeMock, AutoscalerSettings settings,
+      String config, boolean runnersBusy, StateStore stateStore)
+      throws InterruptedException, IOException {
     Yaml yaml = new Yaml();
-    ComputeMock computeMock = new ComputeMock();
-    computeMock.receiveComputeConfigs(yaml.load(nimbusRunConfig), "BLAH");
+    computeMock.receiveComputeConfigs(yaml.load(config), "BLAH");
     ConfigReader configReader = Mockito.mock(ConfigReader.class);
     Mockito.when(configReader.getActionPoolMap()).thenReturn(computeMock.getActionPoolMap());
     GithubApiMock githubApiMock = new GithubApiMock(RUNNER_GROUP, computeMock);
+    githubApiMock.setRunnersBusy(runnersBusy);
     Autoscaler autoscaler =  new Autoscaler(computeMock, githubApiMock , configReader, new MetricsContainer(new PrometheusMeterRegistry(
-        PrometheusConfig.DEFAULT)), 5);
+        PrometheusConfig.DEFAULT)), settings, stateStore,
+        new ClusterCoordinator(settings, new InMemoryCoordinationBackend(), configReader), 5);
     return new Beans(autoscaler, computeMock, githubApiMock);
   }
 
@@ -94,6 +131,72 @@ public class AutoScalerTest {
     Assertions.assertEquals(0,
         mock.getInstanceMap().get(job.getActionPoolName().get()).getInstanceMap().size());
   }
+  @Test
+  public void upscaledJobsSurviveRestart(@TempDir Path stateDirectory)
+      throws IOException, InterruptedException {
+    AutoscalerSettings settings = new AutoscalerSettings();
+    settings.setUpscaleBatchWindowInMilli(0);
+    String labels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_3));
+    String payload = queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace(LABEL_TEMPLATE, labels);
+
+    JournalStateStore stateStore = new JournalStateStore(stateDirectory, Duration.ofMinutes(1));
+    Beans beans = createAutoScaler(new ComputeMock(), settings, nimbusRunConfig, true, stateStore);
+    beans.autoscaler().receive(GithubActionJob.fromJson(payload.replace(JOB_ID_TEMPLATE, "1")));
+    // persisted by the create callback
+    awaitTrue(() -> stateStore.load(Autoscaler.STATE_UPSCALED_JOBS).containsKey("1"));
+    Assertions.assertEquals(1, beans.computeMock().getInstanceMap().get(ACTION_POOL_3)
+        .getInstanceMap().size());
+    beans.autoscaler().shutdown();
+    stateStore.close();
+
+    JournalStateStore restored = new JournalStateStore(stateDirectory, Duration.ofMinutes(1));
+    ComputeMock restartedMock = new ComputeMock();
+    Beans restarted = createAutoScaler(restartedMock, settings, nimbusRunConfig, true, restored);
+    restarted.autoscaler().receive(GithubActionJob.fromJson(payload.replace(JOB_ID_TEMPLATE, "1")));
+    restarted.autoscaler().receive(GithubActionJob.fromJson(payload.replace(JOB_ID_TEMPLATE, "2")));
+    // the pool's lane handles job 1 before job 2, and only job 2 gets an instance
+    awaitTrue(() -> restored.load(Autoscaler.STATE_UPSCALED_JOBS).containsKey("2"));
+    Assertions.assertEquals(1, restartedMock.getInstanceMap().get(ACTION_POOL_3)
+        .getInstanceMap().size());
+    restarted.autoscaler().shutdown();
+    restored.close();
+  }
+
+  /**
+   * Polls {@code condition} for up to 5 seconds.
+   */
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!condition.getAsBoolean()) {
+      Assertions.assertTrue(System.nanoTime() < deadline, "Condition not met within 5 seconds");
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void completedJobDeletesInstance() throws IOException, InterruptedException {
+    Beans beans = createAutoScaler();
+    Autoscaler autoscaler = beans.autoscaler();
+    ComputeMock mock = beans.computeMock();
+    String labels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_1));
+    GithubActionJob job = GithubActionJob.fromJson(queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace(LABEL_TEMPLATE, labels)
+        .replace(JOB_ID_TEMPLATE, "1"));
+    autoscaler.receive(job);
+    Thread.sleep(50);
+    Map<String, Instance> instances = mock.getInstanceMap().get(ACTION_POOL_1).getInstanceMap();
+    Assertions.assertEquals(1, instances.size());
+
+    String runnerName = instances.values().stream().findFirst().get().getInstanceName();
+    GithubActionJob completed = GithubActionJob.fromJson(completedWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace("github-runner-d6a06a68", runnerName));
+    Assertions.assertTrue(autoscaler.receive(completed));
+    Thread.sleep(50);
+
+    Assertions.assertEquals(0, instances.size());
+  }
+
   @Test
   public void maxInstances() throws IOException, InterruptedException {
     Beans beans = createAutoScaler();
@@ -122,6 +225,99 @@ public class AutoScalerTest {
 
   }
 
+  @Test
+  public void slowActionPoolDoesNotBlockOtherPools() throws IOException, InterruptedException {
+    ComputeMock computeMock = new ComputeMock();
+    computeMock.getCreateDelayInMilli().put(ACTION_POOL_2, 2000L);
+    Beans beans = createAutoScaler(computeMock);
+    Autoscaler autoscaler = beans.autoscaler();
+    String slowLabels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_2));
+    String labels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_3));
+    GithubActionJob slowJob = GithubActionJob.fromJson(queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace(LABEL_TEMPLATE, slowLabels)
+        .replace(JOB_ID_TEMPLATE, "1"));
+    GithubActionJob job = GithubActionJob.fromJson(queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace(LABEL_TEMPLATE, labels)
+        .replace(JOB_ID_TEMPLATE, "2"));
+    autoscaler.receive(slowJob);
+    autoscaler.receive(job);
+    Thread.sleep(100);
+
+    Assertions.assertEquals(0,
+        computeMock.getInstanceMap().get(ACTION_POOL_2).getInstanceMap().size());
+    Assertions.assertEquals(1,
+        computeMock.getInstanceMap().get(ACTION_POOL_3).getInstanceMap().size());
+  }
+
+  @Test
+  public void computeCallPermitIsReleasedOnceTheCreateIsAccepted()
+      throws IOException, InterruptedException {
+    ComputeMock computeMock = new ComputeMock();
+    computeMock.getConfirmDelayInMilli().put(ACTION_POOL_2, 60_000L);
+    AutoscalerSettings settings = new AutoscalerSettings();
+    settings.setUpscaleBatchWindowInMilli(0);
+    settings.setMaxConcurrentComputeCalls(1);
+    Beans beans = createAutoScaler(computeMock, settings);
+    Autoscaler autoscaler = beans.autoscaler();
+    String unconfirmedLabels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_2));
+    String labels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_3));
+    autoscaler.receive(GithubActionJob.fromJson(queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace(LABEL_TEMPLATE, unconfirmedLabels)
+        .replace(JOB_ID_TEMPLATE, "1")));
+    awaitTrue(() -> computeMock.getInstanceMap().get(ACTION_POOL_2).getInstanceMap().size() == 1);
+    autoscaler.receive(GithubActionJob.fromJson(queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+        .replace(LABEL_TEMPLATE, labels)
+        .replace(JOB_ID_TEMPLATE, "2")));
+
+    awaitTrue(() -> computeMock.getInstanceMap().get(ACTION_POOL_3).getInstanceMap().size() == 1);
+  }
+
+  @Test
+  public void burstIsCreatedInOneBatch() throws IOException, InterruptedException {
+    ComputeMock computeMock = new ComputeMock();
+    AutoscalerSettings settings = new AutoscalerSettings();
+    settings.setUpscaleBatchWindowInMilli(200);
+    Beans beans = createAutoScaler(computeMock, settings);
+    Autoscaler autoscaler = beans.autoscaler();
+    String labels = createLabels(Map.of("action-group", RUNNER_GROUP, "action-pool", ACTION_POOL_3));
+    for (String jobId : List.of("1", "2", "3")) {
+      autoscaler.receive(GithubActionJob.fromJson(queuedGoodWorkflowJob.getContentAsString(Charset.defaultCharset())
+          .replace(LABEL_TEMPLATE, labels)
+          .replace(JOB_ID_TEMPLATE, jobId)));
+    }
+    Thread.sleep(400);
+
+    Assertions.assertEquals(List.of(2), computeMock.getCreateBatchSizes());
+    Assertions.assertEquals(2,
+        computeMock.getInstanceMap().get(ACTION_POOL_3).getInstanceMap().size());
+  }
+
+  @Test
+  public void warmPoolIsToppedUp() throws IOException, InterruptedException {
+    String config = """
+        ---
+        actionPools:
+          - name: warm
+            maxInstances: 3
+            minIdleInstances: 2
+            instanceIdleScaleDownTimeInMinutes: 1
+            isDefault: false
+        """;
+    ComputeMock computeMock = new ComputeMock();
+    AutoscalerSettings settings = new AutoscalerSettings();
+    settings.setUpscaleBatchWindowInMilli(0);
+    Beans beans = createAutoScaler(computeMock, settings, config, false);
+    Thread.sleep(200);
+    Map<String, Instance> instances = computeMock.getInstanceMap().get("warm").getInstanceMap();
+
+    Assertions.assertEquals(2, instances.size());
+
+    beans.githubApiMock().addBusyRunner(instances.keySet().iterator().next());
+    Thread.sleep(200);
+
+    Assertions.assertEquals(3, instances.size());
+  }
+
   @Test
   public void incorrectActionPoolLabels() throws IOException, InterruptedException {
     Beans beans = createAutoScaler();
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbusrun.compute.ActionPool;
 import com.nimbusrun.compute.Compute;
 import com.nimbusrun.compute.ComputeConfigResponse;
+import com.nimbusrun.compute.ComputeOperation;
 import com.nimbusrun.compute.DeleteInstanceRequest;
 import com.nimbusrun.compute.ListInstanceResponse;
 import com.nimbusrun.compute.ListInstanceResponse.Instance;
@@ -12,7 +13,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.Getter;
@@ -25,6 +28,11 @@ public class ComputeMock extends Compute {
   private final Map<String, ActionPool> actionPoolMap = new HashMap<>();
   @Getter
   private final Map<String, InstanceManager> instanceMap = new HashMap<>();
+  /**
+   * Simulates a slow provider for specific action pools.
+   */
+  @Getter
+  private final Map<String, Long> createDelayInMilli = new ConcurrentHashMap<>();
 
   @Override
   public ListInstanceResponse listComputeInstances(ActionPool actionPool) {
@@ -40,11 +48,46 @@ public class ComputeMock extends Compute {
     return map;
   }
 
+  /**
+   * Simulates a provider that accepts creates right away but confirms them late, for specific action
+   * pools.
+   */
+  @Getter
+  private final Map<String, Long> confirmDelayInMilli = new ConcurrentHashMap<>();
+
+  @Override
+  public ComputeOperation<Integer> startCreateCompute(ActionPool actionPool, int count) {
+    Long confirmDelay = confirmDelayInMilli.get(actionPool.getName());
+    if (confirmDelay == null) {
+      return super.startCreateCompute(actionPool, count);
+    }
+    CompletableFuture<Integer> accepted = supplyAsync(() -> createCompute(actionPool, count));
+    return new ComputeOperation<>(accepted, accepted.thenCompose(created -> supplyAsync(() -> {
+      Thread.sleep(confirmDelay);
+      return created;
+    })));
+  }
+
+  /**
+   * Sizes of the batches passed to {@link #createCompute(ActionPool, int)}, in call order.
+   */
+  @Getter
+  private final List<Integer> createBatchSizes = new CopyOnWriteArrayList<>();
+
   @Override
   public boolean createCompute(ActionPool actionPool) throws Exception {
-    this.instanceMap.get(actionPool.getName()).putInstance(this.createInstanceName());
+    return createCompute(actionPool, 1) == 1;
+  }
+
+  @Override
+  public int createCompute(ActionPool actionPool, int count) throws Exception {
+    createBatchSizes.add(count);
+    Thread.sleep(createDelayInMilli.getOrDefault(actionPool.getName(), 0L));
+    for (int i = 0; i < count; i++) {
+      this.instanceMap.get(actionPool.getName()).putInstance(this.createInstanceName());
+    }
     Thread.sleep(10);//Represents api taking its sweet time in making an instance
-    return true;
+    return count;
   }
 
   @Override
@@ -12,9 +12,11 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import lombok.Setter;
 import org.apache.hc.core5.http.ProtocolException;
 
 public class GithubApiMock implements GithubServiceApi {
@@ -23,6 +25,12 @@ public class GithubApiMock implements GithubServiceApi {
   private final Integer runnerGroupId;
   private final ComputeMock computeMock;
   private final Set<String> deleteItems = new ConcurrentSkipListSet<>();
+  private final Set<String> busyRunners = new ConcurrentSkipListSet<>();
+  /**
+   * When {@code false} runners are idle unless added with {@link #addBusyRunner(String)}.
+   */
+  @Setter
+  private volatile boolean runnersBusy = true;
   public GithubApiMock(
       String runnerGroupName, ComputeMock computeMock) {
     this.computeMock = computeMock;
@@ -67,14 +75,19 @@ public class GithubApiMock implements GithubServiceApi {
   }
 
   @Override
-  public boolean isJobQueued(String runUrl) {
+  public boolean isJobQueued(String runUrl, String jobId) {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> isJobQueuedAsync(String runUrl, String jobId) {
+    return CompletableFuture.completedFuture(isJobQueued(runUrl, jobId));
+  }
+
   @Override
   public List<Runner> listRunnersInGroup() {
     List<Runner> runners = computeMock.listAllComputeInstances().values().stream().flatMap(i->i.instances().stream())
-        .map(Instance::getInstanceName).filter(i->!deleteItems.contains(i)).map(i-> new Runner(Objects.hash(i),i,"linux", "running", true, new ArrayList<>())).toList();
+        .map(Instance::getInstanceName).filter(i->!deleteItems.contains(i)).map(i-> new Runner(Objects.hash(i),i,"linux", "running", runnersBusy || busyRunners.contains(i), new ArrayList<>())).toList();
     return runners;
   }
 
@@ -88,6 +101,11 @@ public class GithubApiMock implements GithubServiceApi {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> deleteRunnerAsync(String runnerId) {
+    return CompletableFuture.completedFuture(deleteRunner(runnerId));
+  }
+
   @Override
   public List<DeliveryRecord> listDeliveries()
       throws ProtocolException, GeneralSecurityException, IOException {
@@ -102,4 +120,8 @@ public class GithubApiMock implements GithubServiceApi {
   public void addDeletedRunner(String runnerName){
     deleteItems.add(runnerName);
   }
+
+  public void addBusyRunner(String runnerName){
+    busyRunners.add(runnerName);
+  }
 }
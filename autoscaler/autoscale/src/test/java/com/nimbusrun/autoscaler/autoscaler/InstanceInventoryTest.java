@@ -0,0 +1,48 @@
+package com.nimbusrun.autoscaler.autoscaler;
+
+import com.nimbusrun.autoscaler.autoscaler.InstanceInventory.Reservation;
+import com.nimbusrun.compute.ListInstanceResponse;
+import com.nimbusrun.compute.ListInstanceResponse.Instance;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class InstanceInventoryTest {
+
+  private static final String POOL = "one";
+
+  @Test
+  public void reservationsNeverExceedMaxInstances() {
+    InstanceInventory inventory = new InstanceInventory();
+    Reservation first = inventory.reserve(POOL, 2, 3);
+    Reservation second = inventory.reserve(POOL, 2, 3);
+    Assertions.assertEquals(2, first.getCount());
+    Assertions.assertEquals(1, second.getCount());
+    Assertions.assertEquals(0, inventory.reserve(POOL, 1, 3).getCount());
+
+    second.release();
+    Assertions.assertEquals(2, inventory.count(POOL));
+    first.confirm(1);
+    Assertions.assertEquals(1, inventory.count(POOL));
+    Assertions.assertEquals(2, inventory.reserve(POOL, 5, 3).getCount());
+  }
+
+  @Test
+  public void instancesListedDuringCreateAreNotCountedTwice() {
+    InstanceInventory inventory = new InstanceInventory();
+    Reservation reservation = inventory.reserve(POOL, 2, 0);
+    inventory.reconcile(POOL, new ListInstanceResponse(List.of(instance("a"))));
+    Assertions.assertEquals(2, inventory.count(POOL));
+
+    reservation.confirm(2);
+    Assertions.assertEquals(2, inventory.count(POOL));
+    Assertions.assertEquals(1, inventory.pending(POOL));
+    inventory.reconcile(POOL, new ListInstanceResponse(List.of(instance("a"), instance("b"))));
+    Assertions.assertEquals(2, inventory.count(POOL));
+    Assertions.assertEquals(0, inventory.pending(POOL));
+  }
+
+  private Instance instance(String id) {
+    return new Instance(id, id, System.currentTimeMillis());
+  }
+}
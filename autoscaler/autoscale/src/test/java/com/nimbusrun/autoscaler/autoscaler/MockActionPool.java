@@ -14,11 +14,12 @@ public class MockActionPool {
   private  String name;
   private  Integer maxInstances;
   private  Integer instanceIdleScaleDownTimeInMinutes;
+  private  Integer minIdleInstances;
 
   @JsonProperty("default")
   private  boolean isDefault;
   public ActionPool toActionPool(){
-    return  new ActionPool(name, maxInstances, instanceIdleScaleDownTimeInMinutes, isDefault);
+    return  new ActionPool(name, maxInstances, instanceIdleScaleDownTimeInMinutes, minIdleInstances, isDefault);
   }
 
 }
@@ -0,0 +1,146 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GithubHttpClientTest {
+
+  private static final String ETAG = "\"abc\"";
+  private static final Instant NOW = Instant.parse("2025-09-01T09:00:00Z");
+
+  private HttpServer server;
+  private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+  private final List<String> limitedCalls = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/runners", exchange -> {
+      String received = exchange.getRequestHeaders().getFirst("If-None-Match");
+      ifNoneMatch.add(String.valueOf(received));
+      exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+      exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4999");
+      exchange.getResponseHeaders().add("X-RateLimit-Reset",
+          String.valueOf(NOW.plus(Duration.ofHours(1)).getEpochSecond()));
+      exchange.getResponseHeaders().add("ETag", ETAG);
+      if (ETAG.equals(received)) {
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return;
+      }
+      byte[] body = "{\"runners\":[]}".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    // 10 of 100 calls left, less than the background reserve
+    server.createContext("/limited", exchange -> {
+      limitedCalls.add(exchange.getRequestURI().getQuery());
+      exchange.getResponseHeaders().add("X-RateLimit-Limit", "100");
+      exchange.getResponseHeaders().add("X-RateLimit-Remaining", "10");
+      exchange.getResponseHeaders().add("X-RateLimit-Reset",
+          String.valueOf(NOW.plus(Duration.ofHours(1)).getEpochSecond()));
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void unchangedResponsesAreServedFromTheEtagCache() throws IOException {
+    String url = "http://127.0.0.1:%s/runners".formatted(server.getAddress().getPort());
+    try (GithubHttpClient client = new GithubHttpClient("token", null,
+        new RateLimitBudget(Clock.fixed(NOW, ZoneOffset.UTC)))) {
+      SimpleHttpResponse first = client.execute("list_runners", GithubRequestPriority.NORMAL,
+          SimpleRequestBuilder.get(url).build());
+      SimpleHttpResponse second = client.execute("list_runners", GithubRequestPriority.NORMAL,
+          SimpleRequestBuilder.get(url).build());
+      Assertions.assertEquals(200, first.getCode());
+      Assertions.assertEquals(200, second.getCode());
+      Assertions.assertEquals("{\"runners\":[]}", second.getBodyText());
+      Assertions.assertEquals(List.of("null", ETAG), ifNoneMatch);
+    }
+  }
+
+  @Test
+  public void dispatcherParksUntilTheResetUnlessAHigherPriorityArrives() throws Exception {
+    String url = "http://127.0.0.1:%s/limited".formatted(server.getAddress().getPort());
+    AtomicInteger acquired = new AtomicInteger();
+    RateLimitBudget budget = new RateLimitBudget(Clock.fixed(NOW, ZoneOffset.UTC)) {
+      @Override
+      Duration acquire(GithubRequestPriority priority) {
+        acquired.incrementAndGet();
+        return super.acquire(priority);
+      }
+    };
+    try (GithubHttpClient client = new GithubHttpClient("token", null, budget)) {
+      client.execute("limited", GithubRequestPriority.CRITICAL,
+          SimpleRequestBuilder.get(url + "?first").build());
+
+      CompletableFuture<SimpleHttpResponse> background = client.executeAsync("limited",
+          GithubRequestPriority.BACKGROUND, SimpleRequestBuilder.get(url + "?background").build());
+      Thread.sleep(500);
+      Assertions.assertFalse(background.isDone());
+
+      SimpleHttpResponse critical = client.execute("limited", GithubRequestPriority.CRITICAL,
+          SimpleRequestBuilder.get(url + "?critical").build());
+      Assertions.assertEquals(204, critical.getCode());
+      Thread.sleep(200);
+      Assertions.assertFalse(background.isDone());
+      Assertions.assertEquals(List.of("first", "critical"), limitedCalls);
+      // one per call sent plus one per time the background call was looked at again
+      Assertions.assertTrue(acquired.get() < 10, "acquired " + acquired.get() + " times");
+    }
+  }
+
+  @Test
+  public void lowPrioritiesKeepTheirReserve() {
+    RateLimitBudget budget = new RateLimitBudget(Clock.fixed(NOW, ZoneOffset.UTC));
+    Assertions.assertEquals(Duration.ZERO, budget.acquire(GithubRequestPriority.BACKGROUND));
+
+    BasicHttpResponse response = new BasicHttpResponse(200);
+    response.addHeader("X-RateLimit-Limit", "100");
+    response.addHeader("X-RateLimit-Remaining", "21");
+    response.addHeader("X-RateLimit-Reset",
+        String.valueOf(NOW.plus(Duration.ofMinutes(30)).getEpochSecond()));
+    budget.update(response);
+
+    Assertions.assertEquals(Duration.ZERO, budget.acquire(GithubRequestPriority.BACKGROUND));
+    Assertions.assertEquals(Duration.ofMinutes(30),
+        budget.acquire(GithubRequestPriority.BACKGROUND));
+    for (int i = 0; i < 15; i++) {
+      Assertions.assertEquals(Duration.ZERO, budget.acquire(GithubRequestPriority.NORMAL));
+    }
+    Assertions.assertEquals(Duration.ofMinutes(30), budget.acquire(GithubRequestPriority.NORMAL));
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertEquals(Duration.ZERO, budget.acquire(GithubRequestPriority.CRITICAL));
+    }
+    Assertions.assertEquals(0, budget.remaining());
+    Assertions.assertEquals(Duration.ofMinutes(30),
+        budget.acquire(GithubRequestPriority.CRITICAL));
+  }
+}
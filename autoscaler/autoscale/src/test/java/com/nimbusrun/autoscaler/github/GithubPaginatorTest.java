@@ -0,0 +1,130 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GithubPaginatorTest {
+
+  private static final int PAGES = 10;
+  private static final int PAGE_SIZE = 3;
+
+  private HttpServer server;
+  private String baseUrl;
+  private final Set<String> requested = new ConcurrentSkipListSet<>();
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    baseUrl = "http://127.0.0.1:%s".formatted(server.getAddress().getPort());
+    server.createContext("/runners", exchange -> {
+      int page = page(exchange);
+      requested.add(exchange.getRequestURI().getQuery());
+      exchange.getResponseHeaders().add("Link",
+          "<%s/runners?per_page=100&page=%s>; rel=\"next\", <%s/runners?per_page=100&page=%s>; rel=\"last\""
+              .formatted(baseUrl, page + 1, baseUrl, PAGES));
+      respond(exchange, "{\"total_count\":%s,\"runners\":%s,\"trailing\":{\"ignored\":[1]}}"
+          .formatted(PAGES * PAGE_SIZE, items(page)));
+    });
+    server.createContext("/deliveries", exchange -> {
+      int page = page(exchange);
+      requested.add(exchange.getRequestURI().getQuery());
+      if (page < PAGES) {
+        exchange.getResponseHeaders().add("Link",
+            "<%s/deliveries?per_page=100&cursor=c%s&page=%s>; rel=\"next\"".formatted(baseUrl,
+                page, page + 1));
+      }
+      respond(exchange, items(page));
+    });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void visitsEveryItemOfEveryPageInOrder() throws IOException {
+    try (GithubHttpClient client = new GithubHttpClient("token", null)) {
+      List<Integer> ids = new ArrayList<>();
+      new GithubPaginator(client, objectMapper).forEach("list_runners",
+          GithubRequestPriority.NORMAL, baseUrl + "/runners", "runners", Item.class,
+          item -> ids.add(item.id()));
+      Assertions.assertEquals(IntStream.range(0, PAGES * PAGE_SIZE).boxed().toList(), ids);
+      Assertions.assertTrue(requested.contains("per_page=100"));
+    }
+  }
+
+  @Test
+  public void stopsRequestingPagesOnceTheVisitorStops() throws IOException {
+    try (GithubHttpClient client = new GithubHttpClient("token", null)) {
+      List<Integer> ids = new ArrayList<>();
+      new GithubPaginator(client, objectMapper).forEach("list_runners",
+          GithubRequestPriority.NORMAL, baseUrl + "/runners", "runners", Item.class, item -> {
+            ids.add(item.id());
+            return item.id() < 4;
+          });
+      Assertions.assertEquals(List.of(0, 1, 2, 3, 4), ids);
+      // the first page plus the first window of pages fetched in parallel
+      Assertions.assertEquals(1 + GithubPaginator.PARALLEL_PAGES, requested.size());
+    }
+  }
+
+  @Test
+  public void followsNextLinksWithoutALastPage() throws IOException {
+    try (GithubHttpClient client = new GithubHttpClient("token", null)) {
+      List<Integer> ids = new ArrayList<>();
+      new GithubPaginator(client, objectMapper).forEach("deliveries",
+          GithubRequestPriority.BACKGROUND, baseUrl + "/deliveries", null, Item.class,
+          item -> ids.add(item.id()));
+      Assertions.assertEquals(IntStream.range(0, PAGES * PAGE_SIZE).boxed().toList(), ids);
+      Assertions.assertEquals(PAGES, requested.size());
+    }
+  }
+
+  private static int page(HttpExchange exchange) {
+    String query = exchange.getRequestURI().getQuery();
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith("page=")) {
+        return Integer.parseInt(parameter.substring("page=".length()));
+      }
+    }
+    return 1;
+  }
+
+  private static String items(int page) {
+    return IntStream.range((page - 1) * PAGE_SIZE, page * PAGE_SIZE)
+        .mapToObj("{\"id\":%s,\"name\":\"runner\"}"::formatted)
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  private static void respond(HttpExchange exchange, String json) throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  record Item(int id) {
+
+  }
+}
@@ -0,0 +1,111 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JobStatusResolverTest {
+
+  private HttpServer server;
+  private String baseUrl;
+  private final Map<String, AtomicInteger> callsByRun = new ConcurrentHashMap<>();
+  private final CountDownLatch slowRunAnswered = new CountDownLatch(1);
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    baseUrl = "http://127.0.0.1:%s/repos/org/repo/actions/runs".formatted(
+        server.getAddress().getPort());
+    server.createContext("/repos/org/repo/actions/runs", exchange -> {
+      String run = exchange.getRequestURI().getPath().split("/")[6];
+      if (run.equals("slow")) {
+        try {
+          slowRunAnswered.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      callsByRun.computeIfAbsent(run, key -> new AtomicInteger()).incrementAndGet();
+      byte[] body = """
+          {"total_count":3,"jobs":[
+            {"id":%s1,"run_id":%s,"status":"queued"},
+            {"id":%s2,"run_id":%s,"status":"in_progress"},
+            {"id":%s3,"run_id":%s,"status":"queued"}
+          ]}""".formatted(run, run, run, run, run, run).getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    slowRunAnswered.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void jobsOfTheSameRunShareOneCall() {
+    try (GithubHttpClient client = new GithubHttpClient("token", null);
+        JobStatusResolver resolver = new JobStatusResolver(
+            new GithubPaginator(client, objectMapper))) {
+      List<CompletableFuture<Boolean>> checks = List.of(
+          resolver.isQueued(baseUrl + "/1", "11"),
+          resolver.isQueued(baseUrl + "/1", "12"),
+          resolver.isQueued(baseUrl + "/1", "13"),
+          resolver.isQueued(baseUrl + "/2", "21"),
+          resolver.isQueued(baseUrl + "/2", "22"));
+      Assertions.assertEquals(List.of(true, false, true, true, false),
+          checks.stream().map(CompletableFuture::join).toList());
+
+      Assertions.assertTrue(resolver.isQueued(baseUrl + "/1", "11").join());
+      Assertions.assertEquals(1, callsByRun.get("1").get());
+      Assertions.assertEquals(1, callsByRun.get("2").get());
+    }
+  }
+
+  @Test
+  public void unknownJobsAndFailedCallsAreNotQueued() {
+    try (GithubHttpClient client = new GithubHttpClient("token", null);
+        JobStatusResolver resolver = new JobStatusResolver(
+            new GithubPaginator(client, objectMapper))) {
+      Assertions.assertFalse(resolver.isQueued(baseUrl + "/1", "99").join());
+      Assertions.assertFalse(
+          resolver.isQueued(baseUrl.replace("/repos", "/missing") + "/1", "11").join());
+    }
+  }
+
+  @Test
+  public void closeStopsListingsInFlight() throws Exception {
+    try (GithubHttpClient client = new GithubHttpClient("token", null)) {
+      JobStatusResolver resolver = new JobStatusResolver(
+          new GithubPaginator(client, objectMapper));
+      CompletableFuture<Boolean> check = resolver.isQueued(baseUrl + "/slow", "1");
+
+      resolver.close();
+
+      Assertions.assertFalse(check.get(2, TimeUnit.SECONDS));
+    }
+  }
+}
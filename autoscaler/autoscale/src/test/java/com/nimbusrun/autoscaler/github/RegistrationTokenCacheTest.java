@@ -0,0 +1,112 @@
+package com.nimbusrun.autoscaler.github;
+
+import com.nimbusrun.autoscaler.github.RegistrationTokenCache.RegistrationToken;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RegistrationTokenCacheTest {
+
+  @Test
+  public void tokenIsReusedUntilShortlyBeforeExpiry() {
+    MutableClock clock = new MutableClock();
+    AtomicInteger fetches = new AtomicInteger();
+    RegistrationTokenCache cache = new RegistrationTokenCache(() -> Optional.of(
+        new RegistrationToken("token-" + fetches.incrementAndGet(),
+            clock.instant().plus(Duration.ofHours(1)))), null, clock);
+
+    Assertions.assertEquals(Optional.of("token-1"), cache.get());
+    clock.advance(Duration.ofMinutes(40));
+    Assertions.assertEquals(Optional.of("token-1"), cache.get());
+    clock.advance(Duration.ofMinutes(10));
+    Assertions.assertEquals(Optional.of("token-2"), cache.get());
+    Assertions.assertEquals(2, fetches.get());
+  }
+
+  @Test
+  public void concurrentRefreshesCollapseIntoOneFetch() throws InterruptedException {
+    MutableClock clock = new MutableClock();
+    AtomicInteger fetches = new AtomicInteger();
+    CountDownLatch fetching = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RegistrationTokenCache cache = new RegistrationTokenCache(() -> {
+      fetches.incrementAndGet();
+      fetching.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Optional.of(new RegistrationToken("token", clock.instant().plus(Duration.ofHours(1))));
+    }, null, clock);
+
+    List<Optional<String>> tokens = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      threads.add(Thread.ofVirtual().start(() -> {
+        Optional<String> token = cache.get();
+        synchronized (tokens) {
+          tokens.add(token);
+        }
+      }));
+    }
+    fetching.await();
+    // give the other callers time to pile up behind the refresh
+    Thread.sleep(100);
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assertions.assertEquals(1, fetches.get());
+    Assertions.assertEquals(20, tokens.size());
+    Assertions.assertTrue(tokens.stream().allMatch(token -> token.equals(Optional.of("token"))));
+  }
+
+  @Test
+  public void failedRefreshReusesTheTokenWhileItIsValid() {
+    MutableClock clock = new MutableClock();
+    AtomicInteger fetches = new AtomicInteger();
+    RegistrationTokenCache cache = new RegistrationTokenCache(() -> fetches.incrementAndGet() == 1
+        ? Optional.of(new RegistrationToken("token", clock.instant().plus(Duration.ofHours(1))))
+        : Optional.empty(), null, clock);
+
+    Assertions.assertEquals(Optional.of("token"), cache.get());
+    clock.advance(Duration.ofMinutes(50));
+    Assertions.assertEquals(Optional.of("token"), cache.get());
+    clock.advance(Duration.ofMinutes(6));
+    Assertions.assertEquals(Optional.empty(), cache.get());
+  }
+
+  private static class MutableClock extends Clock {
+
+    private volatile Instant now = Instant.parse("2025-09-01T09:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.nimbusrun.autoscaler.metrics;
+
+import com.nimbusrun.queue.IngestQueue;
+import com.nimbusrun.queue.OverflowPolicy;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MetricsContainerTest {
+
+  @Test
+  public void sharedStagesAndLanesAreAllScraped() {
+    PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    MetricsContainer metricsContainer = new MetricsContainer(registry);
+    List<IngestQueue<String>> queues = List.of(
+        new IngestQueue<>("action_pool_lane", 2, OverflowPolicy.DROP_NEWEST, Function.identity(),
+            metricsContainer, List.of(Tag.of(MetricsContainer.POOL_NAME_TAG, "pool"))),
+        new IngestQueue<>("retry", 2, OverflowPolicy.DROP_NEWEST, Function.identity(),
+            metricsContainer),
+        new IngestQueue<>("webhook_workflow_job", 2, OverflowPolicy.DROP_NEWEST,
+            Function.identity(), metricsContainer));
+    for (IngestQueue<String> queue : queues) {
+      queue.offer("a");
+      queue.offer("b");
+      queue.offer("c");
+      queue.poll();
+    }
+    metricsContainer.queueDepth("delayed_retry", List.of(), () -> 0);
+    metricsContainer.queueWaitTime("delayed_retry", List.of(), Duration.ofSeconds(1));
+
+    String scrape = registry.scrape();
+    for (String series : List.of(
+        "queue_depth{pool_name=\"pool\",stage=\"action_pool_lane\"}",
+        "queue_depth{pool_name=\"none\",stage=\"retry\"}",
+        "queue_depth{pool_name=\"none\",stage=\"webhook_workflow_job\"}",
+        "queue_depth{pool_name=\"none\",stage=\"delayed_retry\"}",
+        "queue_enqueued_total{pool_name=\"pool\",stage=\"action_pool_lane\"}",
+        "queue_enqueued_total{pool_name=\"none\",stage=\"retry\"}",
+        "queue_dropped_total{pool_name=\"pool\",reason=\"full\",stage=\"action_pool_lane\"}",
+        "queue_dropped_total{pool_name=\"none\",reason=\"full\",stage=\"webhook_workflow_job\"}",
+        "queue_wait_time_seconds_count{pool_name=\"pool\",stage=\"action_pool_lane\"}",
+        "queue_wait_time_seconds_count{pool_name=\"none\",stage=\"retry\"}",
+        "queue_wait_time_seconds_count{pool_name=\"none\",stage=\"delayed_retry\"}")) {
+      Assertions.assertTrue(scrape.contains(series), () -> series + " missing from\n" + scrape);
+    }
+  }
+}
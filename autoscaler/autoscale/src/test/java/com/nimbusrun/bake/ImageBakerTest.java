@@ -0,0 +1,129 @@
+package com.nimbusrun.bake;
+
+import com.nimbusrun.autoscaler.autoscaler.ComputeMock;
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import com.nimbusrun.cluster.ClusterCoordinator;
+import com.nimbusrun.cluster.InMemoryCoordinationBackend;
+import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.compute.BakedImage;
+import com.nimbusrun.compute.ImageBakeSettings;
+import com.nimbusrun.compute.ImageBaking;
+import com.nimbusrun.config.AutoscalerSettings.ClusterSettings;
+import com.nimbusrun.config.AutoscalerSettings.ImageBakingSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ImageBakerTest {
+
+  private static final ActionPool POOL = new ActionPool("one", 5, 10, 0, true);
+  private static final Instant NOW = Instant.parse("2025-09-01T09:00:00Z");
+
+  @Test
+  public void bakesAndSwitchesToTheNewImage() throws Exception {
+    BakingComputeMock compute = new BakingComputeMock();
+    ImageBaker baker = baker(compute, NOW);
+
+    baker.check().get();
+    Assertions.assertEquals(1, compute.bakes);
+    Assertions.assertEquals("image-1", compute.inUse.get(POOL.getName()));
+
+    // A fresh image isn't baked again
+    baker.check().get();
+    Assertions.assertEquals(1, compute.bakes);
+    baker.close();
+  }
+
+  @Test
+  public void oldImagesAreRebakedAndGarbageCollected() throws Exception {
+    BakingComputeMock compute = new BakingComputeMock();
+    for (int day = 1; day <= 3; day++) {
+      ImageBaker baker = baker(compute, NOW.plus(Duration.ofDays(2L * day)));
+      baker.check().get();
+      baker.close();
+    }
+    Assertions.assertEquals(3, compute.bakes);
+    Assertions.assertEquals("image-3", compute.inUse.get(POOL.getName()));
+    Assertions.assertEquals(List.of("image-3", "image-2"),
+        compute.listBakedImages(POOL).stream().map(BakedImage::image).toList());
+  }
+
+  @Test
+  public void failedBakeKeepsTheCurrentImage() throws Exception {
+    BakingComputeMock compute = new BakingComputeMock();
+    baker(compute, NOW).check().get();
+    compute.fail = true;
+    baker(compute, NOW.plus(Duration.ofDays(2))).check().get();
+    Assertions.assertEquals(2, compute.bakes);
+    Assertions.assertEquals("image-1", compute.inUse.get(POOL.getName()));
+    Assertions.assertEquals(1, compute.listBakedImages(POOL).size());
+  }
+
+  private ImageBaker baker(BakingComputeMock compute, Instant now) {
+    Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+    compute.clock = clock;
+    ImageBakingSettings settings = new ImageBakingSettings();
+    // checked by hand so the test controls when
+    settings.setEnabled(false);
+    ClusterCoordinator cluster = new ClusterCoordinator(new ClusterSettings(),
+        new InMemoryCoordinationBackend(), List.of(POOL.getName()), clock);
+    return new ImageBaker(compute, List.of(POOL), cluster,
+        new MetricsContainer(new SimpleMeterRegistry()), settings, clock);
+  }
+
+  private static class BakingComputeMock extends ComputeMock implements ImageBaking {
+
+    private final List<BakedImage> images = new CopyOnWriteArrayList<>();
+    private final Map<String, String> inUse = new HashMap<>();
+    private Clock clock;
+    private int bakes;
+    private boolean fail;
+
+    @Override
+    public Optional<ImageBakeSettings> imageBakeSettings(ActionPool actionPool) {
+      ImageBakeSettings settings = new ImageBakeSettings();
+      settings.setEnabled(true);
+      return Optional.of(settings);
+    }
+
+    @Override
+    public CompletableFuture<String> bakeImage(ActionPool actionPool, Duration timeout) {
+      bakes++;
+      if (fail) {
+        return CompletableFuture.failedFuture(new IllegalStateException("builder failed"));
+      }
+      BakedImage image = new BakedImage("image-" + bakes, clock.instant());
+      images.add(image);
+      return CompletableFuture.completedFuture(image.image());
+    }
+
+    @Override
+    public List<BakedImage> listBakedImages(ActionPool actionPool) {
+      List<BakedImage> newestFirst = new ArrayList<>(images);
+      newestFirst.sort(Comparator.comparing(BakedImage::createdAt).reversed());
+      return newestFirst;
+    }
+
+    @Override
+    public void useImage(ActionPool actionPool, String image) {
+      inUse.put(actionPool.getName(), image);
+    }
+
+    @Override
+    public boolean deleteImage(ActionPool actionPool, String image) {
+      return images.removeIf(baked -> baked.image().equals(image));
+    }
+  }
+}
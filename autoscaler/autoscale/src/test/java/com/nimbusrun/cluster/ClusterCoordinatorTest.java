@@ -0,0 +1,137 @@
+package com.nimbusrun.cluster;
+
+import com.nimbusrun.config.AutoscalerSettings.ClusterSettings;
+import com.nimbusrun.github.GithubActionJob;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ClusterCoordinatorTest {
+
+  private static final List<String> POOLS = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+
+  @Test
+  public void poolsAreSplitAndTakenOverWhenAMemberDies() {
+    MutableClock clock = new MutableClock();
+    InMemoryCoordinationBackend backend = new InMemoryCoordinationBackend(clock);
+    ClusterCoordinator first = coordinator("first", backend, clock);
+    ClusterCoordinator second = coordinator("second", backend, clock);
+    try {
+      // first still holds every lease until it notices second joined
+      Assertions.assertTrue(POOLS.stream().allMatch(first::owns));
+      Assertions.assertTrue(POOLS.stream().noneMatch(second::owns));
+      first.rebalance();
+      second.rebalance();
+
+      Set<String> owned = new HashSet<>();
+      for (String pool : POOLS) {
+        Assertions.assertNotEquals(first.owns(pool), second.owns(pool), pool);
+        if (first.owns(pool)) {
+          owned.add(pool);
+        }
+      }
+      Assertions.assertFalse(owned.isEmpty());
+      Assertions.assertNotEquals(POOLS.size(), owned.size());
+      Assertions.assertTrue(first.isLeader() ^ second.isLeader());
+
+      // first stops heartbeating
+      clock.advance(Duration.ofSeconds(16));
+      second.rebalance();
+      Assertions.assertTrue(POOLS.stream().allMatch(second::owns));
+      Assertions.assertTrue(POOLS.stream().noneMatch(first::owns));
+      Assertions.assertTrue(second.isLeader());
+      Assertions.assertFalse(first.isLeader());
+    } finally {
+      first.close();
+      second.close();
+    }
+  }
+
+  @Test
+  public void forwardedJobsReachThePoolOwner() throws IOException {
+    MutableClock clock = new MutableClock();
+    InMemoryCoordinationBackend backend = new InMemoryCoordinationBackend(clock);
+    ClusterCoordinator first = coordinator("first", backend, clock);
+    ClusterCoordinator second = coordinator("second", backend, clock);
+    try {
+      first.rebalance();
+      second.rebalance();
+      String pool = POOLS.stream().filter(second::owns).findFirst().orElseThrow();
+      List<GithubActionJob> received = new ArrayList<>();
+      second.onForwardedJob(received::add);
+
+      Assertions.assertTrue(first.forward(pool, job("42")));
+      first.drainForwardedJobs();
+      second.drainForwardedJobs();
+      Assertions.assertEquals(1, received.size());
+      Assertions.assertEquals("42", received.get(0).getId());
+    } finally {
+      first.close();
+      second.close();
+    }
+  }
+
+  @Test
+  public void disabledClusterOwnsEverything() {
+    ClusterCoordinator coordinator = new ClusterCoordinator(new ClusterSettings(),
+        new InMemoryCoordinationBackend(), POOLS, Clock.systemUTC());
+    Assertions.assertTrue(POOLS.stream().allMatch(coordinator::owns));
+    Assertions.assertTrue(coordinator.isLeader());
+  }
+
+  private ClusterCoordinator coordinator(String memberId, CoordinationBackend backend,
+      Clock clock) {
+    ClusterSettings settings = new ClusterSettings();
+    settings.setEnabled(true);
+    settings.setMemberId(memberId);
+    settings.setLeaseTtlInSeconds(15);
+    // rebalanced by hand so the test controls the order
+    settings.setHeartbeatIntervalInSeconds(3600);
+    settings.setForwardPollIntervalInMilli(3_600_000);
+    return new ClusterCoordinator(settings, backend, POOLS, clock);
+  }
+
+  private GithubActionJob job(String id) throws IOException {
+    try (InputStream in = getClass().getResourceAsStream(
+        "/workflow_jobs/queued_good_workflow_job.json")) {
+      String payload = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      return GithubActionJob.fromJson(
+          payload.replace("${JOB_ID}", id).replace("${NIMBUS_LABELS}", ""));
+    }
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2025-09-01T09:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
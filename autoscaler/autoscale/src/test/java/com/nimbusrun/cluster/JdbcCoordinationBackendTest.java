@@ -0,0 +1,68 @@
+package com.nimbusrun.cluster;
+
+import com.nimbusrun.config.AutoscalerSettings.ClusterSettings;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JdbcCoordinationBackendTest {
+
+  private static final Duration TTL = Duration.ofSeconds(15);
+
+  @Test
+  public void leasesAreExclusiveUntilTheyExpire() {
+    ClusterSettings settings = settings("leases");
+    Instant now = Instant.parse("2025-09-01T09:00:00Z");
+    try (JdbcCoordinationBackend first = new JdbcCoordinationBackend(settings,
+        Clock.fixed(now, ZoneOffset.UTC));
+        JdbcCoordinationBackend second = new JdbcCoordinationBackend(settings,
+            Clock.fixed(now, ZoneOffset.UTC));
+        JdbcCoordinationBackend later = new JdbcCoordinationBackend(settings,
+            Clock.fixed(now.plus(TTL).plusSeconds(1), ZoneOffset.UTC))) {
+      Assertions.assertTrue(first.tryAcquireLease("pool", "first", TTL));
+      Assertions.assertTrue(first.tryAcquireLease("pool", "first", TTL));
+      Assertions.assertFalse(second.tryAcquireLease("pool", "second", TTL));
+
+      first.heartbeat("first", TTL);
+      second.heartbeat("second", TTL);
+      Assertions.assertEquals(Set.of("first", "second"), second.liveMembers());
+      Assertions.assertEquals(Set.of(), later.liveMembers());
+
+      Assertions.assertTrue(later.tryAcquireLease("pool", "second", TTL));
+      Assertions.assertFalse(first.tryAcquireLease("pool", "first", TTL));
+      later.releaseLease("pool", "second");
+      Assertions.assertTrue(first.tryAcquireLease("pool", "first", TTL));
+    }
+  }
+
+  @Test
+  public void messagesAreConsumedOnceInOrder() {
+    ClusterSettings settings = settings("messages");
+    try (JdbcCoordinationBackend first = new JdbcCoordinationBackend(settings, Clock.systemUTC());
+        JdbcCoordinationBackend second = new JdbcCoordinationBackend(settings,
+            Clock.systemUTC())) {
+      first.publish("pool", "1");
+      first.publish("other", "x");
+      first.publish("pool", "2");
+      first.publish("pool", "3");
+
+      Assertions.assertEquals(List.of("1", "2"), second.consume("pool", 2));
+      Assertions.assertEquals(List.of("3"), first.consume("pool", 10));
+      Assertions.assertEquals(List.of(), second.consume("pool", 10));
+      Assertions.assertEquals(List.of("x"), second.consume("other", 10));
+    }
+  }
+
+  private ClusterSettings settings(String database) {
+    ClusterSettings settings = new ClusterSettings();
+    settings.setJdbcUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+    settings.setUsername("sa");
+    settings.setPassword("");
+    return settings;
+  }
+}
@@ -0,0 +1,63 @@
+package com.nimbusrun.queue;
+
+import com.nimbusrun.autoscaler.metrics.MetricsContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IngestQueueTest {
+
+  @Test
+  public void dropNewestRejectsWhenFull() {
+    IngestQueue<String> queue = new IngestQueue<>("test", 2, OverflowPolicy.DROP_NEWEST,
+        Function.identity(), null);
+    Assertions.assertTrue(queue.offer("a"));
+    Assertions.assertTrue(queue.offer("b"));
+    Assertions.assertFalse(queue.offer("c"));
+    Assertions.assertEquals(List.of("a", "b"), drain(queue));
+  }
+
+  @Test
+  public void dropOldestEvictsHead() {
+    IngestQueue<String> queue = new IngestQueue<>("test", 2, OverflowPolicy.DROP_OLDEST,
+        Function.identity(), null);
+    queue.offer("a");
+    queue.offer("b");
+    Assertions.assertTrue(queue.offer("c"));
+    Assertions.assertEquals(List.of("b", "c"), drain(queue));
+  }
+
+  @Test
+  public void shedDuplicatesFirst() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    IngestQueue<String> queue = new IngestQueue<>("test", 3, OverflowPolicy.SHED_DUPLICATES,
+        s -> s.substring(0, 1), new MetricsContainer(registry));
+    queue.offer("a1");
+    queue.offer("b1");
+    queue.offer("a2");
+    // Redelivery of a queued key is rejected
+    Assertions.assertFalse(queue.offer("b2"));
+    // A new key evicts the duplicate
+    Assertions.assertTrue(queue.offer("c1"));
+    Assertions.assertFalse(queue.offer("d1"));
+    Assertions.assertEquals(List.of("a1", "b1", "c1"), drain(queue));
+
+    Assertions.assertEquals(4, registry.get(MetricsContainer.QUEUE_ENQUEUED_TOTAL).counter()
+        .count());
+    Assertions.assertEquals(2, registry.get(MetricsContainer.QUEUE_DROPPED_TOTAL)
+        .tag("reason", "duplicate").counters().stream().mapToDouble(c -> c.count()).sum());
+    Assertions.assertEquals(3, registry.get(MetricsContainer.QUEUE_WAIT_TIME).timer().count());
+  }
+
+  private List<String> drain(IngestQueue<String> queue) {
+    List<String> items = new ArrayList<>();
+    String item;
+    while ((item = queue.poll()) != null) {
+      items.add(item);
+    }
+    return items;
+  }
+}
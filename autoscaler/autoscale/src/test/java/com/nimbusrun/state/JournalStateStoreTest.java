@@ -0,0 +1,101 @@
+package com.nimbusrun.state;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalStateStoreTest {
+
+  private static final String NAMESPACE = "jobs";
+
+  @TempDir
+  Path directory;
+  private final List<JournalStateStore> opened = new ArrayList<>();
+
+  @AfterEach
+  public void closeStores() {
+    opened.forEach(JournalStateStore::close);
+  }
+
+  /**
+   * Opens the store as a restarted process would, without closing the previous one so nothing but
+   * the journal and the snapshots taken explicitly carry the state over.
+   */
+  private JournalStateStore open() {
+    JournalStateStore store = new JournalStateStore(directory, Duration.ofHours(1));
+    opened.add(store);
+    return store;
+  }
+
+  @Test
+  public void putsAndRemovesAreReplayedFromTheJournal() {
+    JournalStateStore store = open();
+    store.put(NAMESPACE, "a", "1");
+    store.put(NAMESPACE, "b", "2");
+    store.put(NAMESPACE, "b", "3");
+    store.remove(NAMESPACE, "a");
+    store.put("other", "c", "4");
+
+    JournalStateStore reopened = open();
+
+    Assertions.assertFalse(Files.exists(directory.resolve(JournalStateStore.SNAPSHOT_FILE)));
+    Assertions.assertEquals(Set.of("b"), reopened.load(NAMESPACE).keySet());
+    Assertions.assertEquals("3", reopened.load(NAMESPACE).get("b").value());
+    Assertions.assertEquals("4", reopened.load("other").get("c").value());
+    Assertions.assertTrue(reopened.load("missing").isEmpty());
+  }
+
+  @Test
+  public void snapshotTruncatesTheJournal() throws IOException {
+    JournalStateStore store = open();
+    store.put(NAMESPACE, "a", "1");
+    long writtenAt = store.load(NAMESPACE).get("a").writtenAtMillis();
+    store.snapshot();
+    Assertions.assertEquals(0, Files.size(directory.resolve(JournalStateStore.JOURNAL_FILE)));
+    store.put(NAMESPACE, "b", "2");
+
+    JournalStateStore reopened = open();
+
+    Assertions.assertEquals(Set.of("a", "b"), reopened.load(NAMESPACE).keySet());
+    Assertions.assertEquals("1", reopened.load(NAMESPACE).get("a").value());
+    Assertions.assertEquals(writtenAt, reopened.load(NAMESPACE).get("a").writtenAtMillis());
+  }
+
+  @Test
+  public void tornLastJournalLineIsSkipped() throws IOException {
+    JournalStateStore store = open();
+    store.put(NAMESPACE, "a", "1");
+    Files.writeString(directory.resolve(JournalStateStore.JOURNAL_FILE),
+        "{\"o\":\"p\",\"n\":\"jobs\",\"k\":\"b\",\"v", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    JournalStateStore reopened = open();
+
+    Assertions.assertEquals(Set.of("a"), reopened.load(NAMESPACE).keySet());
+    reopened.put(NAMESPACE, "c", "3");
+    Assertions.assertEquals(Set.of("a", "c"), open().load(NAMESPACE).keySet());
+  }
+
+  @Test
+  public void removeAfterSnapshotDoesNotResurrectTheEntry() throws IOException {
+    JournalStateStore store = open();
+    store.put(NAMESPACE, "a", "1");
+    store.put(NAMESPACE, "b", "2");
+    store.snapshot();
+    store.remove(NAMESPACE, "a");
+
+    Assertions.assertEquals(Set.of("b"), open().load(NAMESPACE).keySet());
+    store.close();
+    Assertions.assertEquals(Set.of("b"), open().load(NAMESPACE).keySet());
+  }
+}
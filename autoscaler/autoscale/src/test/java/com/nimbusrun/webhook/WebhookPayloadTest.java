@@ -0,0 +1,79 @@
+package com.nimbusrun.webhook;
+
+import com.nimbusrun.github.GithubActionJob;
+import com.nimbusrun.github.GithubActionRun;
+import com.nimbusrun.github.WorkflowJobAction;
+import com.nimbusrun.github.WorkflowRunAction;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WebhookPayloadTest {
+
+  @Test
+  public void readsTheSameJobAsTheJsonObjectParser() throws IOException {
+    String json;
+    try (InputStream in = getClass().getClassLoader()
+        .getResourceAsStream("workflow_jobs/queued_good_workflow_job.json")) {
+      json = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+          .replace("${NIMBUS_LABELS}", "\"action-group=group\", \"action-pool=pool\", \"linux\"")
+          .replace("${JOB_ID}", "42");
+    }
+    GithubActionJob expected = GithubActionJob.fromJson(json);
+
+    WebhookPayload payload = WebhookPayload.parse(json.getBytes(StandardCharsets.UTF_8));
+
+    Assertions.assertNull(payload.run());
+    GithubActionJob job = payload.job();
+    Assertions.assertNotNull(job);
+    Assertions.assertEquals("42", job.getId());
+    Assertions.assertEquals(WorkflowJobAction.QUEUED, job.getAction());
+    Assertions.assertEquals(expected, job);
+    Assertions.assertEquals(expected.getRunId(), job.getRunId());
+    Assertions.assertEquals(expected.getRunUrl(), job.getRunUrl());
+    Assertions.assertEquals(expected.getHtmlUrl(), job.getHtmlUrl());
+    Assertions.assertEquals(expected.getName(), job.getName());
+    Assertions.assertEquals(expected.getWorkflowName(), job.getWorkflowName());
+    Assertions.assertEquals(expected.getStartedAt(), job.getStartedAt());
+    Assertions.assertEquals(expected.getRepositoryFullName(), job.getRepositoryFullName());
+    Assertions.assertEquals(expected.getLabels(), job.getLabels());
+    Assertions.assertEquals(expected.getInvalidLabels(), job.getInvalidLabels());
+    Assertions.assertEquals("group", job.getActionGroupName().orElseThrow());
+    Assertions.assertEquals("pool", job.getActionPoolName().orElseThrow());
+    Assertions.assertTrue(job.getRunnerName().isEmpty());
+    Assertions.assertEquals(json, job.getJsonStr());
+  }
+
+  @Test
+  public void readsWorkflowRuns() throws IOException {
+    String json = """
+        {"action":"completed","workflow_run":{"id":7,"run_number":3,"name":"build",
+        "event":"push","conclusion":"success","html_url":"https://github.com/org/repo/runs/7",
+        "created_at":"2025-08-31T03:55:10Z","updated_at":"2025-08-31T03:56:10Z",
+        "head_commit":{"id":"abc","message":"skipped"},"pull_requests":[]},
+        "repository":{"id":1,"full_name":"org/repo","owner":{"login":"org"}}}""";
+
+    WebhookPayload payload = WebhookPayload.parse(json.getBytes(StandardCharsets.UTF_8));
+
+    Assertions.assertNull(payload.job());
+    GithubActionRun run = payload.run();
+    Assertions.assertNotNull(run);
+    Assertions.assertEquals("7", run.getId());
+    Assertions.assertEquals("3", run.getRunNumber());
+    Assertions.assertEquals(WorkflowRunAction.COMPLETED, run.getAction());
+    Assertions.assertEquals("push", run.getEvent());
+    Assertions.assertEquals("https://github.com/org/repo/runs/7", run.getRunHtmlUrl());
+    Assertions.assertEquals(1756612570000L, run.getUpdatedAt());
+    Assertions.assertEquals("org/repo", run.getRepositoryFullName());
+  }
+
+  @Test
+  public void otherEventsHaveNeitherJobNorRun() throws IOException {
+    WebhookPayload payload = WebhookPayload.parse(
+        "{\"zen\":\"Keep it simple\",\"hook\":{\"id\":1}}".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertNull(payload.job());
+    Assertions.assertNull(payload.run());
+  }
+}
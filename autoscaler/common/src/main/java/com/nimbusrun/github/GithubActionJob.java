@@ -24,6 +24,7 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
   private final Long startedAt;
   private final Long completedAt;
   private final String runUrl;
+  private final String runnerName;
 
   private final List<String> labels;
   private final List<String> invalidLabels;
@@ -34,7 +35,7 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
 
   public GithubActionJob(String id, String runId, WorkflowJobAction action, String workflowName,
       String htmlUrl, String name, String conclusion, Long startedAt, Long completedAt,
-      String runUrl,
+      String runUrl, String runnerName,
       List<String> labels, List<String> invalidLabels, String actionPoolName,
       String actionGroupName,
       String repositoryFullName, String jsonStr) {
@@ -48,6 +49,7 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
     this.startedAt = startedAt;
     this.completedAt = completedAt;
     this.runUrl = runUrl;
+    this.runnerName = runnerName;
     this.labels = labels;
     this.invalidLabels = invalidLabels;
     this.actionPoolName = actionPoolName;
@@ -106,24 +108,11 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
     }).orElse(null);
     String repositoryName = repoGetStr.apply("full_name");
     String runUrl = job.getString("run_url");
+    String runnerName = job.isNull("runner_name") ? null : job.getString("runner_name");
     JSONArray labels = job.getJSONArray("labels");
     List<String> labelList = new ArrayList<>();
-    String actionGroupName = null;
-    String actionPoolName = null;
-    List<String> invalidLabels = new ArrayList<>();
     for (int i = 0; i < labels.length(); i++) {
       labelList.add(labels.getString(i));
-      Optional<String> actionGroupValue = findNimbusRunLabel(labels.getString(i),
-          Constants.ACTION_GROUP_LABEL_KEY);
-      Optional<String> actionPoolValue = findNimbusRunLabel(labels.getString(i),
-          Constants.ACTION_POOL_LABEL_KEY);
-      if (actionGroupValue.isPresent()) {
-        actionGroupName = actionGroupValue.get();
-      } else if (actionPoolValue.isPresent()) {
-        actionPoolName = actionPoolValue.get();
-      } else {
-        invalidLabels.add(labels.getString(i));
-      }
     }
 
     return new GithubActionJobBuilder().withId(id).withRunId(runId).withAction(status)
@@ -131,10 +120,8 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
         .withCompletedAt(completedAt)
         .withWorkflowName(workflowName)
         .withRunUrl(runUrl)
-        .withLabels(labelList)
-        .withInvalidLabels(invalidLabels)
-        .withActionGroupName(actionGroupName)
-        .withActionPoolName(actionPoolName)
+        .withRunnerName(runnerName)
+        .withNimbusRunLabels(labelList)
         .withJsonStr(object.toString())
         .withRepositoryFullName(repositoryName).build();
   }
@@ -235,6 +222,13 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
     return runUrl;
   }
 
+  /**
+   * @return name of the runner that picked up the job. Absent until the job is in progress.
+   */
+  public Optional<String> getRunnerName() {
+    return Optional.ofNullable(runnerName);
+  }
+
 
   public List<String> getLabels() {
     return labels;
@@ -270,6 +264,7 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
     private Long startedAt;
     private Long completedAt;
     private String runUrl;
+    private String runnerName;
     private List<String> labels;
     private List<String> invalidLabels;
     private String actionPoolName;
@@ -334,6 +329,11 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
       return this;
     }
 
+    public GithubActionJobBuilder withRunnerName(String runnerName) {
+      this.runnerName = runnerName;
+      return this;
+    }
+
     public GithubActionJobBuilder withLabels(List<String> labels) {
       this.labels = labels;
       return this;
@@ -344,6 +344,29 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
       return this;
     }
 
+    /**
+     * Sets the labels along with the action group and action pool they name. Labels naming neither
+     * are invalid.
+     */
+    public GithubActionJobBuilder withNimbusRunLabels(List<String> labels) {
+      this.labels = labels;
+      this.invalidLabels = new ArrayList<>();
+      for (String label : labels) {
+        Optional<String> actionGroupValue = findNimbusRunLabel(label,
+            Constants.ACTION_GROUP_LABEL_KEY);
+        Optional<String> actionPoolValue = findNimbusRunLabel(label,
+            Constants.ACTION_POOL_LABEL_KEY);
+        if (actionGroupValue.isPresent()) {
+          this.actionGroupName = actionGroupValue.get();
+        } else if (actionPoolValue.isPresent()) {
+          this.actionPoolName = actionPoolValue.get();
+        } else {
+          this.invalidLabels.add(label);
+        }
+      }
+      return this;
+    }
+
     public GithubActionJobBuilder withActionPoolName(String actionPoolName) {
       this.actionPoolName = actionPoolName;
       return this;
@@ -366,7 +389,7 @@ public class GithubActionJob implements Comparable<GithubActionJob>, Comparator<
 
     public GithubActionJob build() {
       return new GithubActionJob(id, runId, action, workflowName, htmlUrl, name, conclusion,
-          startedAt, completedAt, runUrl, labels, invalidLabels, actionPoolName, actionGroupName,
+          startedAt, completedAt, runUrl, runnerName, labels, invalidLabels, actionPoolName, actionGroupName,
           repositoryFullName, jsonStr);
     }
   }
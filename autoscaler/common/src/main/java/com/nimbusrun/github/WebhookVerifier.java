@@ -3,57 +3,96 @@ package com.nimbusrun.github;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Verifies the {@value #SECRET_HEADER} signature GitHub sends with every webhook.
+ * <p>
+ * An instance keeps the keyed {@link Mac}s it computed signatures with and reuses them, a
+ * {@link Mac} being expensive to look up and key but not safe to share between threads. The
+ * signature is compared to the header's hex digits in constant time without building a String.
+ */
 public class WebhookVerifier {
 
   public static final String SECRET_HEADER = "X-Hub-Signature-256";
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final String SIGNATURE_PREFIX = "sha256=";
+  private static final int SIGNATURE_LENGTH = 32;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
   private static Logger log = LoggerFactory.getLogger(WebhookVerifier.class);
 
+  private final SecretKeySpec secretKey;
+  private final ConcurrentLinkedQueue<Signer> signers = new ConcurrentLinkedQueue<>();
+
+  public WebhookVerifier(String secretToken) {
+    this.secretKey = new SecretKeySpec(secretToken.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+  }
+
   public static boolean verifySignature(byte[] payloadBody, String secretToken,
       String signatureHeader) throws SecurityException {
+    return new WebhookVerifier(secretToken).verify(payloadBody, signatureHeader);
+  }
+
+  public boolean verify(byte[] payloadBody, String signatureHeader) throws SecurityException {
     if (signatureHeader == null || signatureHeader.isEmpty()) {
       throw new SecurityException("x-hub-signature-256 header is missing!");
     }
+    Signer signer = signers.poll();
+    if (signer == null) {
+      signer = new Signer(newMac(), new byte[SIGNATURE_LENGTH]);
+    }
+    boolean matches;
+    try {
+      signer.mac().update(payloadBody);
+      signer.mac().doFinal(signer.signature(), 0);
+      matches = constantTimeEquals(signer.signature(), signatureHeader);
+    } catch (ShortBufferException e) {
+      throw new IllegalStateException("Failed to calculate HMAC SHA-256", e);
+    }
+    // only returned once the Mac finished, so it's never handed out mid-computation
+    signers.offer(signer);
+    if (!matches) {
+      log.debug("Request signatures didn't match!");
+    }
+    return matches;
+  }
 
+  private Mac newMac() {
     try {
-      // Compute HMAC SHA-256
-      SecretKeySpec secretKey = new SecretKeySpec(secretToken.getBytes(StandardCharsets.UTF_8),
-          "HmacSHA256");
-      Mac mac = Mac.getInstance("HmacSHA256");
+      Mac mac = Mac.getInstance(ALGORITHM);
       mac.init(secretKey);
-      byte[] hmacBytes = mac.doFinal(payloadBody);
-      String expectedSignature = "sha256=" + bytesToHex(hmacBytes);
-
-      if (!constantTimeEquals(expectedSignature, signatureHeader)) {
-        log.debug("Request signatures didn't match!");
-        return false;
-      }
-      return true;
+      return mac;
     } catch (NoSuchAlgorithmException | InvalidKeyException e) {
       throw new RuntimeException("Failed to calculate HMAC SHA-256", e);
     }
   }
 
-  private static boolean constantTimeEquals(String a, String b) {
-    if (a.length() != b.length()) {
+  /**
+   * Compares {@code signatureHeader} to {@code sha256=} followed by the lowercase hex digits of
+   * {@code signature}.
+   */
+  private static boolean constantTimeEquals(byte[] signature, String signatureHeader) {
+    if (signatureHeader.length() != SIGNATURE_PREFIX.length() + 2 * signature.length) {
       return false;
     }
     int result = 0;
-    for (int i = 0; i < a.length(); i++) {
-      result |= a.charAt(i) ^ b.charAt(i);
+    for (int i = 0; i < SIGNATURE_PREFIX.length(); i++) {
+      result |= SIGNATURE_PREFIX.charAt(i) ^ signatureHeader.charAt(i);
+    }
+    int offset = SIGNATURE_PREFIX.length();
+    for (int i = 0; i < signature.length; i++) {
+      result |= HEX[(signature[i] >> 4) & 0xf] ^ signatureHeader.charAt(offset + 2 * i);
+      result |= HEX[signature[i] & 0xf] ^ signatureHeader.charAt(offset + 2 * i + 1);
     }
     return result == 0;
   }
 
-  private static String bytesToHex(byte[] bytes) {
-    StringBuilder hex = new StringBuilder(2 * bytes.length);
-    for (byte b : bytes) {
-      hex.append(String.format("%02x", b));
-    }
-    return hex.toString();
+  private record Signer(Mac mac, byte[] signature) {
+
   }
 }
@@ -36,6 +36,7 @@ public class GithubActionJobTests {
     Assertions.assertEquals(1757191719000L, job.getStartedAt());
     Assertions.assertEquals(1757191781000L, job.getCompletedAt());
     Assertions.assertEquals("https://api.someurl.github.com", job.getRunUrl());
+    Assertions.assertEquals("github-runner-d6a06a68", job.getRunnerName().get());
     Assertions.assertLinesMatch(List.of("action-group=prod", "action-pool=one"), job.getLabels());
     Assertions.assertLinesMatch(List.of(), job.getInvalidLabels());
     Assertions.assertTrue(job.getActionGroupName().isPresent() );
@@ -88,6 +88,23 @@ class WebhookVerifierTest {
                 () -> WebhookVerifier.verifySignature(payload, secret, ""));
     }
 
+    @Test
+    void verify_reusesTheVerifierAcrossPayloadsAndThreads() throws Exception {
+        WebhookVerifier verifier = new WebhookVerifier("topsecret");
+        java.util.List<java.util.concurrent.Callable<Boolean>> checks = new java.util.ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            byte[] payload = ("payload " + i).getBytes(StandardCharsets.UTF_8);
+            String header = hmacSha256Header(payload, "topsecret");
+            checks.add(() -> verifier.verify(payload, header)
+                    && !verifier.verify(payload, hmacSha256Header(payload, "other")));
+        }
+        try (var executor = java.util.concurrent.Executors.newFixedThreadPool(8)) {
+            for (var result : executor.invokeAll(checks)) {
+                assertTrue(result.get());
+            }
+        }
+    }
+
     // --- helpers ---
 
     private static String hmacSha256Header(byte[] payload, String secret) {
@@ -1,39 +1,59 @@
 package com.nimbusrun.compute.aws.v1;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.nimbusrun.Utils;
 import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.compute.BakedImage;
+import com.nimbusrun.compute.BootImage;
+import com.nimbusrun.compute.BootstrapMode;
 import com.nimbusrun.compute.Compute;
 import com.nimbusrun.compute.ComputeConfigResponse;
+import com.nimbusrun.compute.ComputeOperation;
 import com.nimbusrun.compute.Constants;
 import com.nimbusrun.compute.DeleteInstanceRequest;
 import com.nimbusrun.compute.GithubApi;
+import com.nimbusrun.compute.ImageBakeSettings;
+import com.nimbusrun.compute.ImageBaking;
+import com.nimbusrun.compute.ImageResolver;
 import com.nimbusrun.compute.ListInstanceResponse;
 import com.nimbusrun.compute.OperatingSystem;
 import com.nimbusrun.compute.OperatingSystemFamily;
 import com.nimbusrun.compute.ProcessorArchitecture;
 import com.nimbusrun.compute.aws.v1.AwsConfig.DiskSettings;
+import com.nimbusrun.compute.exceptions.InstanceCreateTimeoutException;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.retry.backoff.FixedDelayBackoffStrategy;
+import software.amazon.awssdk.core.waiters.WaiterOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.BlockDeviceMapping;
+import software.amazon.awssdk.services.ec2.model.CreateImageRequest;
+import software.amazon.awssdk.services.ec2.model.DeleteSnapshotRequest;
+import software.amazon.awssdk.services.ec2.model.DeregisterImageRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeImagesRequest;
 import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
-import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
 import software.amazon.awssdk.services.ec2.model.EbsBlockDevice;
 import software.amazon.awssdk.services.ec2.model.EbsBlockDevice.Builder;
 import software.amazon.awssdk.services.ec2.model.Ec2Exception;
@@ -42,18 +62,19 @@ import software.amazon.awssdk.services.ec2.model.Image;
 import software.amazon.awssdk.services.ec2.model.Instance;
 import software.amazon.awssdk.services.ec2.model.InstanceStateName;
 import software.amazon.awssdk.services.ec2.model.InstanceType;
-import software.amazon.awssdk.services.ec2.model.Reservation;
 import software.amazon.awssdk.services.ec2.model.ResourceType;
 import software.amazon.awssdk.services.ec2.model.RunInstancesRequest;
 import software.amazon.awssdk.services.ec2.model.RunInstancesResponse;
+import software.amazon.awssdk.services.ec2.model.ShutdownBehavior;
 import software.amazon.awssdk.services.ec2.model.Tag;
 import software.amazon.awssdk.services.ec2.model.TagSpecification;
 import software.amazon.awssdk.services.ec2.model.TerminateInstancesRequest;
 import software.amazon.awssdk.services.ec2.model.TerminateInstancesResponse;
 import software.amazon.awssdk.services.ec2.model.VolumeType;
+import software.amazon.awssdk.services.ec2.waiters.Ec2Waiter;
 
 @Component
-public class AWSComputeService extends Compute {
+public class AWSComputeService extends Compute implements ImageBaking {
 
   private static final Logger log = LoggerFactory.getLogger(AWSComputeService.class);
   public static final String DEFAULT_DISK_TYPE = "gp3";
@@ -64,26 +85,123 @@ public class AWSComputeService extends Compute {
   private final Map<String, String> DEFAULT_INSTANCE_LABELS = new HashMap<>();
   private final String APPLICATION_NAME_LABEL_KEY = "NimbusRun";
   private Map<String, Ec2Client> actionPoolToEc2Client = new HashMap<>();
-  private final Cache<AwsConfig.ActionPool, String> amiCache;
+  private final Map<ClientKey, Ec2Client> ec2Clients = new ConcurrentHashMap<>();
+  /**
+   * Latest AMI per region, credentials profile, operating system and architecture, shared by every
+   * action pool with the same combination.
+   */
+  private final ImageResolver<AmiKey> amis = new ImageResolver<>("aws",
+      key -> latestAmi(ec2Clients.get(key.clientKey()), key.os(), key.architecture()),
+      AMI_REFRESH_INTERVAL);
   private static final ProcessorArchitecture DEFAULT_PROCESSOR_ARCHITECTURE = ProcessorArchitecture.X64;
   private static final AwsOperatingSystem DEFAULT_OPERATING_SYSTEM = AwsOperatingSystem.UBUNTU_24_04;
+  /**
+   * EC2 accepts at most 200 values per filter.
+   */
+  private static final int MAX_FILTER_VALUES = 200;
+  private static final int MAX_DESCRIBE_RESULTS = 1000;
+  /**
+   * How often the latest AMIs are looked up again. Canonical publishes new images every few days.
+   */
+  private static final Duration AMI_REFRESH_INTERVAL = Duration.ofHours(6);
+  /**
+   * How often a builder is checked for having powered itself off.
+   */
+  private static final Duration BAKE_POLL_INTERVAL = Duration.ofSeconds(15);
+  /**
+   * Shell expression that resolves to the instance id through IMDSv2. Used as the runner name for
+   * instances launched in a batch, which matches the name {@link #listComputeInstances} falls back
+   * to when an instance has no Name tag.
+   */
+  private static final String INSTANCE_ID_FROM_METADATA = "$(curl -s -H \"X-aws-ec2-metadata-token: $(curl -s -X PUT http://169.254.169.254/latest/api/token -H 'X-aws-ec2-metadata-token-ttl-seconds: 60')\" http://169.254.169.254/latest/meta-data/instance-id)";
 
   //    private String applicationName;
   public AWSComputeService(GithubApi githubService) {
     this.githubService = githubService;
-    amiCache = Caffeine.newBuilder()
-        .maximumSize(1_000_000)
-        .expireAfterWrite(Duration.ofHours(24))
-        .build();
+  }
 
+  /**
+   * Stops refreshing the AMIs. Called by Spring on shutdown.
+   */
+  @PreDestroy
+  public void close() {
+    amis.close();
   }
 
 
   @Override
   public ListInstanceResponse listComputeInstances(ActionPool autoScalePool) {
-    List<Instance> instanceIds = new ArrayList<>();
     AwsConfig.ActionPool actionPool = this.awsActionPoolMap.get(autoScalePool.getName());
     Ec2Client ec2 = actionPoolToEc2Client.get(actionPool.getName());
+    return new ListInstanceResponse(describeInstances(ec2, List.of(actionPool.getName()))
+        .map(this::toListInstance).toList());
+  }
+
+  /**
+   * Action pools sharing a region and credentials profile are listed together with one paginated
+   * DescribeInstances call that filters on all of their names, and the instances are split back
+   * into per pool buckets by their {@value Constants#ACTION_POOL_LABEL_KEY} tag. Each pool could
+   * be using a user/role restricted to just its region, so pools are never listed with another
+   * pool's credentials. Groups are listed concurrently.
+   * <p>
+   * If a group's call fails its pools are listed one by one, so a pool that can't be listed is
+   * left out of the result without losing the others. Pools missing from the result keep their
+   * previous state in the autoscaler.
+   *
+   * @return a map of action pool name to instances associated with them
+   */
+  @Override
+  public Map<String, ListInstanceResponse> listAllComputeInstances() {
+    Map<ClientKey, List<AwsConfig.ActionPool>> groups = this.awsActionPoolMap.values().stream()
+        .collect(Collectors.groupingBy(ClientKey::of));
+    Map<String, ListInstanceResponse> responseMap = new ConcurrentHashMap<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      groups.forEach((key, actionPools) ->
+          executor.execute(() -> listGroup(key, actionPools, responseMap)));
+    }
+    return responseMap;
+  }
+
+  private void listGroup(ClientKey key, List<AwsConfig.ActionPool> actionPools,
+      Map<String, ListInstanceResponse> responseMap) {
+    List<String> names = actionPools.stream().map(AwsConfig.ActionPool::getName).toList();
+    try {
+      Map<String, List<ListInstanceResponse.Instance>> instancesByPool = new HashMap<>();
+      names.forEach(name -> instancesByPool.put(name, new ArrayList<>()));
+      Ec2Client ec2 = actionPoolToEc2Client.get(names.get(0));
+      for (int i = 0; i < names.size(); i += MAX_FILTER_VALUES) {
+        describeInstances(ec2, names.subList(i, Math.min(names.size(), i + MAX_FILTER_VALUES)))
+            .forEach(instance -> instance.tags().stream()
+                .filter(t -> t.key().equals(Constants.ACTION_POOL_LABEL_KEY))
+                .map(t -> instancesByPool.get(t.value()))
+                .filter(Objects::nonNull)
+                .findAny()
+                .ifPresent(instances -> instances.add(toListInstance(instance))));
+      }
+      instancesByPool.forEach(
+          (name, instances) -> responseMap.put(name, new ListInstanceResponse(instances)));
+    } catch (Exception e) {
+      Utils.excessiveErrorLog(
+          "Failed to list instances of action pools %s in region %s, listing them one by one".formatted(
+              names, key.region()), e, log);
+      for (AwsConfig.ActionPool actionPool : actionPools) {
+        try {
+          responseMap.put(actionPool.getName(),
+              listComputeInstances(actionPool.toAutoScalerActionPool()));
+        } catch (Exception poolException) {
+          Utils.excessiveErrorLog(
+              "Failed to list instances of action pool %s".formatted(actionPool.getName()),
+              poolException, log);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param actionPoolNames at most {@value #MAX_FILTER_VALUES} action pools
+   * @return instances of the action pools that aren't terminated, across all result pages
+   */
+  private Stream<Instance> describeInstances(Ec2Client ec2, List<String> actionPoolNames) {
     Filter notTerminatedFilter = Filter.builder().name("instance-state-name")
         .values(
             InstanceStateName.PENDING.toString(),
@@ -95,53 +213,27 @@ public class AWSComputeService extends Compute {
         .build();
     List<Filter> filters = new ArrayList<>();
     filters.add(notTerminatedFilter);
-    filters.addAll(tagFilters(actionPool.getName()));
+    filters.addAll(tagFilters(actionPoolNames));
     DescribeInstancesRequest request = DescribeInstancesRequest.builder()
         .filters(filters)
+        .maxResults(MAX_DESCRIBE_RESULTS)
         .build();
-
-    DescribeInstancesResponse response = ec2.describeInstances(request);
-
-    for (Reservation reservation : response.reservations()) {
-      for (Instance instance : reservation.instances()) {
-        instanceIds.add(instance);
-      }
-    }
-
-    return new ListInstanceResponse(instanceIds.stream()
-        .map(i -> {
-          String name = i.tags()
-              .stream()
-              .filter(t -> t.key().equalsIgnoreCase("name"))
-              .map(Tag::value)
-              .findAny()
-              .orElse(i.instanceId() + "");
-          return new ListInstanceResponse.Instance(i.instanceId(), name,
-              i.launchTime().toEpochMilli());
-        }).toList());
+    return ec2.describeInstancesPaginator(request).stream()
+        .flatMap(response -> response.reservations().stream())
+        .flatMap(reservation -> reservation.instances().stream());
   }
 
-  /**
-   * Unfortunately we cannot aggregate the regions and list all the instance for that region with
-   * the {@link AWSComputeService#DEFAULT_INSTANCE_LABELS}. because each action pool could be using
-   * a user/role restricted to just one region. :(.
-   *
-   * @return a map of action pool name to instances associated with them
-   */
-  @Override
-  public Map<String, ListInstanceResponse> listAllComputeInstances() {
-    Map<String, ListInstanceResponse> responseMap = new HashMap<>();
-    try {
-      for (String actionPoolName : this.awsActionPoolMap.keySet()) {
-        responseMap.put(actionPoolName,
-            listComputeInstances(this.awsActionPoolMap.get(actionPoolName).toAutoScalerActionPool()));
-      }
-    } catch (Exception e) {
-    }
-    return responseMap;
+  private ListInstanceResponse.Instance toListInstance(Instance instance) {
+    String name = instance.tags()
+        .stream()
+        .filter(t -> t.key().equalsIgnoreCase("name"))
+        .map(Tag::value)
+        .findAny()
+        .orElse(instance.instanceId() + "");
+    return new ListInstanceResponse.Instance(instance.instanceId(), name,
+        instance.launchTime().toEpochMilli());
   }
 
-
   @Override
   public boolean deleteCompute(DeleteInstanceRequest deleteInstanceRequest) {
     AwsConfig.ActionPool actionPool = this.awsActionPoolMap.get(
@@ -187,17 +279,29 @@ public class AWSComputeService extends Compute {
         .collect(Collectors.toMap(AwsConfig.ActionPool::getName, Function.identity(), (a, b) -> a));
     DEFAULT_INSTANCE_LABELS.put(APPLICATION_NAME_LABEL_KEY, autoScalerName);
     generateEc2ClientPerActionPool(this.awsActionPoolMap);
+    if (errors.isEmpty()) {
+      amis.warmUp(this.awsActionPoolMap.values().stream().filter(ap -> ap.getImage() == null)
+          .map(AmiKey::of).toList());
+    }
     return new ComputeConfigResponse(errors, warnings,
         actionPools.stream().map(AwsConfig.ActionPool::toAutoScalerActionPool).toList());
   }
 
+  /**
+   * Action pools with the same region and credentials profile share a client.
+   */
   public void generateEc2ClientPerActionPool(Map<String, AwsConfig.ActionPool> actionPoolMap) {
     for (AwsConfig.ActionPool ap : actionPoolMap.values()) {
       this.actionPoolToEc2Client.put(ap.getName(),
-          AwsClients.ec2Client(ap.getCredentialsProfileOpt(), Region.of(ap.getRegion())));
+          ec2Clients.computeIfAbsent(ClientKey.of(ap), key -> ec2Client(ap)));
     }
   }
 
+  Ec2Client ec2Client(AwsConfig.ActionPool actionPool) {
+    return AwsClients.ec2Client(actionPool.getCredentialsProfileOpt(),
+        Region.of(actionPool.getRegion()));
+  }
+
 
   private void validateActionPools(List<AwsConfig.ActionPool> actionPools, List<String> errors,
       List<String> warnings) {
@@ -259,6 +363,13 @@ public class AWSComputeService extends Compute {
             "Action Pool %s not configured with idleScaleDownInMinutes. Please add to defaultSettings or on Action Pool".formatted(
                 name));
       }
+      if (actionPool.getMinIdleInstances() != null && (actionPool.getMinIdleInstances() < 0
+          || (actionPool.getMaxInstanceCount() != null && actionPool.getMaxInstanceCount() != 0
+          && actionPool.getMinIdleInstances() > actionPool.getMaxInstanceCount()))) {
+        errors.add(
+            "Action Pool %s minIdleInstances must be between 0 and maxInstanceCount".formatted(
+                name));
+      }
       if (actionPool.getOs() != null && actionPool.getOs() == AwsOperatingSystem.UNKNOWN) {
         errors.add("Invalid operating system specified for action pool %s".formatted(name));
       } else if (actionPool.getOs() != null && actionPool.getOs() != AwsOperatingSystem.UNKNOWN
@@ -271,6 +382,14 @@ public class AWSComputeService extends Compute {
           && actionPool.getArchitecture() == ProcessorArchitecture.UNKNOWN) {
         errors.add("Invalid cpu architecture specified for action pool %s".formatted(name));
       }
+      if (actionPool.getBootstrapMode() == BootstrapMode.UNKNOWN) {
+        errors.add("Invalid bootstrapMode specified for action pool %s".formatted(name));
+      } else if (actionPool.getBootstrapMode() == BootstrapMode.PREBAKED
+          && actionPool.getImage() == null) {
+        errors.add(
+            "Action Pool %s uses bootstrapMode prebaked but has no image. Please add the AMI id of the prebaked image".formatted(
+                name));
+      }
     }
   }
 
@@ -289,6 +408,10 @@ public class AWSComputeService extends Compute {
         ap.setOs(DEFAULT_OPERATING_SYSTEM);
       }
 
+      if (ap.getBootstrapMode() == null) {
+        ap.setBootstrapMode(BootstrapMode.FULL);
+      }
+
       if (ap.getMaxInstanceCount() == null) {
         log.info("Action pool {} using default maxInstanceCount value of {}", ap.getName(),
             Constants.DEFAULT_MAX_INSTANCES);
@@ -316,10 +439,6 @@ public class AWSComputeService extends Compute {
     });
   }
 
-  private List<Tag> generateInstanceTags(String actionPoolName) {
-    return generateInstanceTags(actionPoolName, null);
-  }
-
   private List<Tag> generateInstanceTags(String actionPoolName, String runnerName) {
     Map<String, String> map = new HashMap<>();
     map.putAll(DEFAULT_INSTANCE_LABELS);
@@ -330,14 +449,100 @@ public class AWSComputeService extends Compute {
     return map.keySet().stream().map(k -> Tag.builder().key(k).value(map.get(k)).build()).toList();
   }
 
-  private List<Filter> tagFilters(String actionPoolName) {
-    List<Tag> tags = this.generateInstanceTags(actionPoolName);
-    return tags.stream().map(t -> Filter.builder().name("tag:" + t.key()).values(t.value()).build())
-        .toList();
+  private List<Filter> tagFilters(List<String> actionPoolNames) {
+    List<Filter> filters = new ArrayList<>();
+    DEFAULT_INSTANCE_LABELS.forEach(
+        (key, value) -> filters.add(Filter.builder().name("tag:" + key).values(value).build()));
+    filters.add(Filter.builder().name("tag:" + Constants.ACTION_POOL_LABEL_KEY)
+        .values(actionPoolNames).build());
+    return filters;
   }
 
   @Override
   public boolean createCompute(ActionPool autoScalerActionPool) {
+    return createCompute(autoScalerActionPool, 1) == 1;
+  }
+
+  /**
+   * Launches up to {@code count} instances with a single RunInstances call. When more than one
+   * instance is requested they share the same user data, so the instances are not given a Name tag
+   * and each runner registers itself under its instance id.
+   */
+  @Override
+  public int createCompute(ActionPool autoScalerActionPool, int count) {
+    return launch(autoScalerActionPool, count).size();
+  }
+
+  /**
+   * Launches the instances like {@link #createCompute(ActionPool, int)} on a virtual thread. The
+   * operation is accepted once RunInstances returned, and completes once EC2 reports the instances
+   * running, waited for with the EC2 waiter. If the waiter gives up the result completes with an
+   * {@link InstanceCreateTimeoutException}. The instances may still boot and are picked up by the
+   * next listing.
+   */
+  @Override
+  public ComputeOperation<Integer> startCreateCompute(ActionPool autoScalerActionPool,
+      int count) {
+    Ec2Client ec2 = actionPoolToEc2Client.get(autoScalerActionPool.getName());
+    CompletableFuture<List<String>> launched = supplyAsync(
+        () -> launch(autoScalerActionPool, count));
+    CompletableFuture<Integer> running = launched.thenCompose(instanceIds -> instanceIds.isEmpty()
+        ? CompletableFuture.completedFuture(0)
+        : supplyAsync(() -> waitUntilRunning(ec2, instanceIds)));
+    return new ComputeOperation<>(launched, running);
+  }
+
+  private int waitUntilRunning(Ec2Client ec2, List<String> instanceIds) {
+    try (Ec2Waiter waiter = ec2.waiter()) {
+      return waiter.waitUntilInstanceRunning(
+              DescribeInstancesRequest.builder().instanceIds(instanceIds).build())
+          .matched().response()
+          .map(response -> (int) response.reservations().stream()
+              .flatMap(reservation -> reservation.instances().stream())
+              .filter(instance -> instance.state().name() == InstanceStateName.RUNNING)
+              .count())
+          .orElseThrow(() -> new InstanceCreateTimeoutException(true));
+    } catch (SdkClientException e) {
+      log.warn("Instances {} were launched but not confirmed running: {}", instanceIds,
+          e.getMessage());
+      throw new InstanceCreateTimeoutException(true);
+    }
+  }
+
+  /**
+   * Terminates the instance like {@link #deleteCompute(DeleteInstanceRequest)} on a virtual
+   * thread. The operation is accepted once TerminateInstances returned, and completes once EC2
+   * reports the instance terminated, waited for with the EC2 waiter.
+   */
+  @Override
+  public ComputeOperation<Boolean> startDeleteCompute(
+      DeleteInstanceRequest deleteInstanceRequest) {
+    Ec2Client ec2 = actionPoolToEc2Client.get(deleteInstanceRequest.getActionPool().getName());
+    String instanceId = deleteInstanceRequest.getInstanceId();
+    CompletableFuture<Boolean> terminating = supplyAsync(
+        () -> deleteCompute(deleteInstanceRequest));
+    CompletableFuture<Boolean> terminated = terminating.thenCompose(deleted -> !deleted
+        ? CompletableFuture.completedFuture(false)
+        : supplyAsync(() -> {
+          try (Ec2Waiter waiter = ec2.waiter()) {
+            waiter.waitUntilInstanceTerminated(
+                DescribeInstancesRequest.builder().instanceIds(instanceId).build());
+          } catch (SdkClientException e) {
+            log.info("Instance {} is terminating but the termination wasn't confirmed: {}",
+                instanceId, e.getMessage());
+          }
+          return true;
+        }));
+    return new ComputeOperation<>(terminating, terminated);
+  }
+
+  /**
+   * @return ids of the launched instances, empty if none could be launched
+   */
+  private List<String> launch(ActionPool autoScalerActionPool, int count) {
+    if (count < 1) {
+      return List.of();
+    }
     AwsConfig.ActionPool actionPool = this.awsActionPoolMap.get(autoScalerActionPool.getName());
 
     // Configure AWS client
@@ -345,40 +550,43 @@ public class AWSComputeService extends Compute {
 
     try {
       // Set up instance parameters
-      String amiId = amiCache.get(actionPool, (r) ->
-          latestAmi(ec2, actionPool).orElse(null));
+      BootImage bootImage = actionPool.bootImage();
+      String amiId = bootImage.imageOpt().or(() -> amis.resolve(AmiKey.of(actionPool)))
+          .orElse(null);
       if (amiId == null) {
         log.error("Ubuntu AMI does not exist for region {}", actionPool.getRegion());
-        return false;
+        return List.of();
       }
       // Create startup script for GitHub runner
       Optional<String> runnerToken = this.githubService.generateRunnerToken();
       if (runnerToken.isEmpty()) {
         log.error("Failed to retrieve github runner token");
-        return false;
+        return List.of();
       }
-      String instanceName = this.createInstanceName();
+      String instanceName = count == 1 ? this.createInstanceName() : null;
+      String runnerName = instanceName != null ? instanceName : INSTANCE_ID_FROM_METADATA;
 
       // Generate the startup script
       String startupScript = startUpScript(
           runnerToken.get(),
           githubService.getRunnerGroupName(),
           autoScalerActionPool,
-          instanceName,
+          runnerName,
           githubService.getOrganization(),
           actionPool.getArchitecture(),
-          actionPool.getOs().getOperatingSystem()
+          actionPool.getOs().getOperatingSystem(),
+          bootImage.bootstrapMode()
       );
 
       // Encode the startup script in Base64
       String encodedScript = Base64.getEncoder().encodeToString(startupScript.getBytes());
 
-      // Create the request to run a new EC2 instance
+      // Create the request to run new EC2 instances
       RunInstancesRequest.Builder runRequest = RunInstancesRequest.builder()
 
           .imageId(amiId)
           .instanceType(actionPool.getInstanceType())
-          .maxCount(1)
+          .maxCount(count)
           .minCount(1)
           .securityGroupIds(actionPool.getSecurityGroups())
           .subnetId(actionPool.getSubnet())
@@ -394,34 +602,170 @@ public class AWSComputeService extends Compute {
       if (actionPool.getKeyPairNameOpt().isPresent()) {
         runRequest.keyName(actionPool.getKeyPairNameOpt().get());
       }
-      // Create block device mapping for root volume with specified size and type
-      int diskSize = actionPool.getDiskSettings().getSize();
-      String diskType = actionPool.getDiskSettings().getType();
-      Builder ebs = EbsBlockDevice.builder()
-          .volumeSize(diskSize)
-          .volumeType(VolumeType.fromValue(diskType))
-          .deleteOnTermination(true);
-      if(actionPool.getDiskSettings().getIops().isPresent()){
-        ebs.iops(actionPool.getDiskSettings().getIops().get());
-      }
-
-      BlockDeviceMapping rootVolume = BlockDeviceMapping.builder()
-          .deviceName(rootDeviceName(actionPool.getOs().getOperatingSystem().getFamily())) // Root device name for Ubuntu
-          .ebs(ebs.build())
-          .build();
-      runRequest.blockDeviceMappings(rootVolume);
+      runRequest.blockDeviceMappings(rootVolume(actionPool));
 
-      log.info("Creating instance {} for action pool {} ", instanceName, actionPool.getName());
-      // Launch the instance
+      log.info("Creating {} instance(s) for action pool {} ", count, actionPool.getName());
+      // Launch the instances
       RunInstancesResponse response = ec2.runInstances(runRequest.build());
-      log.info("Instance created : %s".formatted(instanceName));
+      log.info("Instances created : %s".formatted(
+          response.instances().stream().map(Instance::instanceId).toList()));
 
-      return true;
+      return response.instances().stream().map(Instance::instanceId).toList();
     } catch (Exception e) {
       Utils.excessiveErrorLog("Failed to create instance %s".formatted(e.getMessage()), e, log);
 
     }
-    return false;
+    return List.of();
+  }
+
+  /**
+   * Block device mapping for root volume with the pool's size and type.
+   */
+  private BlockDeviceMapping rootVolume(AwsConfig.ActionPool actionPool) {
+    int diskSize = actionPool.getDiskSettings().getSize();
+    String diskType = actionPool.getDiskSettings().getType();
+    Builder ebs = EbsBlockDevice.builder()
+        .volumeSize(diskSize)
+        .volumeType(VolumeType.fromValue(diskType))
+        .deleteOnTermination(true);
+    if(actionPool.getDiskSettings().getIops().isPresent()){
+      ebs.iops(actionPool.getDiskSettings().getIops().get());
+    }
+
+    return BlockDeviceMapping.builder()
+        .deviceName(rootDeviceName(actionPool.getOs().getOperatingSystem().getFamily())) // Root device name for Ubuntu
+        .ebs(ebs.build())
+        .build();
+  }
+
+  @Override
+  public Optional<ImageBakeSettings> imageBakeSettings(ActionPool autoScalerActionPool) {
+    return Optional.ofNullable(this.awsActionPoolMap.get(autoScalerActionPool.getName()))
+        .map(AwsConfig.ActionPool::getImageBaking);
+  }
+
+  /**
+   * Launches a builder from the latest AMI of the pool's operating system. The bake script powers
+   * it off, which stops it, and the stopped builder is registered as an AMI. The builder is
+   * terminated either way.
+   */
+  @Override
+  public CompletableFuture<String> bakeImage(ActionPool autoScalerActionPool, Duration timeout) {
+    AwsConfig.ActionPool actionPool = this.awsActionPoolMap.get(autoScalerActionPool.getName());
+    Ec2Client ec2 = actionPoolToEc2Client.get(actionPool.getName());
+    return supplyAsync(() -> {
+      String baseAmi = amis.resolve(AmiKey.of(actionPool)).orElseThrow(
+          () -> new IllegalStateException(
+              "No base AMI for action pool %s".formatted(actionPool.getName())));
+      String name = "nimbus-run-bake-%s-%s".formatted(actionPool.getName(),
+          HexFormat.of().toHexDigits(System.currentTimeMillis()));
+      List<Tag> tags = generateBakeTags(actionPool.getName(), name);
+      String userData = Base64.getEncoder().encodeToString(
+          bakeScript(actionPool.getArchitecture(), actionPool.getOs().getOperatingSystem(),
+              actionPool.getImageBaking()).getBytes());
+      RunInstancesRequest.Builder runRequest = RunInstancesRequest.builder()
+          .imageId(baseAmi)
+          .instanceType(actionPool.getInstanceType())
+          .maxCount(1)
+          .minCount(1)
+          .securityGroupIds(actionPool.getSecurityGroups())
+          .subnetId(actionPool.getSubnet())
+          .userData(userData)
+          .instanceInitiatedShutdownBehavior(ShutdownBehavior.STOP)
+          .blockDeviceMappings(rootVolume(actionPool))
+          .tagSpecifications(TagSpecification.builder()
+              .resourceType(ResourceType.INSTANCE).tags(tags).build());
+      actionPool.getKeyPairNameOpt().ifPresent(runRequest::keyName);
+      String builderId = ec2.runInstances(runRequest.build()).instances().get(0).instanceId();
+      log.info("Baking image {} for action pool {} on builder {}", name, actionPool.getName(),
+          builderId);
+      try (Ec2Waiter waiter = Ec2Waiter.builder().client(ec2)
+          .overrideConfiguration(WaiterOverrideConfiguration.builder()
+              .maxAttempts((int) Math.max(1, timeout.dividedBy(BAKE_POLL_INTERVAL)))
+              .backoffStrategy(FixedDelayBackoffStrategy.create(BAKE_POLL_INTERVAL))
+              .build())
+          .build()) {
+        waiter.waitUntilInstanceStopped(
+                DescribeInstancesRequest.builder().instanceIds(builderId).build())
+            .matched().exception().ifPresent(e -> {
+              throw new IllegalStateException(
+                  "Image builder %s didn't finish within %s".formatted(builderId, timeout), e);
+            });
+        String imageId = ec2.createImage(CreateImageRequest.builder()
+            .instanceId(builderId)
+            .name(name)
+            .tagSpecifications(TagSpecification.builder()
+                .resourceType(ResourceType.IMAGE).tags(tags).build())
+            .build()).imageId();
+        waiter.waitUntilImageAvailable(DescribeImagesRequest.builder().imageIds(imageId).build())
+            .matched().exception().ifPresent(e -> {
+              throw new IllegalStateException(
+                  "Image %s didn't become available within %s".formatted(imageId, timeout), e);
+            });
+        return imageId;
+      } finally {
+        try {
+          ec2.terminateInstances(TerminateInstancesRequest.builder().instanceIds(builderId)
+              .build());
+        } catch (RuntimeException e) {
+          log.error("Failed to terminate image builder {}", builderId, e);
+        }
+      }
+    });
+  }
+
+  private List<Tag> generateBakeTags(String actionPoolName, String name) {
+    Map<String, String> map = new HashMap<>(DEFAULT_INSTANCE_LABELS);
+    map.put(Constants.IMAGE_BAKE_LABEL_KEY, actionPoolName);
+    map.put("Name", name);
+    return map.keySet().stream().map(k -> Tag.builder().key(k).value(map.get(k)).build()).toList();
+  }
+
+  @Override
+  public List<BakedImage> listBakedImages(ActionPool autoScalerActionPool) {
+    AwsConfig.ActionPool actionPool = this.awsActionPoolMap.get(autoScalerActionPool.getName());
+    Ec2Client ec2 = actionPoolToEc2Client.get(actionPool.getName());
+    DescribeImagesRequest request = DescribeImagesRequest.builder()
+        .owners("self")
+        .filters(
+            Filter.builder().name("tag:" + Constants.IMAGE_BAKE_LABEL_KEY)
+                .values(actionPool.getName()).build(),
+            Filter.builder().name("state").values("available").build())
+        .build();
+    return ec2.describeImages(request).images().stream()
+        .map(image -> new BakedImage(image.imageId(), Instant.parse(image.creationDate())))
+        .sorted(Comparator.comparing(BakedImage::createdAt).reversed())
+        .toList();
+  }
+
+  @Override
+  public void useImage(ActionPool autoScalerActionPool, String image) {
+    AwsConfig.ActionPool actionPool = this.awsActionPoolMap.get(autoScalerActionPool.getName());
+    actionPool.useBakedImage(image);
+  }
+
+  /**
+   * Deregisters the AMI and deletes the snapshots backing it.
+   */
+  @Override
+  public boolean deleteImage(ActionPool autoScalerActionPool, String image) {
+    Ec2Client ec2 = actionPoolToEc2Client.get(autoScalerActionPool.getName());
+    try {
+      List<String> snapshotIds = ec2.describeImages(
+              DescribeImagesRequest.builder().imageIds(image).build()).images().stream()
+          .flatMap(ami -> ami.blockDeviceMappings().stream())
+          .filter(mapping -> mapping.ebs() != null && mapping.ebs().snapshotId() != null)
+          .map(mapping -> mapping.ebs().snapshotId())
+          .toList();
+      ec2.deregisterImage(DeregisterImageRequest.builder().imageId(image).build());
+      snapshotIds.forEach(snapshotId -> ec2.deleteSnapshot(
+          DeleteSnapshotRequest.builder().snapshotId(snapshotId).build()));
+      return true;
+    } catch (Exception e) {
+      Utils.excessiveErrorLog("Failed to delete image %s due to %s".formatted(image,
+          e.getMessage()), e, log);
+      return false;
+    }
   }
 
   public String rootDeviceName(OperatingSystemFamily family){
@@ -443,10 +787,9 @@ public class AWSComputeService extends Compute {
     return type;
   }
 
-  public static Optional<String> latestAmi(Ec2Client ec2Client, AwsConfig.ActionPool actionPool) {
+  public static Optional<String> latestAmi(Ec2Client ec2Client, AwsOperatingSystem os,
+      ProcessorArchitecture architecture) {
     try {
-      AwsOperatingSystem os = actionPool.getOs();
-      ProcessorArchitecture architecture = actionPool.getArchitecture();
       DescribeImagesRequest request = DescribeImagesRequest.builder()
           .owners(os.gcpProviderProject()) // Canonical's owner ID. Company managing the images.
           .filters(
@@ -473,21 +816,43 @@ public class AWSComputeService extends Compute {
 
       if (!images.isEmpty()) {
         String latestAmiId = images.get(0).imageId();
-        log.info("Found ami %s for action pool %s".formatted(latestAmiId, actionPool.getName()));
+        log.info("Found ami %s for %s %s".formatted(latestAmiId, os, architecture));
         return Optional.of(latestAmiId);
       } else {
-        log.warn("No Ubuntu AMIs found matching the criteria for action pool %s.".formatted(
-            actionPool.getName()));
+        log.warn("No AMIs found matching the criteria for %s %s.".formatted(os, architecture));
 
       }
     } catch (Exception e) {
       Utils.excessiveErrorLog(
-          "Error finding latest Ubuntu AMI for action pool %s due to %s".formatted(actionPool.getName(),
+          "Error finding latest AMI for %s %s due to %s".formatted(os, architecture,
               e.getMessage()), e, log);
 
     }
     return Optional.empty();
   }
+  /**
+   * Region and credentials profile an action pool's EC2 calls are made with.
+   */
+  private record ClientKey(String region, String credentialsProfile) {
+
+    static ClientKey of(AwsConfig.ActionPool actionPool) {
+      return new ClientKey(actionPool.getRegion(), actionPool.getCredentialsProfile());
+    }
+  }
+
+  /**
+   * AMIs are regional. The lookup runs with the pool's credentials profile, so pools that can only
+   * see their own region never share a lookup with another profile.
+   */
+  private record AmiKey(ClientKey clientKey, AwsOperatingSystem os,
+                        ProcessorArchitecture architecture) {
+
+    static AmiKey of(AwsConfig.ActionPool actionPool) {
+      return new AmiKey(ClientKey.of(actionPool), actionPool.getOs(),
+          actionPool.getArchitecture());
+    }
+  }
+
   @Override
   public Map<String, Object> actionPoolToApiResponse() {
     return this.awsActionPoolMap.keySet().stream().collect(Collectors.toMap(Function.identity(), i-> (Object) this.awsActionPoolMap.get(i)));
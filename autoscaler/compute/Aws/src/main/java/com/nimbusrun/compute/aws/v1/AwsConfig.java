@@ -1,11 +1,15 @@
 package com.nimbusrun.compute.aws.v1;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.nimbusrun.Utils;
+import com.nimbusrun.compute.BootImage;
+import com.nimbusrun.compute.BootstrapMode;
+import com.nimbusrun.compute.ImageBakeSettings;
 import com.nimbusrun.compute.ProcessorArchitecture;
 import java.util.List;
 import java.util.Map;
@@ -73,9 +77,16 @@ public class AwsConfig {
         actionPool::setIdleScaleDownInMinutes);
     setFromDefault(actionPool::getIdleScaleDownInMinutes, defaults::getIdleScaleDownInMinutes,
         actionPool::setIdleScaleDownInMinutes);
+    setFromDefault(actionPool::getMinIdleInstances, defaults::getMinIdleInstances,
+        actionPool::setMinIdleInstances);
     setFromDefault(actionPool::getKeyPairName, defaults::getKeyPairName,
         actionPool::setKeyPairName);
     setFromDefault(actionPool::getOs, defaults::getOs, actionPool::setOs);
+    setFromDefault(actionPool::getImage, defaults::getImage, actionPool::setImage);
+    setFromDefault(actionPool::getBootstrapMode, defaults::getBootstrapMode,
+        actionPool::setBootstrapMode);
+    setFromDefault(actionPool::getImageBaking, defaults::getImageBaking,
+        actionPool::setImageBaking);
     setFromDefault(actionPool::getArchitecture, defaults::getArchitecture,
         actionPool::setArchitecture);
 
@@ -142,6 +153,7 @@ public class AwsConfig {
     private String instanceType;
     private Integer maxInstanceCount;
     private Integer idleScaleDownInMinutes;
+    private Integer minIdleInstances;
     private String credentialsProfile;
     private String subnet;
     private List<String> securityGroups;
@@ -153,10 +165,22 @@ public class AwsConfig {
     @JsonSerialize(using = AwsOperatingSystem.Serializer.class)
     private AwsOperatingSystem os;
     private String keyPairName;
+    /**
+     * Image to boot instead of the latest image of {@code os}.
+     */
+    private String image;
+    @JsonDeserialize(using = BootstrapMode.Deserialize.class)
+    private BootstrapMode bootstrapMode;
+    private ImageBakeSettings imageBaking;
+    /**
+     * Set once the pool switched to a baked image, overrides {@code image} and
+     * {@code bootstrapMode}.
+     */
+    private volatile BootImage bakedImage;
 
     public com.nimbusrun.compute.ActionPool toAutoScalerActionPool() {
       return new com.nimbusrun.compute.ActionPool(this.name, this.maxInstanceCount,
-          this.idleScaleDownInMinutes, isDefault);
+          this.idleScaleDownInMinutes, this.minIdleInstances, isDefault);
     }
 
     @JsonDeserialize
@@ -208,6 +232,14 @@ public class AwsConfig {
       this.idleScaleDownInMinutes = idleScaleDownInMinutes;
     }
 
+    public Integer getMinIdleInstances() {
+      return minIdleInstances;
+    }
+
+    public void setMinIdleInstances(Integer minIdleInstances) {
+      this.minIdleInstances = minIdleInstances;
+    }
+
     public String getCredentialsProfile() {
       return credentialsProfile;
     }
@@ -273,6 +305,50 @@ public class AwsConfig {
     public void setOs(AwsOperatingSystem os) {
       this.os = os;
     }
+
+    public String getImage() {
+      return image;
+    }
+
+    public void setImage(String image) {
+      this.image = image;
+    }
+
+    @JsonIgnore
+    public Optional<String> getImageOpt() {
+      return Optional.ofNullable(this.image);
+    }
+
+    public BootstrapMode getBootstrapMode() {
+      return bootstrapMode;
+    }
+
+    public void setBootstrapMode(BootstrapMode bootstrapMode) {
+      this.bootstrapMode = bootstrapMode;
+    }
+
+    public ImageBakeSettings getImageBaking() {
+      return imageBaking;
+    }
+
+    /**
+     * @return the image and bootstrap mode to launch with, read together
+     */
+    public BootImage bootImage() {
+      BootImage baked = this.bakedImage;
+      return baked != null ? baked : new BootImage(this.image, this.bootstrapMode);
+    }
+
+    /**
+     * Switches the pool to boot {@code image} with {@link BootstrapMode#PREBAKED}.
+     */
+    public void useBakedImage(String image) {
+      this.bakedImage = new BootImage(image, BootstrapMode.PREBAKED);
+    }
+
+    public void setImageBaking(ImageBakeSettings imageBaking) {
+      this.imageBaking = imageBaking;
+    }
   }
 
   public ActionPool getDefaultSettings() {
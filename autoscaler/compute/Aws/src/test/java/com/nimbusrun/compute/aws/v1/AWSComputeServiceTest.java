@@ -0,0 +1,771 @@
+package com.nimbusrun.compute.aws.v1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.compute.BakedImage;
+import com.nimbusrun.compute.ComputeConfigResponse;
+import com.nimbusrun.compute.ComputeOperation;
+import com.nimbusrun.compute.Constants;
+import com.nimbusrun.compute.DeleteInstanceRequest;
+import com.nimbusrun.compute.GithubApi;
+import com.nimbusrun.compute.ListInstanceResponse;
+import com.nimbusrun.compute.ProcessorArchitecture;
+import com.nimbusrun.compute.exceptions.InstanceCreateTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.internal.waiters.ResponseOrException;
+import software.amazon.awssdk.core.waiters.WaiterResponse;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.ec2.model.BlockDeviceMapping;
+import software.amazon.awssdk.services.ec2.model.CreateImageRequest;
+import software.amazon.awssdk.services.ec2.model.CreateImageResponse;
+import software.amazon.awssdk.services.ec2.model.DeleteSnapshotRequest;
+import software.amazon.awssdk.services.ec2.model.DeregisterImageRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeImagesRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeImagesResponse;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
+import software.amazon.awssdk.services.ec2.model.EbsBlockDevice;
+import software.amazon.awssdk.services.ec2.model.Ec2Exception;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.Image;
+import software.amazon.awssdk.services.ec2.model.ImageState;
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.InstanceState;
+import software.amazon.awssdk.services.ec2.model.InstanceStateChange;
+import software.amazon.awssdk.services.ec2.model.InstanceStateName;
+import software.amazon.awssdk.services.ec2.model.Reservation;
+import software.amazon.awssdk.services.ec2.model.RunInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.RunInstancesResponse;
+import software.amazon.awssdk.services.ec2.model.ShutdownBehavior;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import software.amazon.awssdk.services.ec2.model.TerminateInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.TerminateInstancesResponse;
+import software.amazon.awssdk.services.ec2.waiters.Ec2Waiter;
+
+public class AWSComputeServiceTest {
+
+  private static final String REGION = "us-east-1";
+  private static final String OTHER_REGION = "eu-west-1";
+
+  private final GithubApi githubApi = Mockito.mock(GithubApi.class);
+  /**
+   * EC2 clients handed out to the service, one per region.
+   */
+  private final Map<String, Ec2Client> clients = new HashMap<>();
+  private AWSComputeService awsComputeService;
+
+  @BeforeEach
+  public void setUp() {
+    Mockito.when(githubApi.generateRunnerToken()).thenReturn(Optional.of("token"));
+    Mockito.when(githubApi.getOrganization()).thenReturn("org");
+    Mockito.when(githubApi.getRunnerGroupName()).thenReturn("prod");
+    awsComputeService = Mockito.spy(new AWSComputeService(githubApi));
+    Mockito.doAnswer(invocation -> client(invocation.<AwsConfig.ActionPool>getArgument(0)
+        .getRegion())).when(awsComputeService).ec2Client(Mockito.any());
+  }
+
+  @AfterEach
+  public void close() {
+    awsComputeService.close();
+  }
+
+  @Test
+  public void testPoolsSharingARegionShareAClient() {
+    configure(List.of(pool("a", REGION), pool("b", REGION), pool("c", OTHER_REGION)));
+
+    // the default action pool is in REGION as well
+    Mockito.verify(awsComputeService, Mockito.times(2)).ec2Client(Mockito.any());
+    assertEquals(Set.of(REGION, OTHER_REGION), clients.keySet());
+  }
+
+  @Test
+  public void testTagFilterIsChunkedAt200Pools() {
+    List<Map<String, Object>> actionPools = IntStream.range(0, 250)
+        .mapToObj(i -> pool("pool-" + i, REGION)).toList();
+    Ec2Client ec2 = client(REGION);
+    answerWithOneInstancePerPool(ec2);
+    configure(actionPools);
+
+    Map<String, ListInstanceResponse> responses = awsComputeService.listAllComputeInstances();
+
+    ArgumentCaptor<DescribeInstancesRequest> requests = ArgumentCaptor.forClass(
+        DescribeInstancesRequest.class);
+    Mockito.verify(ec2, Mockito.times(2)).describeInstances(requests.capture());
+    List<List<String>> chunks = requests.getAllValues().stream()
+        .map(AWSComputeServiceTest::actionPoolFilterValues).toList();
+    assertEquals(List.of(200, 51), chunks.stream().map(List::size).toList());
+    assertEquals(251, chunks.stream().flatMap(List::stream).distinct().count());
+    assertEquals(251, responses.size());
+    responses.forEach((name, response) -> {
+      assertEquals(1, response.instances().size(), name);
+      assertEquals("i-" + name, response.instances().get(0).getInstanceId());
+    });
+  }
+
+  @Test
+  public void testInstancesAreSplitBackPerPool() {
+    Mockito.when(client(REGION).describeInstances(Mockito.any(DescribeInstancesRequest.class)))
+        .thenReturn(describeResponse(instance("i-1", "a"), instance("i-2", "a"),
+            instance("i-3", "b"), instance("i-4", "not-configured")));
+    Mockito.when(client(OTHER_REGION).describeInstances(
+            Mockito.any(DescribeInstancesRequest.class)))
+        .thenReturn(describeResponse(instance("i-5", "c")));
+    configure(List.of(pool("a", REGION), pool("b", REGION), pool("c", OTHER_REGION)));
+
+    Map<String, ListInstanceResponse> responses = awsComputeService.listAllComputeInstances();
+
+    assertEquals(Set.of("a", "b", "c", "default"), responses.keySet());
+    assertEquals(List.of("i-1", "i-2"), instanceIds(responses.get("a")));
+    assertEquals(List.of("i-3"), instanceIds(responses.get("b")));
+    assertEquals(List.of("i-5"), instanceIds(responses.get("c")));
+    assertEquals(List.of(), instanceIds(responses.get("default")));
+    assertEquals("i-1", responses.get("a").instances().get(0).getInstanceName());
+    Mockito.verify(client(OTHER_REGION)).describeInstances(
+        Mockito.<DescribeInstancesRequest>argThat(request ->
+            actionPoolFilterValues(request).equals(List.of("c"))));
+  }
+
+  @Test
+  public void testFailedGroupIsListedPoolByPool() {
+    Mockito.when(client(REGION).describeInstances(Mockito.any(DescribeInstancesRequest.class)))
+        .thenAnswer(invocation -> {
+          List<String> names = actionPoolFilterValues(invocation.getArgument(0));
+          if (names.size() > 1 || names.contains("b")) {
+            throw Ec2Exception.builder().message("UnauthorizedOperation").build();
+          }
+          return describeResponse(instance("i-" + names.get(0), names.get(0)));
+        });
+    answerWithOneInstancePerPool(client(OTHER_REGION));
+    configure(List.of(pool("a", REGION), pool("b", REGION), pool("c", OTHER_REGION)));
+
+    Map<String, ListInstanceResponse> responses = awsComputeService.listAllComputeInstances();
+
+    assertEquals(Set.of("a", "c", "default"), responses.keySet());
+    assertEquals(List.of("i-a"), instanceIds(responses.get("a")));
+    assertEquals(List.of("i-c"), instanceIds(responses.get("c")));
+    assertFalse(responses.containsKey("b"));
+  }
+
+  @Test
+  public void testBatchIsLaunchedWithOneRunInstancesCall() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder()
+            .instances(instance("i-1", "a"), instance("i-2", "a"), instance("i-3", "a"))
+            .build());
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    assertEquals(3, awsComputeService.createCompute(actionPool, 3));
+
+    RunInstancesRequest request = runInstancesRequest(ec2);
+    assertEquals(3, request.maxCount());
+    assertEquals(1, request.minCount());
+    Map<String, String> tags = tags(request);
+    assertEquals("a", tags.get(Constants.ACTION_POOL_LABEL_KEY));
+    assertFalse(tags.containsKey("Name"));
+    assertTrue(userData(request).contains("meta-data/instance-id"));
+  }
+
+  @Test
+  public void testSingleInstanceIsNamedAfterItsRunner() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "a")).build());
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    assertTrue(awsComputeService.createCompute(actionPool));
+
+    RunInstancesRequest request = runInstancesRequest(ec2);
+    assertEquals(1, request.maxCount());
+    String name = tags(request).get("Name");
+    assertTrue(name.startsWith("github-runner-"), name);
+    assertTrue(userData(request).contains("RUNNER_NAME=" + name));
+  }
+
+  @Test
+  public void testFailedLaunchCreatesNothing() throws Exception {
+    Mockito.when(client(REGION).runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenThrow(Ec2Exception.builder().message("InsufficientInstanceCapacity").build());
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    assertEquals(0, awsComputeService.createCompute(actionPool, 3));
+    assertEquals(0, awsComputeService.createCompute(actionPool, 0));
+    Mockito.verify(client(REGION)).runInstances(Mockito.any(RunInstancesRequest.class));
+  }
+
+  @Test
+  public void testMinIdleInstancesIsPassedToTheAutoscaler() {
+    Map<String, Object> warm = pool("warm", REGION);
+    warm.put("minIdleInstances", 3);
+
+    Map<String, ActionPool> actionPools = configure(List.of(warm, pool("cold", REGION)));
+
+    assertEquals(Optional.of(3), actionPools.get("warm").getMinIdleInstances());
+    assertEquals(Optional.empty(), actionPools.get("cold").getMinIdleInstances());
+  }
+
+  @Test
+  public void testMinIdleInstancesMustBeWithinMaxInstanceCount() {
+    Map<String, Object> tooMany = pool("too-many", REGION);
+    tooMany.put("minIdleInstances", 11);
+    Map<String, Object> negative = pool("negative", REGION);
+    negative.put("minIdleInstances", -1);
+    Map<String, Object> unbounded = pool("unbounded", REGION);
+    unbounded.put("minIdleInstances", 50);
+    unbounded.put("maxInstanceCount", 0);
+
+    List<String> errors = receive(List.of(tooMany, negative, unbounded)).errors();
+
+    assertEquals(List.of(
+        "Action Pool too-many minIdleInstances must be between 0 and maxInstanceCount",
+        "Action Pool negative minIdleInstances must be between 0 and maxInstanceCount"), errors);
+  }
+
+  @Test
+  public void testAsyncCreateCompletesWithTheInstancesRunning() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder()
+            .instances(instance("i-1", "a"), instance("i-2", "a"), instance("i-3", "a"))
+            .build());
+    Ec2Waiter waiter = waiter(ec2);
+    WaiterResponse<DescribeInstancesResponse> matched = waiterResponse(
+        ResponseOrException.response(describeResponse(
+            withState(instance("i-1", "a"), InstanceStateName.RUNNING),
+            withState(instance("i-2", "a"), InstanceStateName.RUNNING),
+            withState(instance("i-3", "a"), InstanceStateName.PENDING))));
+    Mockito.when(waiter.waitUntilInstanceRunning(Mockito.any(DescribeInstancesRequest.class)))
+        .thenReturn(matched);
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    assertEquals(2, awsComputeService.createComputeAsync(actionPool, 3).get(10, TimeUnit.SECONDS));
+    Mockito.verify(waiter).waitUntilInstanceRunning(
+        Mockito.<DescribeInstancesRequest>argThat(request ->
+            request.instanceIds().equals(List.of("i-1", "i-2", "i-3"))));
+    Mockito.verify(waiter).close();
+  }
+
+  @Test
+  public void testAsyncCreateTimesOutWhenTheWaiterGivesUp() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "a")).build());
+    Ec2Waiter waiter = waiter(ec2);
+    WaiterResponse<DescribeInstancesResponse> gaveUp = waiterResponse(
+        ResponseOrException.exception(new IllegalStateException("max attempts")));
+    Mockito.when(waiter.waitUntilInstanceRunning(Mockito.any(DescribeInstancesRequest.class)))
+        .thenReturn(gaveUp);
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> awsComputeService.createComputeAsync(actionPool, 1).get(10, TimeUnit.SECONDS));
+    InstanceCreateTimeoutException timeout = assertInstanceOf(
+        InstanceCreateTimeoutException.class, e.getCause());
+    assertTrue(timeout.isShouldHaveBeenCreated());
+  }
+
+  @Test
+  public void testAsyncCreateOfNothingSkipsTheWaiter() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().build());
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    assertEquals(0, awsComputeService.createComputeAsync(actionPool, 2).get(10, TimeUnit.SECONDS));
+    Mockito.verify(ec2, Mockito.never()).waiter();
+  }
+
+  @Test
+  public void testAsyncCreateIsAcceptedOnceRunInstancesReturned() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    List<Thread> launchingThreads = new ArrayList<>();
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenAnswer(invocation -> {
+          launchingThreads.add(Thread.currentThread());
+          return RunInstancesResponse.builder().instances(instance("i-1", "a")).build();
+        });
+    Ec2Waiter waiter = waiter(ec2);
+    CountDownLatch running = new CountDownLatch(1);
+    WaiterResponse<DescribeInstancesResponse> matched = waiterResponse(
+        ResponseOrException.response(describeResponse(
+            withState(instance("i-1", "a"), InstanceStateName.RUNNING))));
+    Mockito.when(waiter.waitUntilInstanceRunning(Mockito.any(DescribeInstancesRequest.class)))
+        .thenAnswer(invocation -> {
+          running.await();
+          return matched;
+        });
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    ComputeOperation<Integer> operation = awsComputeService.startCreateCompute(actionPool, 1);
+
+    operation.accepted().get(10, TimeUnit.SECONDS);
+    assertFalse(launchingThreads.contains(Thread.currentThread()));
+    assertFalse(operation.result().isDone());
+    running.countDown();
+    assertEquals(1, operation.result().get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testAsyncDeleteIsAcceptedOnceTerminateInstancesReturned() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.terminateInstances(Mockito.any(TerminateInstancesRequest.class)))
+        .thenReturn(TerminateInstancesResponse.builder()
+            .terminatingInstances(InstanceStateChange.builder().instanceId("i-1")
+                .currentState(InstanceState.builder().name(InstanceStateName.SHUTTING_DOWN)
+                    .build())
+                .build())
+            .build());
+    Ec2Waiter waiter = waiter(ec2);
+    CountDownLatch terminated = new CountDownLatch(1);
+    Mockito.when(waiter.waitUntilInstanceTerminated(Mockito.any(DescribeInstancesRequest.class)))
+        .thenAnswer(invocation -> {
+          terminated.await();
+          return null;
+        });
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+    DeleteInstanceRequest delete = new DeleteInstanceRequest(actionPool, "i-1", "i-1",
+        System.currentTimeMillis(), null);
+
+    ComputeOperation<Boolean> operation = awsComputeService.startDeleteCompute(delete);
+
+    operation.accepted().get(10, TimeUnit.SECONDS);
+    assertFalse(operation.result().isDone());
+    terminated.countDown();
+    assertTrue(operation.result().get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testAsyncDeleteWaitsForTermination() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.terminateInstances(Mockito.any(TerminateInstancesRequest.class)))
+        .thenReturn(TerminateInstancesResponse.builder()
+            .terminatingInstances(InstanceStateChange.builder().instanceId("i-1")
+                .currentState(InstanceState.builder().name(InstanceStateName.SHUTTING_DOWN)
+                    .build())
+                .build())
+            .build());
+    Ec2Waiter waiter = waiter(ec2);
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+    DeleteInstanceRequest delete = new DeleteInstanceRequest(actionPool, "i-1", "i-1",
+        System.currentTimeMillis(), null);
+
+    assertTrue(awsComputeService.deleteComputeAsync(delete).get(10, TimeUnit.SECONDS));
+    Mockito.verify(waiter).waitUntilInstanceTerminated(
+        Mockito.<DescribeInstancesRequest>argThat(request ->
+            request.instanceIds().equals(List.of("i-1"))));
+  }
+
+  @Test
+  public void testAsyncDeleteFailsWithoutWaitingWhenTerminateFails() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.terminateInstances(Mockito.any(TerminateInstancesRequest.class)))
+        .thenThrow(Ec2Exception.builder()
+            .awsErrorDetails(AwsErrorDetails.builder().errorMessage("UnauthorizedOperation")
+                .build())
+            .build());
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+    DeleteInstanceRequest delete = new DeleteInstanceRequest(actionPool, "i-1", "i-1",
+        System.currentTimeMillis(), null);
+
+    assertFalse(awsComputeService.deleteComputeAsync(delete).get(10, TimeUnit.SECONDS));
+    Mockito.verify(ec2, Mockito.never()).waiter();
+  }
+
+  @Test
+  public void testPoolsWithTheSameRegionOsAndArchitectureShareAnAmiLookup() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+        .thenAnswer(invocation -> {
+          DescribeImagesRequest request = invocation.getArgument(0);
+          String architecture = request.filters().stream()
+              .filter(filter -> filter.name().equals("architecture"))
+              .findAny().orElseThrow().values().get(0);
+          return DescribeImagesResponse.builder()
+              .images(Image.builder().imageId("ami-" + architecture)
+                  .creationDate("2025-01-01T00:00:00.000Z").build())
+              .build();
+        });
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "a")).build());
+    Map<String, Object> arm = pool("arm", REGION);
+    arm.put("architecture", "arm64");
+    Map<String, ActionPool> actionPools = configure(
+        List.of(pool("a", REGION), pool("b", REGION), arm));
+
+    awsComputeService.createCompute(actionPools.get("a"));
+    awsComputeService.createCompute(actionPools.get("b"));
+    awsComputeService.createCompute(actionPools.get("arm"));
+
+    ArgumentCaptor<RunInstancesRequest> requests = ArgumentCaptor.forClass(
+        RunInstancesRequest.class);
+    Mockito.verify(ec2, Mockito.times(3)).runInstances(requests.capture());
+    assertEquals(List.of("ami-x86_64", "ami-x86_64", "ami-arm64"),
+        requests.getAllValues().stream().map(RunInstancesRequest::imageId).toList());
+    Mockito.verify(ec2, Mockito.times(2)).describeImages(Mockito.any(DescribeImagesRequest.class));
+  }
+
+  @Test
+  public void testAmisAreLookedUpPerRegion() throws Exception {
+    Mockito.when(client(OTHER_REGION).runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "c")).build());
+    Map<String, ActionPool> actionPools = configure(List.of(pool("c", OTHER_REGION)));
+
+    awsComputeService.createCompute(actionPools.get("c"));
+
+    assertEquals("ami-" + OTHER_REGION, runInstancesRequest(client(OTHER_REGION)).imageId());
+  }
+
+  @Test
+  public void testLatestAmiIsTheNewestMatchingImage() {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+        .thenReturn(DescribeImagesResponse.builder()
+            .images(Image.builder().imageId("ami-old").creationDate("2025-01-01T00:00:00.000Z")
+                    .build(),
+                Image.builder().imageId("ami-new").creationDate("2025-03-01T00:00:00.000Z")
+                    .build(),
+                Image.builder().imageId("ami-mid").creationDate("2025-02-01T00:00:00.000Z")
+                    .build())
+            .build());
+
+    assertEquals(Optional.of("ami-new"), AWSComputeService.latestAmi(ec2,
+        AwsOperatingSystem.DEBIAN_12, ProcessorArchitecture.ARM64));
+
+    ArgumentCaptor<DescribeImagesRequest> request = ArgumentCaptor.forClass(
+        DescribeImagesRequest.class);
+    Mockito.verify(ec2).describeImages(request.capture());
+    assertEquals(List.of(AwsOperatingSystem.DEBIAN_12.gcpProviderProject()),
+        request.getValue().owners());
+    Map<String, List<String>> filters = request.getValue().filters().stream()
+        .collect(Collectors.toMap(Filter::name, Filter::values));
+    assertEquals(List.of(AwsOperatingSystem.DEBIAN_12.createRegex()), filters.get("name"));
+    assertEquals(List.of("arm64"), filters.get("architecture"));
+    assertEquals(List.of("available"), filters.get("state"));
+  }
+
+  @Test
+  public void testLatestAmiIsEmptyWhenTheLookupFails() {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+        .thenThrow(Ec2Exception.builder().message("RequestLimitExceeded").build());
+
+    assertEquals(Optional.empty(), AWSComputeService.latestAmi(ec2,
+        AwsOperatingSystem.UBUNTU_24_04, ProcessorArchitecture.X64));
+  }
+
+  @Test
+  public void testPrebakedPoolBootsItsImageWithoutInstalling() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "baked")).build());
+    Map<String, Object> baked = pool("baked", REGION);
+    baked.put("image", "ami-baked");
+    baked.put("bootstrapMode", "prebaked");
+    ActionPool actionPool = configure(List.of(baked)).get("baked");
+
+    assertTrue(awsComputeService.createCompute(actionPool));
+
+    RunInstancesRequest request = runInstancesRequest(ec2);
+    assertEquals("ami-baked", request.imageId());
+    String userData = userData(request);
+    assertTrue(userData.contains("./config.sh --ephemeral"), userData);
+    assertFalse(userData.contains("apt-get"), userData);
+  }
+
+  @Test
+  public void testPoolImageIsUsedWithTheFullInstall() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "custom")).build());
+    Map<String, Object> custom = pool("custom", REGION);
+    custom.put("image", "ami-custom");
+    ActionPool actionPool = configure(List.of(custom)).get("custom");
+
+    assertTrue(awsComputeService.createCompute(actionPool));
+
+    RunInstancesRequest request = runInstancesRequest(ec2);
+    assertEquals("ami-custom", request.imageId());
+    assertTrue(userData(request).contains("apt-get"));
+  }
+
+  @Test
+  public void testPrebakedPoolNeedsAnImage() {
+    Map<String, Object> baked = pool("baked", REGION);
+    baked.put("bootstrapMode", "prebaked");
+    Map<String, Object> unknown = pool("unknown", REGION);
+    unknown.put("bootstrapMode", "half-baked");
+
+    List<String> errors = receive(List.of(baked, unknown)).errors();
+
+    assertEquals(List.of(
+        "Action Pool baked uses bootstrapMode prebaked but has no image. Please add the AMI id of the prebaked image",
+        "Invalid bootstrapMode specified for action pool unknown"), errors);
+  }
+
+  @Test
+  public void testBakedImageIsCreatedFromAStoppedBuilder() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-builder", "a")).build());
+    Mockito.when(ec2.describeInstances(Mockito.any(DescribeInstancesRequest.class)))
+        .thenReturn(describeResponse(
+            withState(instance("i-builder", "a"), InstanceStateName.STOPPED)));
+    Mockito.when(ec2.createImage(Mockito.any(CreateImageRequest.class)))
+        .thenReturn(CreateImageResponse.builder().imageId("ami-baked").build());
+    Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+        .thenAnswer(invocation -> DescribeImagesResponse.builder()
+            .images(invocation.<DescribeImagesRequest>getArgument(0).hasImageIds()
+                ? Image.builder().imageId("ami-baked").state(ImageState.AVAILABLE).build()
+                : Image.builder().imageId("ami-base").creationDate("2025-01-01T00:00:00.000Z")
+                    .build())
+            .build());
+    Map<String, Object> baked = pool("a", REGION);
+    baked.put("imageBaking", Map.of("enabled", true, "dockerImages", List.of("alpine:3")));
+    ActionPool actionPool = configure(List.of(baked)).get("a");
+
+    assertEquals("ami-baked",
+        awsComputeService.bakeImage(actionPool, Duration.ofMinutes(1)).get(30, TimeUnit.SECONDS));
+
+    RunInstancesRequest builder = runInstancesRequest(ec2);
+    assertEquals("ami-base", builder.imageId());
+    assertEquals(ShutdownBehavior.STOP, builder.instanceInitiatedShutdownBehavior());
+    assertEquals("a", tags(builder).get(Constants.IMAGE_BAKE_LABEL_KEY));
+    assertTrue(userData(builder).contains("alpine:3"));
+    Mockito.verify(ec2).createImage(
+        Mockito.<CreateImageRequest>argThat(request -> request.instanceId().equals("i-builder")));
+    Mockito.verify(ec2).terminateInstances(
+        Mockito.<TerminateInstancesRequest>argThat(request ->
+            request.instanceIds().equals(List.of("i-builder"))));
+  }
+
+  @Test
+  public void testBuilderIsTerminatedWhenBakingFails() {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-builder", "a")).build());
+    Mockito.when(ec2.describeInstances(Mockito.any(DescribeInstancesRequest.class)))
+        .thenReturn(describeResponse(
+            withState(instance("i-builder", "a"), InstanceStateName.STOPPED)));
+    Mockito.when(ec2.createImage(Mockito.any(CreateImageRequest.class)))
+        .thenThrow(Ec2Exception.builder().message("InvalidInstanceID").build());
+    Map<String, Object> baked = pool("a", REGION);
+    baked.put("imageBaking", Map.of("enabled", true));
+    ActionPool actionPool = configure(List.of(baked)).get("a");
+
+    assertThrows(ExecutionException.class,
+        () -> awsComputeService.bakeImage(actionPool, Duration.ofMinutes(1))
+            .get(30, TimeUnit.SECONDS));
+    Mockito.verify(ec2).terminateInstances(
+        Mockito.<TerminateInstancesRequest>argThat(request ->
+            request.instanceIds().equals(List.of("i-builder"))));
+  }
+
+  @Test
+  public void testBakedImagesAreListedNewestFirst() {
+    Ec2Client ec2 = client(REGION);
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+    Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+        .thenReturn(DescribeImagesResponse.builder()
+            .images(Image.builder().imageId("ami-1").creationDate("2025-01-01T00:00:00.000Z")
+                    .build(),
+                Image.builder().imageId("ami-3").creationDate("2025-03-01T00:00:00.000Z")
+                    .build(),
+                Image.builder().imageId("ami-2").creationDate("2025-02-01T00:00:00.000Z")
+                    .build())
+            .build());
+
+    List<BakedImage> images = awsComputeService.listBakedImages(actionPool);
+
+    assertEquals(List.of("ami-3", "ami-2", "ami-1"),
+        images.stream().map(BakedImage::image).toList());
+    Mockito.verify(ec2).describeImages(Mockito.<DescribeImagesRequest>argThat(request ->
+        request.owners().equals(List.of("self")) && request.filters().stream().anyMatch(
+            filter -> filter.name().equals("tag:" + Constants.IMAGE_BAKE_LABEL_KEY)
+                && filter.values().equals(List.of("a")))));
+  }
+
+  @Test
+  public void testDeletedImageTakesItsSnapshotsAlong() {
+    Ec2Client ec2 = client(REGION);
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+    Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+        .thenReturn(DescribeImagesResponse.builder()
+            .images(Image.builder().imageId("ami-1")
+                .blockDeviceMappings(
+                    BlockDeviceMapping.builder().ebs(EbsBlockDevice.builder()
+                        .snapshotId("snap-1").build()).build(),
+                    BlockDeviceMapping.builder().deviceName("ephemeral0").build(),
+                    BlockDeviceMapping.builder().ebs(EbsBlockDevice.builder()
+                        .snapshotId("snap-2").build()).build())
+                .build())
+            .build());
+
+    assertTrue(awsComputeService.deleteImage(actionPool, "ami-1"));
+
+    Mockito.verify(ec2).deregisterImage(
+        Mockito.<DeregisterImageRequest>argThat(request -> request.imageId().equals("ami-1")));
+    ArgumentCaptor<DeleteSnapshotRequest> snapshots = ArgumentCaptor.forClass(
+        DeleteSnapshotRequest.class);
+    Mockito.verify(ec2, Mockito.times(2)).deleteSnapshot(snapshots.capture());
+    assertEquals(List.of("snap-1", "snap-2"),
+        snapshots.getAllValues().stream().map(DeleteSnapshotRequest::snapshotId).toList());
+  }
+
+  @Test
+  public void testUsedImageSwitchesThePoolToPrebaked() throws Exception {
+    Ec2Client ec2 = client(REGION);
+    Mockito.when(ec2.runInstances(Mockito.any(RunInstancesRequest.class)))
+        .thenReturn(RunInstancesResponse.builder().instances(instance("i-1", "a")).build());
+    ActionPool actionPool = configure(List.of(pool("a", REGION))).get("a");
+
+    awsComputeService.useImage(actionPool, "ami-baked");
+    assertTrue(awsComputeService.createCompute(actionPool));
+
+    RunInstancesRequest request = runInstancesRequest(ec2);
+    assertEquals("ami-baked", request.imageId());
+    assertFalse(userData(request).contains("apt-get"));
+  }
+
+  /**
+   * Applies a compute config with the given action pools plus a default action pool in
+   * {@link #REGION}. The config starts looking up AMIs in the background, so the EC2 clients are
+   * stubbed before it is applied.
+   */
+  ComputeConfigResponse receive(List<Map<String, Object>> actionPools) {
+    Map<String, Object> defaultSettings = new HashMap<>();
+    defaultSettings.put("region", REGION);
+    defaultSettings.put("subnet", "subnet-1");
+    defaultSettings.put("securityGroups", List.of("sg-1"));
+    defaultSettings.put("instanceType", "t3.micro");
+    defaultSettings.put("maxInstanceCount", 10);
+    Map<String, Object> compute = new HashMap<>();
+    compute.put("defaultSettings", defaultSettings);
+    compute.put("defaultActionPool", new HashMap<>(Map.of("name", "default")));
+    compute.put("actionPools", actionPools);
+    return awsComputeService.receiveComputeConfigs(compute, "autoscaler");
+  }
+
+  /**
+   * @return the configured action pools by name
+   */
+  Map<String, ActionPool> configure(List<Map<String, Object>> actionPools) {
+    ComputeConfigResponse response = receive(actionPools);
+    assertTrue(response.errors().isEmpty(), response.errors().toString());
+    return response.actionPools().stream()
+        .collect(Collectors.toMap(ActionPool::getName, Function.identity()));
+  }
+
+  static Map<String, Object> pool(String name, String region) {
+    Map<String, Object> pool = new HashMap<>();
+    pool.put("name", name);
+    pool.put("region", region);
+    return pool;
+  }
+
+  private Ec2Client client(String region) {
+    return clients.computeIfAbsent(region, r -> {
+      Ec2Client ec2 = Mockito.mock(Ec2Client.class);
+      Mockito.when(ec2.describeInstancesPaginator(Mockito.any(DescribeInstancesRequest.class)))
+          .thenCallRealMethod();
+      Mockito.when(ec2.describeImages(Mockito.any(DescribeImagesRequest.class)))
+          .thenReturn(DescribeImagesResponse.builder()
+              .images(Image.builder().imageId("ami-" + r).creationDate("2025-01-01T00:00:00.000Z")
+                  .build())
+              .build());
+      return ec2;
+    });
+  }
+
+  private static void answerWithOneInstancePerPool(Ec2Client ec2) {
+    Mockito.when(ec2.describeInstances(Mockito.any(DescribeInstancesRequest.class)))
+        .thenAnswer(invocation -> describeResponse(
+            actionPoolFilterValues(invocation.getArgument(0)).stream()
+                .map(name -> instance("i-" + name, name)).toArray(Instance[]::new)));
+  }
+
+  static List<String> actionPoolFilterValues(DescribeInstancesRequest request) {
+    return request.filters().stream()
+        .filter(filter -> filter.name().equals("tag:" + Constants.ACTION_POOL_LABEL_KEY))
+        .findAny().orElseThrow().values();
+  }
+
+  static DescribeInstancesResponse describeResponse(Instance... instances) {
+    return DescribeInstancesResponse.builder()
+        .reservations(Reservation.builder().instances(instances).build())
+        .build();
+  }
+
+  static Instance instance(String instanceId, String actionPoolName) {
+    return Instance.builder()
+        .instanceId(instanceId)
+        .launchTime(Instant.now())
+        .tags(Tag.builder().key(Constants.ACTION_POOL_LABEL_KEY).value(actionPoolName).build(),
+            Tag.builder().key("Name").value(instanceId).build())
+        .build();
+  }
+
+  private static Ec2Waiter waiter(Ec2Client ec2) {
+    Ec2Waiter waiter = Mockito.mock(Ec2Waiter.class);
+    Mockito.when(ec2.waiter()).thenReturn(waiter);
+    return waiter;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static WaiterResponse<DescribeInstancesResponse> waiterResponse(
+      ResponseOrException<DescribeInstancesResponse> matched) {
+    WaiterResponse<DescribeInstancesResponse> response = Mockito.mock(WaiterResponse.class);
+    Mockito.when(response.matched()).thenReturn(matched);
+    return response;
+  }
+
+  private static Instance withState(Instance instance, InstanceStateName state) {
+    return instance.toBuilder().state(InstanceState.builder().name(state).build()).build();
+  }
+
+  private static RunInstancesRequest runInstancesRequest(Ec2Client ec2) {
+    ArgumentCaptor<RunInstancesRequest> request = ArgumentCaptor.forClass(
+        RunInstancesRequest.class);
+    Mockito.verify(ec2).runInstances(request.capture());
+    return request.getValue();
+  }
+
+  private static Map<String, String> tags(RunInstancesRequest request) {
+    return request.tagSpecifications().get(0).tags().stream()
+        .collect(Collectors.toMap(Tag::key, Tag::value));
+  }
+
+  private static String userData(RunInstancesRequest request) {
+    return new String(Base64.getDecoder().decode(request.userData()), StandardCharsets.UTF_8);
+  }
+
+  private static List<String> instanceIds(ListInstanceResponse response) {
+    return response.instances().stream().map(ListInstanceResponse.Instance::getInstanceId)
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+}
@@ -9,13 +9,20 @@ public class ActionPool {
   private final String name;
   private final Integer maxInstances;
   private final Integer instanceIdleScaleDownTimeInMinutes;
+  private final Integer minIdleInstances;
   private final boolean isDefault;
 
   public ActionPool(String name, Integer maxInstances, Integer instanceIdleScaleDownTimeInMinutes,
       boolean isDefault) {
+    this(name, maxInstances, instanceIdleScaleDownTimeInMinutes, null, isDefault);
+  }
+
+  public ActionPool(String name, Integer maxInstances, Integer instanceIdleScaleDownTimeInMinutes,
+      Integer minIdleInstances, boolean isDefault) {
     this.name = name;
     this.maxInstances = maxInstances;
     this.instanceIdleScaleDownTimeInMinutes = instanceIdleScaleDownTimeInMinutes;
+    this.minIdleInstances = minIdleInstances;
     this.isDefault = isDefault;
   }
 
@@ -27,6 +34,13 @@ public class ActionPool {
     return Optional.ofNullable(instanceIdleScaleDownTimeInMinutes);
   }
 
+  /**
+   * @return number of idle runners kept on standby, ready to pick up jobs
+   */
+  public Optional<Integer> getMinIdleInstances() {
+    return Optional.ofNullable(minIdleInstances);
+  }
+
   public String getName() {
     return name;
   }
@@ -0,0 +1,11 @@
+package com.nimbusrun.compute;
+
+import java.time.Instant;
+
+/**
+ * @param image     the image as the action pool's {@code image} setting expects it
+ * @param createdAt when the image was baked
+ */
+public record BakedImage(String image, Instant createdAt) {
+
+}
@@ -0,0 +1,17 @@
+package com.nimbusrun.compute;
+
+import java.util.Optional;
+
+/**
+ * The image an action pool boots and how its instances turn into runners. Published as one value so
+ * a launch never pairs a baked image with {@link BootstrapMode#FULL}, or the reverse.
+ *
+ * @param image         the image to boot, {@code null} for the latest image of the pool's os
+ * @param bootstrapMode how the startup script bootstraps the runner
+ */
+public record BootImage(String image, BootstrapMode bootstrapMode) {
+
+  public Optional<String> imageOpt() {
+    return Optional.ofNullable(image);
+  }
+}
@@ -0,0 +1,51 @@
+package com.nimbusrun.compute;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+
+/**
+ * How a new instance turns into a registered runner.
+ */
+public enum BootstrapMode {
+  /**
+   * The startup script installs the packages, docker and the actions runner on every boot.
+   */
+  FULL("full"),
+  /**
+   * The image already has the {@code action-runner} user, docker and the actions runner in
+   * {@code /home/action-runner/actions-runner}. The startup script only registers the runner.
+   */
+  PREBAKED("prebaked"),
+  UNKNOWN("unknown");
+
+  private final String type;
+
+  BootstrapMode(String type) {
+    this.type = type;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public static BootstrapMode fromYaml(String modeStr) {
+    for (BootstrapMode mode : BootstrapMode.values()) {
+      if (mode.type.equalsIgnoreCase(modeStr)) {
+        return mode;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  public static class Deserialize extends JsonDeserializer<BootstrapMode> {
+
+    @Override
+    public BootstrapMode deserialize(JsonParser jsonParser,
+        DeserializationContext deserializationContext) throws IOException, JacksonException {
+      return BootstrapMode.fromYaml(jsonParser.getText());
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package com.nimbusrun.compute;
 
+import com.nimbusrun.compute.exceptions.InstanceCreateTimeoutException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public abstract class Compute {
@@ -36,6 +39,55 @@ public abstract class Compute {
    */
   public abstract boolean createCompute(ActionPool actionPool) throws Exception;
 
+  /**
+   * Creates up to {@code count} compute instances for the associated action pool. Providers that
+   * support launching several instances in a single api call should override this. The default
+   * implementation calls {@link Compute#createCompute(ActionPool)} once per instance.
+   * <p>
+   * Instances created in a batch can't be given a name up front, so their runners should name
+   * themselves after the instance (see {@link Compute#listComputeInstances}). The runner name and
+   * the instance name must match for scale down to work.
+   *
+   * @param actionPool
+   * @param count      number of instances wanted
+   * @return the number of instances that were requested successfully
+   * @throws Exception
+   */
+  public int createCompute(ActionPool actionPool, int count) throws Exception {
+    int created = 0;
+    for (int i = 0; i < count; i++) {
+      if (createCompute(actionPool)) {
+        created++;
+      }
+    }
+    return created;
+  }
+
+  /**
+   * Asynchronous {@link Compute#createCompute(ActionPool, int)}. The future completes once the
+   * provider has confirmed the outcome, with the number of instances created, or exceptionally, e.g.
+   * with an {@link InstanceCreateTimeoutException} when the provider didn't confirm in time.
+   *
+   * @param actionPool
+   * @param count      number of instances wanted
+   * @see Compute#startCreateCompute(ActionPool, int)
+   */
+  public CompletableFuture<Integer> createComputeAsync(ActionPool actionPool, int count) {
+    return startCreateCompute(actionPool, count).result();
+  }
+
+  /**
+   * Starts {@link Compute#createComputeAsync(ActionPool, int)}, telling apart the provider taking
+   * the request from the instances being confirmed.
+   * <p>
+   * Providers with asynchronous apis should override this so no thread waits on the provider while
+   * instances boot, and complete {@link ComputeOperation#accepted()} as soon as the provider took
+   * the request. The default runs the blocking call on a virtual thread.
+   */
+  public ComputeOperation<Integer> startCreateCompute(ActionPool actionPool, int count) {
+    return ComputeOperation.of(supplyAsync(() -> createCompute(actionPool, count)));
+  }
+
   /**
    * Deletes the compute instance.
    *
@@ -46,6 +98,42 @@ public abstract class Compute {
   public abstract boolean deleteCompute(DeleteInstanceRequest deleteInstanceRequest)
       throws Exception;
 
+  /**
+   * Asynchronous {@link Compute#deleteCompute(DeleteInstanceRequest)}. The future completes once
+   * the provider has confirmed the delete.
+   *
+   * @see Compute#startDeleteCompute(DeleteInstanceRequest)
+   */
+  public CompletableFuture<Boolean> deleteComputeAsync(
+      DeleteInstanceRequest deleteInstanceRequest) {
+    return startDeleteCompute(deleteInstanceRequest).result();
+  }
+
+  /**
+   * Starts {@link Compute#deleteComputeAsync(DeleteInstanceRequest)}, telling apart the provider
+   * taking the request from the delete being confirmed. The default runs the blocking call on a
+   * virtual thread.
+   */
+  public ComputeOperation<Boolean> startDeleteCompute(
+      DeleteInstanceRequest deleteInstanceRequest) {
+    return ComputeOperation.of(supplyAsync(() -> deleteCompute(deleteInstanceRequest)));
+  }
+
+  /**
+   * Runs the call on its own virtual thread.
+   */
+  protected static <T> CompletableFuture<T> supplyAsync(Callable<T> call) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    Thread.ofVirtual().name("compute-call").start(() -> {
+      try {
+        future.complete(call.call());
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
   public abstract List<ActionPool> listActionPools() throws Exception;
 
   public abstract ComputeConfigResponse receiveComputeConfigs(Map<String, Object> map,
@@ -78,6 +166,16 @@ public abstract class Compute {
 
   public String startUpScript(String runnerToken, String runnerGroup, ActionPool actionPool,
       String runnerName, String organization, ProcessorArchitecture architecture, OperatingSystem os) {
+    return startUpScript(runnerToken, runnerGroup, actionPool, runnerName, organization,
+        architecture, os, BootstrapMode.FULL);
+  }
+
+  public String startUpScript(String runnerToken, String runnerGroup, ActionPool actionPool,
+      String runnerName, String organization, ProcessorArchitecture architecture, OperatingSystem os,
+      BootstrapMode bootstrapMode) {
+    if (bootstrapMode == BootstrapMode.PREBAKED) {
+      return startUpScriptPrebaked(runnerToken, runnerGroup, actionPool, runnerName, organization);
+    }
     if (os.getFamily() == OperatingSystemFamily.UBUNTU) {
       return startUpScriptUbuntu(runnerToken, runnerGroup, actionPool, runnerName, organization,
           architecture);
@@ -240,6 +338,109 @@ public abstract class Compute {
                 archStr));
   }
 
+  /**
+   * Registers and starts the runner already installed in the image, see
+   * {@link BootstrapMode#PREBAKED}. Nothing is installed or downloaded, so the runner registers
+   * within seconds of the instance booting.
+   */
+  public String startUpScriptPrebaked(String runnerToken, String runnerGroup,
+      ActionPool actionPool, String runnerName, String organization) {
+    return """
+        #!/bin/bash
+        export RUNNER_GROUP=${RUNNER_GROUP}
+        export RUNNER_LABELS=${RUNNER_LABELS}
+        export RUNNER_TOKEN=${RUNNER_TOKEN}
+        export RUNNER_NAME=${RUNNER_NAME}
+        export ORGANIZATION=${ORGANIZATION}
+        export USER_AGENT=action-runner
+        cd /home/$USER_AGENT/actions-runner
+        echo 'setting up config'
+        sudo -i -u $USER_AGENT bash << EOF
+        cd /home/$USER_AGENT/actions-runner
+        ./config.sh --ephemeral --url https://github.com/$ORGANIZATION --token $RUNNER_TOKEN --runnergroup $RUNNER_GROUP --name $RUNNER_NAME --labels $RUNNER_LABELS --unattended
+        EOF
+        ./svc.sh install $USER_AGENT
+        ./svc.sh start
+        """
+        .replace("${RUNNER_GROUP}", runnerGroup)
+        .replace("${RUNNER_TOKEN}", runnerToken)
+        .replace("${RUNNER_NAME}", runnerName)
+        .replace("${ORGANIZATION}", organization)
+        .replace("${RUNNER_LABELS}", createRunnerLabels(actionPool, runnerGroup));
+  }
+
+  /**
+   * Startup script of an image builder, see {@link ImageBaking}. It installs what
+   * {@link BootstrapMode#PREBAKED} expects in the image plus the pool's docker images and packages,
+   * then powers the builder off. Any failing step stops the script before the power off, so a
+   * builder that never powers off never turns into an image.
+   */
+  public String bakeScript(ProcessorArchitecture architecture, OperatingSystem os,
+      ImageBakeSettings bakeSettings) {
+    String distro = switch (os.getFamily()) {
+      case UBUNTU -> Constants.UBUNTU_FAMILY;
+      case DEBIAN -> Constants.DEBIAN_FAMILY;
+      default -> throw new RuntimeException("Unsupported selected");
+    };
+    String packages = bakeSettings.getPackages().isEmpty() ? ""
+        : "apt-get install -y " + String.join(" ", bakeSettings.getPackages());
+    String dockerImages = bakeSettings.getDockerImages().stream()
+        .map(image -> "docker pull " + image).collect(Collectors.joining("\n"));
+    return """
+        #!/bin/bash
+        set -euo pipefail
+        export USER_AGENT=action-runner
+        export DEBIAN_FRONTEND=noninteractive
+        useradd -ms /bin/bash $USER_AGENT
+        apt-get update -y
+        apt-get install -y --no-install-recommends \\
+                curl jq build-essential libssl-dev libffi-dev python3 python3-venv python3-dev python3-pip nano vim sudo ca-certificates gnupg
+        echo "$USER_AGENT ALL=(ALL) NOPASSWD: ALL" >>  /etc/sudoers
+        # Install Docker
+        install -m 0755 -d /etc/apt/keyrings
+        curl -fsSL https://download.docker.com/linux/${DISTRO}/gpg -o /etc/apt/keyrings/docker.asc
+        chmod a+r /etc/apt/keyrings/docker.asc
+        echo "deb [arch=$(dpkg --print-architecture) signed-by=/etc/apt/keyrings/docker.asc] https://download.docker.com/linux/${DISTRO} $(. /etc/os-release && echo "$VERSION_CODENAME") stable" > /etc/apt/sources.list.d/docker.list
+        apt-get update -y
+        apt-get install -y docker-ce docker-ce-cli containerd.io docker-buildx-plugin docker-compose-plugin
+        usermod -aG docker,sudo $USER_AGENT
+        systemctl enable docker
+        systemctl start docker
+
+        sudo -i -u $USER_AGENT bash << EOF
+        set -e
+        mkdir -p /home/$USER_AGENT/actions-runner
+        cd /home/$USER_AGENT/actions-runner
+        curl -fsSL -o actions-runner.tar.gz ${ACTION_RUNNER_URL}
+        tar xzf ./actions-runner.tar.gz
+        rm actions-runner.tar.gz
+        EOF
+        /home/$USER_AGENT/actions-runner/bin/installdependencies.sh
+
+        ${PACKAGES}
+        ${DOCKER_IMAGES}
+
+        apt-get clean
+        cloud-init clean --logs || true
+        poweroff
+        """
+        .replace("${DISTRO}", distro)
+        .replace("${ACTION_RUNNER_URL}",
+            "$(curl -s https://api.github.com/repos/actions/runner/releases/latest | jq -r '.assets[] | select(.name | startswith(\"actions-runner-linux-%s\")) | .browser_download_url')".formatted(
+                runnerArchitecture(architecture)))
+        .replace("${PACKAGES}", packages)
+        .replace("${DOCKER_IMAGES}", dockerImages);
+  }
+
+  private static String runnerArchitecture(ProcessorArchitecture architecture) {
+    return switch (architecture) {
+      case X64 -> "x64";
+      case ARM64 -> "arm64";
+      default -> throw new RuntimeException(
+          "%s is not supported processor architecture".formatted(architecture));
+    };
+  }
+
   public  Map<String, Object> actionPoolToApiResponse(){
     return Map.of();
   }
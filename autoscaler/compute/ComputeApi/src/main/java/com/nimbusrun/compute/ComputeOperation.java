@@ -0,0 +1,21 @@
+package com.nimbusrun.compute;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A create or delete started against the compute provider.
+ *
+ * @param accepted completes once the provider took the request, e.g. EC2 answered RunInstances
+ * @param result   completes once the provider confirmed the outcome, e.g. the instances are
+ *                 running
+ */
+public record ComputeOperation<T>(CompletableFuture<?> accepted, CompletableFuture<T> result) {
+
+  /**
+   * An operation that is accepted when its outcome is known, for providers that can't tell the two
+   * apart.
+   */
+  public static <T> ComputeOperation<T> of(CompletableFuture<T> result) {
+    return new ComputeOperation<>(result, result);
+  }
+}
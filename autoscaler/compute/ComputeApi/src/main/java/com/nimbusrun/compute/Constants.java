@@ -8,6 +8,11 @@ public class Constants {
   public static final int DEFAULT_INSTANCE_IDLE_TIME_IN_MINUTES = 10;
   public static final String ACTION_POOL_LABEL_KEY = "action-pool";
   public static final String ACTION_GROUP_LABEL_KEY = "action-group";
+  /**
+   * Marks image builder instances and the images they bake with the action pool they are for.
+   * Builders don't carry {@link #ACTION_POOL_LABEL_KEY}, so they are never listed as runners.
+   */
+  public static final String IMAGE_BAKE_LABEL_KEY = "image-bake";
 
   public static final String UBUNTU_FAMILY = "ubuntu";
   public static final String DEBIAN_FAMILY = "debian";
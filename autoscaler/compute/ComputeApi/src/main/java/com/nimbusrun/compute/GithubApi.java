@@ -14,6 +14,6 @@ public interface GithubApi {
 
   public String getRunnerGroupName();
 
-  public boolean isJobQueued(String runUrl);
+  public boolean isJobQueued(String runUrl, String jobId);
 
 }
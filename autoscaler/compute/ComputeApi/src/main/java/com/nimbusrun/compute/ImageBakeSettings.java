@@ -0,0 +1,47 @@
+package com.nimbusrun.compute;
+
+import java.util.List;
+
+/**
+ * What an action pool's baked image contains on top of docker and the actions runner.
+ */
+public class ImageBakeSettings {
+
+  private Boolean enabled;
+  /**
+   * Pulled into the image so jobs using them don't wait on the registry.
+   */
+  private List<String> dockerImages;
+  /**
+   * Installed with the package manager of the operating system.
+   */
+  private List<String> packages;
+
+  public boolean isEnabled() {
+    return Boolean.TRUE.equals(enabled);
+  }
+
+  public Boolean getEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(Boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<String> getDockerImages() {
+    return dockerImages == null ? List.of() : dockerImages;
+  }
+
+  public void setDockerImages(List<String> dockerImages) {
+    this.dockerImages = dockerImages;
+  }
+
+  public List<String> getPackages() {
+    return packages == null ? List.of() : packages;
+  }
+
+  public void setPackages(List<String> packages) {
+    this.packages = packages;
+  }
+}
@@ -0,0 +1,47 @@
+package com.nimbusrun.compute;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implemented by {@link Compute} providers that can bake an action pool's image themselves.
+ * <p>
+ * A bake boots a builder instance from the pool's base operating system image with
+ * {@link Compute#bakeScript}. The script installs docker and the actions runner, pulls the pool's
+ * docker images, installs its packages and powers the builder off. The builder is snapshotted into
+ * an image labeled with {@value Constants#IMAGE_BAKE_LABEL_KEY} and then deleted.
+ */
+public interface ImageBaking {
+
+  /**
+   * @return the pool's bake settings, empty if the pool isn't baked
+   */
+  Optional<ImageBakeSettings> imageBakeSettings(ActionPool actionPool);
+
+  /**
+   * Bakes a new image for the pool. The future only completes successfully once the builder
+   * script ran to the end and the image is ready to boot from, which is the health check before
+   * the pool switches to it. A builder that hasn't powered itself off within {@code timeout}
+   * failed.
+   *
+   * @return completes with the new image
+   */
+  CompletableFuture<String> bakeImage(ActionPool actionPool, Duration timeout);
+
+  /**
+   * @return the images baked for the pool, newest first
+   */
+  List<BakedImage> listBakedImages(ActionPool actionPool);
+
+  /**
+   * Switches the pool to boot {@code image} with {@link BootstrapMode#PREBAKED}.
+   */
+  void useImage(ActionPool actionPool, String image);
+
+  /**
+   * @return {@code false} if the image couldn't be deleted
+   */
+  boolean deleteImage(ActionPool actionPool, String image);
+}
@@ -0,0 +1,93 @@
+package com.nimbusrun.compute;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the image instances boot from, e.g. the latest Ubuntu AMI of a region. Every action
+ * pool with the same key shares one lookup.
+ * <p>
+ * Keys are warmed up when the action pools are configured and refreshed in the background every
+ * {@code refreshInterval}, so resolving an image on the create path is a map lookup. A refresh that
+ * fails or finds no image keeps the last known-good image. Only a key that has never resolved runs
+ * the lookup inline.
+ *
+ * @param <K> what identifies an image, e.g. region, operating system and architecture
+ */
+public class ImageResolver<K> implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ImageResolver.class);
+
+  private final String provider;
+  private final ExecutorService lookups;
+  private final ScheduledExecutorService refresher;
+  private final LoadingCache<K, String> images;
+
+  /**
+   * @param provider        name of the compute provider, used in logs
+   * @param lookup          finds the current image of a key, empty if there is none
+   * @param refreshInterval how often every resolved key is looked up again
+   */
+  public ImageResolver(String provider, Function<K, Optional<String>> lookup,
+      Duration refreshInterval) {
+    this.provider = provider;
+    this.lookups = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name(provider + "-image-lookup-", 0).factory());
+    this.images = Caffeine.newBuilder()
+        .executor(lookups)
+        .build(key -> lookup.apply(key).orElseThrow(() -> new NoSuchElementException(
+            "No %s image found for %s".formatted(provider, key))));
+    this.refresher = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name(provider + "-image-refresh-", 0).factory());
+    this.refresher.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(),
+        refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Resolves the keys in the background so the first create doesn't wait on the lookup.
+   */
+  public void warmUp(Collection<K> keys) {
+    keys.stream().distinct().forEach(key -> lookups.execute(() -> resolve(key)));
+  }
+
+  /**
+   * @return the image of the key, empty if it has never been resolved and the lookup fails
+   */
+  public Optional<String> resolve(K key) {
+    try {
+      return Optional.of(images.get(key));
+    } catch (RuntimeException e) {
+      log.error("Failed to resolve {} image for {} due to {}", provider, key, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks every resolved key up again. Caffeine keeps the current image when a reload fails, which
+   * is how the last known-good image survives provider outages.
+   */
+  private void refresh() {
+    try {
+      images.refreshAll(images.asMap().keySet());
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh {} images due to {}", provider, e.getMessage());
+    }
+  }
+
+  @Override
+  public void close() {
+    refresher.shutdownNow();
+    lookups.shutdownNow();
+  }
+}
@@ -3,49 +3,72 @@ package com.nimbusrun.compute.gcp.v1;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.longrunning.OperationFuture;
+import com.google.api.gax.longrunning.OperationSnapshot;
 import com.google.cloud.compute.v1.AccessConfig;
 import com.google.cloud.compute.v1.AggregatedListInstancesRequest;
 import com.google.cloud.compute.v1.AttachedDisk;
 import com.google.cloud.compute.v1.AttachedDiskInitializeParams;
+import com.google.cloud.compute.v1.BulkInsertInstanceResource;
+import com.google.cloud.compute.v1.BulkInsertOperationStatus;
 import com.google.cloud.compute.v1.Image;
 import com.google.cloud.compute.v1.ImagesClient;
 import com.google.cloud.compute.v1.InsertInstanceRequest;
 import com.google.cloud.compute.v1.Instance;
+import com.google.cloud.compute.v1.InstanceProperties;
+import com.google.cloud.compute.v1.Instance.Status;
 import com.google.cloud.compute.v1.InstancesClient;
 import com.google.cloud.compute.v1.InstancesScopedList;
 import com.google.cloud.compute.v1.Items;
 import com.google.cloud.compute.v1.ListImagesRequest;
-import com.google.cloud.compute.v1.ListInstancesRequest;
 import com.google.cloud.compute.v1.Metadata;
 import com.google.cloud.compute.v1.NetworkInterface;
 import com.google.cloud.compute.v1.Operation;
 import com.google.cloud.compute.v1.Zone;
 import com.google.cloud.compute.v1.ZonesClient;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.nimbusrun.Utils;
 import com.nimbusrun.compute.ActionPool;
+import com.nimbusrun.compute.BakedImage;
+import com.nimbusrun.compute.BootImage;
+import com.nimbusrun.compute.BootstrapMode;
 import com.nimbusrun.compute.Compute;
 import com.nimbusrun.compute.ComputeConfigResponse;
+import com.nimbusrun.compute.ComputeOperation;
 import com.nimbusrun.compute.Constants;
 import com.nimbusrun.compute.DeleteInstanceRequest;
 import com.nimbusrun.compute.GithubApi;
+import com.nimbusrun.compute.ImageBakeSettings;
+import com.nimbusrun.compute.ImageBaking;
+import com.nimbusrun.compute.ImageResolver;
 import com.nimbusrun.compute.ListInstanceResponse;
 import com.nimbusrun.compute.ProcessorArchitecture;
 import com.nimbusrun.compute.exceptions.InstanceCreateTimeoutException;
 import com.nimbusrun.compute.gcp.v1.GCPConfig.DiskSettings;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -57,7 +80,7 @@ import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
 
 @Component
-public class GCPComputeService extends Compute {
+public class GCPComputeService extends Compute implements ImageBaking {
 
   private static Logger log = LoggerFactory.getLogger(GCPComputeService.class);
   private Map<String, GCPConfig.ActionPool> gcpActionPoolMap;
@@ -66,12 +89,37 @@ public class GCPComputeService extends Compute {
   private final String APPLICATION_NAME_LABEL_KEY = "nimbus-run";
   private final Cache<String, Map<String, RegionZones>> projectIdToRegionZones;
   private final Cache<String, Set<String>> projectIdZones;
-  private final Cache<String, String> latestMachineImage;
+  /**
+   * Latest image per operating system and architecture, shared by every action pool using the same
+   * service account.
+   */
+  private final ImageResolver<ImageKey> images = new ImageResolver<>("gcp",
+      this::latestMachineImage, IMAGE_REFRESH_INTERVAL);
+  /**
+   * Instance id to where the instance lives, so deletes don't have to search for it. Filled from
+   * every list and create.
+   */
+  private final Cache<String, InstanceStaticInfo> instanceIndex;
 
   private final boolean DEFAULT_IS_PUBLIC_IP = true;
   private final GcpOperatingSystem DEFAULT_OPERATING_SYSTEM = GcpOperatingSystem.UBUNTU_24_04;
   private final ProcessorArchitecture DEFAULT_PROCESSOR_ARCHITECTURE = ProcessorArchitecture.X64;
   private final Integer DEFAULT_DISK_SIZE_GB = 20;
+  private static final Duration CREATE_TIMEOUT = Duration.ofMinutes(15);
+  private static final Duration DELETE_TIMEOUT = Duration.ofMinutes(10);
+  /**
+   * How often the latest images are looked up again. Ubuntu publishes new images every few days.
+   */
+  private static final Duration IMAGE_REFRESH_INTERVAL = Duration.ofHours(6);
+  /**
+   * How often a builder is checked for having powered itself off.
+   */
+  private static final Duration BAKE_POLL_INTERVAL = Duration.ofSeconds(15);
+  /**
+   * Shell expression that resolves to the instance name through the metadata server. Used as the
+   * runner name for instances created with bulkInsert, where names come from a name pattern.
+   */
+  private static final String INSTANCE_NAME_FROM_METADATA = "$(curl -s -H 'Metadata-Flavor: Google' http://metadata.google.internal/computeMetadata/v1/instance/name)";
 
   private static class RegionZones {
 
@@ -93,6 +141,7 @@ public class GCPComputeService extends Compute {
   }
 
   private final GithubApi githubApi;
+  private final GCPClients gcpClients = new GCPClients();
 
   public GCPComputeService(GithubApi githubApi) {
     this.githubApi = githubApi;
@@ -104,38 +153,77 @@ public class GCPComputeService extends Compute {
         .maximumSize(1_000_000)
         .expireAfterWrite(Duration.ofDays(1))
         .build();
-    latestMachineImage = Caffeine.newBuilder()
+    instanceIndex = Caffeine.newBuilder()
         .maximumSize(1_000_000)
         .expireAfterWrite(Duration.ofDays(1))
         .build();
   }
 
+  /**
+   * Closes the shared GCP clients. Called by Spring on shutdown.
+   */
+  @PreDestroy
+  public void close() {
+    images.close();
+    gcpClients.close();
+  }
+
 
+  /**
+   * Looks the instance up in {@link #instanceIndex}, which every list and create fills. On a miss,
+   * e.g. right after a restart, a single aggregatedList call filtered on the id searches every zone
+   * of the project. GCE ids are unsigned 64-bit, so every id this class hands out or parses goes
+   * through {@link Long#toUnsignedString(long)} and {@link Long#parseUnsignedLong(String)}.
+   */
   public Optional<InstanceStaticInfo> findInstanceAcrossZones(GCPConfig.ActionPool actionPool,
       String instanceId) throws IOException {
-    long id = Long.parseLong(instanceId);
-    for (String zone : actionPool.getZones()) {
-      try (InstancesClient instancesClient = GCPClients.createInstancesClient(
-          actionPool.getServiceAccountPathOpt())) {
-        ListInstancesRequest request = ListInstancesRequest.newBuilder()
-            .setProject(actionPool.getProjectId())
-            .setZone(zone)
-            .build();
-
-        for (Instance instance : instancesClient.list(request).iterateAll()) {
-          if (instance.getId() == id) {
-            return Optional.of(
-                new InstanceStaticInfo(instance.getId() + "", parseZoneString(instance.getZone()),
-                    instance.getName()));
-          }
-        }
+    InstanceStaticInfo indexed = instanceIndex.getIfPresent(instanceId);
+    if (indexed != null) {
+      return Optional.of(indexed);
+    }
+    InstancesClient instancesClient = gcpClients.instances(actionPool.getServiceAccountPathOpt());
+    AggregatedListInstancesRequest request = AggregatedListInstancesRequest.newBuilder()
+        .setProject(actionPool.getProjectId())
+        .setFilter("id = %s".formatted(Long.toUnsignedString(Long.parseUnsignedLong(instanceId))))
+        .setReturnPartialSuccess(true)
+        .build();
+    for (Map.Entry<String, InstancesScopedList> zoneInstances : instancesClient.aggregatedList(
+        request).iterateAll()) {
+      if (zoneInstances.getValue().getInstancesCount() > 0) {
+        return Optional.of(
+            indexInstance(actionPool, zoneInstances.getValue().getInstancesList().get(0)));
       }
     }
     return Optional.empty();
   }
 
+  InstanceStaticInfo indexInstance(GCPConfig.ActionPool actionPool, Instance instance) {
+    InstanceStaticInfo info = new InstanceStaticInfo(actionPool.getProjectId(),
+        Long.toUnsignedString(instance.getId()), parseZoneString(instance.getZone()),
+        instance.getName());
+    instanceIndex.put(info.getInstanceId(), info);
+    return info;
+  }
+
   @Override
   public boolean deleteCompute(DeleteInstanceRequest deleteInst) throws Exception {
+    try {
+      return deleteComputeAsync(deleteInst).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+
+  /**
+   * Sends the delete and tracks the zone operation through the shared client's operation poller.
+   * The operation is accepted once the zone operation was started. A delete that isn't confirmed
+   * within {@link #DELETE_TIMEOUT} still counts as deleted, the instance keeps shutting down.
+   */
+  @Override
+  public ComputeOperation<Boolean> startDeleteCompute(DeleteInstanceRequest deleteInst) {
     log.info("Deleting vm name: %s id: %s".formatted(deleteInst.getActionPool().getName(),
         deleteInst.getInstanceId()));
     GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(deleteInst.getActionPool().getName());
@@ -144,37 +232,55 @@ public class GCPComputeService extends Compute {
     if (deleteInst.getExtraProperties() instanceof InstanceStaticInfo info) {
       instanceStaticInfo = info;
     } else {
-      Optional<InstanceStaticInfo> info = findInstanceAcrossZones(actionPool,
-          deleteInst.getInstanceId());
+      Optional<InstanceStaticInfo> info;
+      try {
+        info = findInstanceAcrossZones(actionPool, deleteInst.getInstanceId());
+      } catch (Exception e) {
+        return ComputeOperation.of(CompletableFuture.failedFuture(e));
+      }
       if (info.isEmpty()) {
         log.error("Couldn't find instance %s in action pool %s to delete".formatted(
             deleteInst.getInstanceId(), deleteInst.getActionPool().getName()));
-        return false;
+        return ComputeOperation.of(CompletableFuture.completedFuture(false));
       }
       instanceStaticInfo = info.get();
     }
 
-    try (InstancesClient instancesClient = GCPClients.createInstancesClient(
-        actionPool.getServiceAccountPathOpt())) {
+    try {
+      InstancesClient instancesClient = gcpClients.instances(
+          actionPool.getServiceAccountPathOpt());
       com.google.cloud.compute.v1.DeleteInstanceRequest deleteInstanceRequest = com.google.cloud.compute.v1.DeleteInstanceRequest.newBuilder()
-          .setProject(actionPool.getProjectId())
+          .setProject(Optional.ofNullable(instanceStaticInfo.getProjectId())
+              .orElse(actionPool.getProjectId()))
           .setInstance(instanceStaticInfo.getInstanceId())
           .setZone(instanceStaticInfo.getZone())
           .build();
-      instancesClient.deleteAsync(deleteInstanceRequest).get(10, TimeUnit.MINUTES);
-      log.info("Deleted vm name: %s id: %s".formatted(instanceStaticInfo.getName(),
-          instanceStaticInfo.getInstanceId()));
-      return true;
-    } catch (java.util.concurrent.TimeoutException e) {
-      log.info("vm name: %s id: %s is deleting but the request timed out ".formatted(
-          instanceStaticInfo.getName(), instanceStaticInfo.getInstanceId()));
-      return true;
+      OperationFuture<Operation, Operation> operation = instancesClient.deleteAsync(
+          deleteInstanceRequest);
+      return new ComputeOperation<>(accepted(operation), track(operation, DELETE_TIMEOUT)
+          .handle((response, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause == null) {
+              instanceIndex.invalidate(instanceStaticInfo.getInstanceId());
+              log.info("Deleted vm name: %s id: %s".formatted(instanceStaticInfo.getName(),
+                  instanceStaticInfo.getInstanceId()));
+              return true;
+            }
+            if (cause instanceof TimeoutException) {
+              log.info("vm name: %s id: %s is deleting but the request timed out ".formatted(
+                  instanceStaticInfo.getName(), instanceStaticInfo.getInstanceId()));
+              return true;
+            }
+            log.error("Failed to stop Instance vm name: %s id: %s".formatted(
+                instanceStaticInfo.getName(), instanceStaticInfo.getInstanceId()), cause);
+            return false;
+          }));
     } catch (Exception e) {
       log.error("Failed to stop Instance vm name: %s id: %s".formatted(instanceStaticInfo.getName(),
           instanceStaticInfo.getInstanceId()), e);
     }
 
-    return false;
+    return ComputeOperation.of(CompletableFuture.completedFuture(false));
   }
 
   @Override
@@ -200,8 +306,9 @@ public class GCPComputeService extends Compute {
   public ListInstanceResponse listComputeInstances(ActionPool pool) {
     GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(pool.getName());
     List<ListInstanceResponse.Instance> instances = new ArrayList<>();
-    try (InstancesClient instancesClient = GCPClients.createInstancesClient(
-        actionPool.getServiceAccountPathOpt())) {
+    try {
+      InstancesClient instancesClient = gcpClients.instances(
+          actionPool.getServiceAccountPathOpt());
       // Use the `setMaxResults` parameter to limit the number of results
       // that the API returns per response page.
       AggregatedListInstancesRequest aggregatedListInstancesRequest = AggregatedListInstancesRequest
@@ -217,16 +324,15 @@ public class GCPComputeService extends Compute {
         if (!zoneInstances.getValue().getInstancesList().isEmpty()) {
           for (Instance instance : zoneInstances.getValue().getInstancesList()) {
             ListInstanceResponse.Instance listInstance = new ListInstanceResponse.Instance(
-                instance.getId() + "",
+                Long.toUnsignedString(instance.getId()),
                 instance.getName(),
                 Instant.parse(instance.getCreationTimestamp()).toEpochMilli(),
-                new InstanceStaticInfo(instance.getId() + "", parseZoneString(instance.getZone()),
-                    instance.getName()));
+                indexInstance(actionPool, instance));
             instances.add(listInstance);
           }
         }
       }
-    } catch (IOException e) {
+    } catch (UncheckedIOException e) {
       log.error("Error listing compute instances", e);
     }
     return new ListInstanceResponse(instances);
@@ -249,94 +355,217 @@ public class GCPComputeService extends Compute {
 
   @Override
   public boolean createCompute(ActionPool autoscalerActionPool) {
-    //TODO create a counter for when an instance is created
-    String instanceName = createInstanceName();
+    return createCompute(autoscalerActionPool, 1) == 1;
+  }
+
+  @Override
+  public int createCompute(ActionPool autoscalerActionPool, int count) {
+    try {
+      return createComputeAsync(autoscalerActionPool, count).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn(
+          "Instance creation thread was interrupted for action pool %s. The instances might have been created or not. ¯\\_(ツ)_/¯".formatted(
+              autoscalerActionPool.getName()));
+      return 0;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof InstanceCreateTimeoutException timeout) {
+        throw timeout;
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Creates a single named instance with insert, or {@code count} instances in a single zone with
+   * one bulkInsert call. Bulk created instances share one startup script, so each runner registers
+   * itself under its instance name, read from the metadata server.
+   * <p>
+   * The request is prepared and sent on the calling thread, and the operation is accepted once the
+   * zone operation was started. The zone operation is then tracked by the shared client's operation
+   * poller, so no thread waits while the instances boot. An operation not done within
+   * {@link #CREATE_TIMEOUT} completes the result with an {@link InstanceCreateTimeoutException}.
+   */
+  @Override
+  public ComputeOperation<Integer> startCreateCompute(ActionPool autoscalerActionPool,
+      int count) {
+    if (count < 1) {
+      return ComputeOperation.of(CompletableFuture.completedFuture(0));
+    }
+    String instanceName = count == 1 ? createInstanceName() : createInstanceName() + "-####";
     GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(autoscalerActionPool.getName());
-    try (InstancesClient instancesClient = GCPClients.createInstancesClient(
-        actionPool.getServiceAccountPathOpt())) {
+    try {
+      InstancesClient instancesClient = gcpClients.instances(
+          actionPool.getServiceAccountPathOpt());
       Random random = new Random();
 
       String zone = actionPool.getZones().get(random.nextInt(actionPool.getZones().size()));
 
-      Map<String, String> labels = createInstanceLabelMap(actionPool.getName());
       Optional<String> githubRunnerTokenOpt = githubApi.generateRunnerToken();
-
       if (githubRunnerTokenOpt.isEmpty()) {
-        String msg = "Failed to generate token";
-        log.error(msg);
-        return false;
+        log.error("Failed to generate token");
+        return ComputeOperation.of(CompletableFuture.completedFuture(0));
       }
-      String githubRunnerToken = githubRunnerTokenOpt.get();
-      Optional<String> sourceImage = cacheLatestImageVersion(actionPool);
+      BootImage bootImage = actionPool.bootImage();
+      Optional<String> sourceImage = bootImage.imageOpt()
+          .or(() -> cacheLatestImageVersion(actionPool));
       if (sourceImage.isEmpty()) {
         log.error("Failed to query latest ubuntu image");
-        return false;
-      }
-      AttachedDisk attachedDisk = AttachedDisk.newBuilder()
-          .setInitializeParams(
-              AttachedDiskInitializeParams.newBuilder()
-                  .setSourceImage(sourceImage.get())
-                  .setDiskSizeGb(actionPool.getDiskSettings().getSize())
-                  .build()
-          )
-          .setAutoDelete(true)
-          .setBoot(true)
-          .build();
+        return ComputeOperation.of(CompletableFuture.completedFuture(0));
+      }
 
-      String startupScript = startUpScript(githubRunnerToken, this.githubApi.getRunnerGroupName(),
+      String startupScript = startUpScript(githubRunnerTokenOpt.get(),
+          this.githubApi.getRunnerGroupName(),
           autoscalerActionPool,
-          instanceName,
+          count == 1 ? instanceName : INSTANCE_NAME_FROM_METADATA,
           githubApi.getOrganization(),
           actionPool.getArchitecture(),
-          actionPool.getOs().getOperatingSystem());
+          actionPool.getOs().getOperatingSystem(),
+          bootImage.bootstrapMode());
 
       Metadata md = Metadata.newBuilder()
           .addItems(Items.newBuilder().setKey("startup-script").setValue(startupScript).build())
           .build();
 
-      Instance instance = Instance.newBuilder()
-          .setName(instanceName)
-          .addDisks(attachedDisk)
-          .setMachineType("zones/%s/machineTypes/%s".formatted(zone, actionPool.getInstanceType()))
-          .putAllLabels(labels)
-          .addNetworkInterfaces(createNetworkInterface(actionPool.getVpc(), actionPool.getSubnet(),
-              actionPool.getPublicIp()))
-          .mergeMetadata(md)
-          .build();
+      OperationFuture<Operation, Operation> operation;
+      if (count == 1) {
+        Instance instance = Instance.newBuilder()
+            .setName(instanceName)
+            .addDisks(createBootDisk(actionPool, sourceImage.get()))
+            .setMachineType(
+                "zones/%s/machineTypes/%s".formatted(zone, actionPool.getInstanceType()))
+            .putAllLabels(createInstanceLabelMap(actionPool.getName()))
+            .addNetworkInterfaces(createNetworkInterface(actionPool.getVpc(),
+                actionPool.getSubnet(), actionPool.getPublicIp()))
+            .mergeMetadata(md)
+            .build();
 
-      // Create the insert instance request object.
-      InsertInstanceRequest insertInstanceRequest = InsertInstanceRequest.newBuilder()
-          .setProject(actionPool.getProjectId())
-          .setZone(zone)
-          .setInstanceResource(instance)
-          .build();
+        InsertInstanceRequest insertInstanceRequest = InsertInstanceRequest.newBuilder()
+            .setProject(actionPool.getProjectId())
+            .setZone(zone)
+            .setInstanceResource(instance)
+            .build();
+        operation = instancesClient.insertAsync(insertInstanceRequest);
+      } else {
+        InstanceProperties instanceProperties = InstanceProperties.newBuilder()
+            .addDisks(createBootDisk(actionPool, sourceImage.get()))
+            .setMachineType(actionPool.getInstanceType())
+            .putAllLabels(createInstanceLabelMap(actionPool.getName()))
+            .addNetworkInterfaces(createNetworkInterface(actionPool.getVpc(),
+                actionPool.getSubnet(), actionPool.getPublicIp()))
+            .setMetadata(md)
+            .build();
 
-      // Invoke the API with the request object and wait for the operation to complete.
-      Operation response = instancesClient.insertAsync(insertInstanceRequest)
-          .get(15, TimeUnit.MINUTES);
+        BulkInsertInstanceResource bulkInsertResource = BulkInsertInstanceResource.newBuilder()
+            .setCount(count)
+            .setMinCount(1)
+            .setNamePattern(instanceName)
+            .setInstanceProperties(instanceProperties)
+            .build();
 
-      // Check for errors.
-      if (response.hasError()) {
-        String msg = "Instance creation failed!!" + response;
-        log.error(msg);
-        return false;
+        log.info("Creating {} instances {} for action pool {}", count, instanceName,
+            actionPool.getName());
+        operation = instancesClient.bulkInsertAsync(actionPool.getProjectId(), zone,
+            bulkInsertResource);
       }
-      log.info("Instance created : %s".formatted(instanceName));
-      log.debug("Operation Status: " + response.getStatus());
-      return true;
-    } catch (ExecutionException | IOException e) {
-      throw new RuntimeException(e);
-    } catch (InterruptedException e) {
-      log.warn(
-          "Instance creation thread was interrupted for %s. The instance might have been created or not. ¯\\_(ツ)_/¯".formatted(
-              instanceName));
-    } catch (TimeoutException e) {
-      log.warn(
-          "Instance creation response timed out for %s. The instance might have been created or not. ¯\\_(ツ)_/¯".formatted(
-              instanceName));
-      throw new InstanceCreateTimeoutException(true);
+      return new ComputeOperation<>(accepted(operation),
+          track(operation, CREATE_TIMEOUT).handle((response, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof TimeoutException) {
+              log.warn(
+                  "Instance creation response timed out for %s. The instances might have been created or not. ¯\\_(ツ)_/¯".formatted(
+                      instanceName));
+              throw new InstanceCreateTimeoutException(true);
+            }
+            if (cause != null) {
+              throw new CompletionException(cause);
+            }
+            if (response.hasError()) {
+              log.error("Instance creation failed!! " + response);
+              return 0;
+            }
+            if (count == 1) {
+              log.info("Instance created : %s".formatted(instanceName));
+              if (response.hasTargetId()) {
+                InstanceStaticInfo info = new InstanceStaticInfo(actionPool.getProjectId(),
+                    Long.toUnsignedString(response.getTargetId()), zone, instanceName);
+                instanceIndex.put(info.getInstanceId(), info);
+              }
+              return 1;
+            }
+            int created = count;
+            if (response.hasInstancesBulkInsertOperationMetadata()) {
+              created = response.getInstancesBulkInsertOperationMetadata()
+                  .getPerLocationStatusMap().values().stream()
+                  .mapToInt(BulkInsertOperationStatus::getCreatedVmCount).sum();
+            }
+            log.info("Instances created : {} of {} for {}", created, count, instanceName);
+            return created;
+          }));
+    } catch (Exception e) {
+      return ComputeOperation.of(CompletableFuture.failedFuture(e));
     }
-    return false;
+  }
+
+  /**
+   * Completes once the zone operation was started, i.e. the api accepted the request.
+   */
+  private static CompletableFuture<Void> accepted(OperationFuture<Operation, Operation> operation) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    ApiFutures.addCallback(operation.getInitialFuture(), new ApiFutureCallback<>() {
+      @Override
+      public void onFailure(Throwable t) {
+        future.completeExceptionally(t);
+      }
+
+      @Override
+      public void onSuccess(OperationSnapshot result) {
+        future.complete(null);
+      }
+    }, MoreExecutors.directExecutor());
+    return future;
+  }
+
+  /**
+   * Completes with the finished zone operation, or with a {@link TimeoutException} after
+   * {@code timeout}.
+   */
+  private static CompletableFuture<Operation> track(ApiFuture<Operation> operation,
+      Duration timeout) {
+    CompletableFuture<Operation> future = new CompletableFuture<>();
+    ApiFutures.addCallback(operation, new ApiFutureCallback<>() {
+      @Override
+      public void onFailure(Throwable t) {
+        future.completeExceptionally(t);
+      }
+
+      @Override
+      public void onSuccess(Operation result) {
+        future.complete(result);
+      }
+    }, MoreExecutors.directExecutor());
+    return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    while ((error instanceof CompletionException || error instanceof ExecutionException)
+        && error.getCause() != null) {
+      error = error.getCause();
+    }
+    return error;
+  }
+
+  private AttachedDisk createBootDisk(GCPConfig.ActionPool actionPool, String sourceImage) {
+    return AttachedDisk.newBuilder()
+        .setInitializeParams(
+            AttachedDiskInitializeParams.newBuilder()
+                .setSourceImage(sourceImage)
+                .setDiskSizeGb(actionPool.getDiskSettings().getSize())
+                .build()
+        )
+        .setAutoDelete(true)
+        .setBoot(true)
+        .build();
   }
 
   private NetworkInterface createNetworkInterface(String vpcName, String subnetName,
@@ -376,6 +605,10 @@ public class GCPComputeService extends Compute {
     this.gcpActionPoolMap = actionPools.stream()
         .collect(Collectors.toMap(GCPConfig.ActionPool::getName, Function.identity(), (a, b) -> a));
     DEFAULT_INSTANCE_LABELS.put(APPLICATION_NAME_LABEL_KEY, autoScalerName);
+    if (errors.isEmpty()) {
+      images.warmUp(actionPools.stream().filter(ap -> ap.getImage() == null)
+          .map(ImageKey::of).toList());
+    }
 
     return new ComputeConfigResponse(errors, warnings,
         actionPools.stream().map(GCPConfig.ActionPool::toAutoScalerActionPool).toList());
@@ -435,6 +668,13 @@ public class GCPComputeService extends Compute {
             "Action pool %s missing idleScaleDownInMinutes. Default value %s will be used".formatted(
                 name, Constants.DEFAULT_INSTANCE_IDLE_TIME_IN_MINUTES));
       }
+      if (actionPool.getMinIdleInstances() != null && (actionPool.getMinIdleInstances() < 0
+          || (actionPool.getMaxInstanceCount() != null && actionPool.getMaxInstanceCount() != 0
+          && actionPool.getMinIdleInstances() > actionPool.getMaxInstanceCount()))) {
+        errors.add(
+            "Action pool %s minIdleInstances must be between 0 and maxInstanceCount".formatted(
+                name));
+      }
       if (actionPool.getServiceAccountPathOpt().isEmpty()) {
         warnings.add(
             "Action pool %s missing serviceAccountPath. Using environment default credentials".formatted(name));
@@ -470,6 +710,14 @@ public class GCPComputeService extends Compute {
           && actionPool.getArchitecture() == ProcessorArchitecture.UNKNOWN) {
         errors.add("Action pool %s has unknown cpu architecture specified".formatted(name));
       }
+      if (actionPool.getBootstrapMode() == BootstrapMode.UNKNOWN) {
+        errors.add("Action pool %s has unknown bootstrapMode specified".formatted(name));
+      } else if (actionPool.getBootstrapMode() == BootstrapMode.PREBAKED
+          && actionPool.getImage() == null) {
+        errors.add(
+            "Action pool %s uses bootstrapMode prebaked but has no image. Please add the prebaked image e.g. projects/<project>/global/images/<image>".formatted(
+                name));
+      }
     }
   }
 
@@ -493,6 +741,10 @@ public class GCPComputeService extends Compute {
         ap.setOs(DEFAULT_OPERATING_SYSTEM);
       }
 
+      if (ap.getBootstrapMode() == null) {
+        ap.setBootstrapMode(BootstrapMode.FULL);
+      }
+
       if (ap.getMaxInstanceCount() == null) {
         log.info("Action pool {} using default maxInstanceCount value of {}", ap.getName(),
             Constants.DEFAULT_MAX_INSTANCES);
@@ -556,8 +808,8 @@ public class GCPComputeService extends Compute {
   public Map<String, RegionZones> lookupRegionZone(GCPConfig.ActionPool actionPool)
       throws IOException {
     Map<String, RegionZones> regionZones = new HashMap<>();
-    try (ZonesClient zonesClient = GCPClients.createZonesClient(
-        actionPool.getServiceAccountPathOpt())) {
+    try {
+      ZonesClient zonesClient = gcpClients.zones(actionPool.getServiceAccountPathOpt());
       for (Zone zone : zonesClient.list(actionPool.getProjectId()).iterateAll()) {
         String regionName = zone.getRegion().substring(zone.getRegion().lastIndexOf("/") + 1);
         RegionZones rz = regionZones.computeIfAbsent(regionName,
@@ -572,14 +824,7 @@ public class GCPComputeService extends Compute {
 
 
   public Optional<String> cacheLatestImageVersion(GCPConfig.ActionPool actionPool) {
-    try {
-      return Optional.ofNullable(latestMachineImage.get(actionPool.getName(),
-          (actionPoolName) -> latestMachineImage(actionPool)));
-    } catch (NullPointerException e) {
-      Utils.excessiveErrorLog(
-          "Error when fetching latest image due to %s".formatted(e.getMessage()), e, log);
-    }
-    return Optional.empty();
+    return images.resolve(ImageKey.of(actionPool));
   }
 
 
@@ -591,13 +836,14 @@ public class GCPComputeService extends Compute {
     return arch;
   }
 
-  public static String latestMachineImage(GCPConfig.ActionPool actionPool) {
-    ProcessorArchitecture architecture = actionPool.getArchitecture();
-    GcpOperatingSystem operatingSystem = actionPool.getOs();
+  public Optional<String> latestMachineImage(ImageKey key) {
+    GcpOperatingSystem operatingSystem = key.os();
     String project = operatingSystem.gcpProviderProject();
-    String arch = determineArch(architecture);
+    String arch = determineArch(key.architecture());
     String templ = operatingSystem.createRegex();
-    try (ImagesClient imagesClient = GCPClients.createImagesClient(actionPool)) {
+    try {
+      ImagesClient imagesClient = gcpClients.images(
+          Optional.ofNullable(key.serviceAccountPath()));
       ListImagesRequest request = ListImagesRequest.newBuilder()
           .setProject(project)
           .setMaxResults(10)
@@ -610,17 +856,157 @@ public class GCPComputeService extends Compute {
         Image latestImage = latestImageIterator.next();
         if (arch.equalsIgnoreCase(latestImage.getArchitecture())
             && latestImage.hasCreationTimestamp() && latestImage.getName().matches(templ)) {
-          log.info("found image: %s for action pool: %s".formatted(latestImage.getName(), actionPool.getName()));
-          return "projects/%s/global/images/%s".formatted(project, latestImage.getName());
+          log.info("found image: %s for %s".formatted(latestImage.getName(), key));
+          return Optional.of(
+              "projects/%s/global/images/%s".formatted(project, latestImage.getName()));
         }
       }
 
-    } catch (IOException e) {
+    } catch (UncheckedIOException e) {
       Utils.excessiveErrorLog(
-          "Failed to query for latest image for action pool due to %s".formatted(e.getMessage()), e,
+          "Failed to query for latest image for %s due to %s".formatted(key, e.getMessage()), e,
           log);
     }
-    return null;
+    return Optional.empty();
+  }
+
+  /**
+   * Identifies the latest image of an operating system and architecture. Images are global, so the
+   * region doesn't matter, but the lookup runs with the action pool's service account.
+   */
+  public record ImageKey(String serviceAccountPath, GcpOperatingSystem os,
+                         ProcessorArchitecture architecture) {
+
+    static ImageKey of(GCPConfig.ActionPool actionPool) {
+      return new ImageKey(actionPool.getServiceAccountPath(), actionPool.getOs(),
+          actionPool.getArchitecture());
+    }
+  }
+
+  @Override
+  public Optional<ImageBakeSettings> imageBakeSettings(ActionPool autoscalerActionPool) {
+    return Optional.ofNullable(this.gcpActionPoolMap.get(autoscalerActionPool.getName()))
+        .map(GCPConfig.ActionPool::getImageBaking);
+  }
+
+  /**
+   * Boots a builder from the latest image of the pool's operating system, waits for the bake
+   * script to power it off and creates an image from its boot disk. The builder is deleted either
+   * way.
+   */
+  @Override
+  public CompletableFuture<String> bakeImage(ActionPool autoscalerActionPool, Duration timeout) {
+    GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(autoscalerActionPool.getName());
+    return supplyAsync(() -> {
+      Optional<String> baseImage = cacheLatestImageVersion(actionPool);
+      if (baseImage.isEmpty()) {
+        throw new IllegalStateException(
+            "No base image for action pool %s".formatted(actionPool.getName()));
+      }
+      InstancesClient instancesClient = gcpClients.instances(
+          actionPool.getServiceAccountPathOpt());
+      String name = "nimbus-run-bake-%s".formatted(
+          HexFormat.of().toHexDigits(System.currentTimeMillis()));
+      String zone = actionPool.getZones().get(new Random().nextInt(actionPool.getZones().size()));
+      Map<String, String> labels = new HashMap<>(DEFAULT_INSTANCE_LABELS);
+      labels.put(Constants.IMAGE_BAKE_LABEL_KEY, actionPool.getName());
+      Metadata md = Metadata.newBuilder()
+          .addItems(Items.newBuilder().setKey("startup-script").setValue(
+              bakeScript(actionPool.getArchitecture(), actionPool.getOs().getOperatingSystem(),
+                  actionPool.getImageBaking())).build())
+          .build();
+      Instance builder = Instance.newBuilder()
+          .setName(name)
+          .addDisks(createBootDisk(actionPool, baseImage.get()))
+          .setMachineType("zones/%s/machineTypes/%s".formatted(zone, actionPool.getInstanceType()))
+          .putAllLabels(labels)
+          .addNetworkInterfaces(createNetworkInterface(actionPool.getVpc(),
+              actionPool.getSubnet(), actionPool.getPublicIp()))
+          .setMetadata(md)
+          .build();
+      log.info("Baking image {} for action pool {} in zone {}", name, actionPool.getName(), zone);
+      instancesClient.insertAsync(actionPool.getProjectId(), zone, builder)
+          .get(CREATE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+      try {
+        waitForPowerOff(instancesClient, actionPool.getProjectId(), zone, name, timeout);
+        Image image = Image.newBuilder()
+            .setName(name)
+            .setSourceDisk("projects/%s/zones/%s/disks/%s".formatted(actionPool.getProjectId(),
+                zone, name))
+            .putAllLabels(labels)
+            .build();
+        Operation operation = gcpClients.images(actionPool.getServiceAccountPathOpt())
+            .insertAsync(actionPool.getProjectId(), image)
+            .get(CREATE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        if (operation.hasError()) {
+          throw new IllegalStateException("Failed to create image %s: %s".formatted(name,
+              operation.getError()));
+        }
+        return "projects/%s/global/images/%s".formatted(actionPool.getProjectId(), name);
+      } finally {
+        try {
+          instancesClient.deleteAsync(actionPool.getProjectId(), zone, name);
+        } catch (RuntimeException e) {
+          log.error("Failed to delete image builder {}", name, e);
+        }
+      }
+    });
+  }
+
+  private void waitForPowerOff(InstancesClient instancesClient, String projectId, String zone,
+      String name, Duration timeout) throws InterruptedException, TimeoutException {
+    Instant deadline = Instant.now().plus(timeout);
+    while (Instant.now().isBefore(deadline)) {
+      Thread.sleep(BAKE_POLL_INTERVAL.toMillis());
+      Status status = Status.valueOf(instancesClient.get(projectId, zone, name).getStatus());
+      if (status == Status.TERMINATED || status == Status.STOPPED) {
+        return;
+      }
+    }
+    throw new TimeoutException(
+        "Image builder %s didn't finish within %s".formatted(name, timeout));
+  }
+
+  @Override
+  public List<BakedImage> listBakedImages(ActionPool autoscalerActionPool) {
+    GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(autoscalerActionPool.getName());
+    ListImagesRequest request = ListImagesRequest.newBuilder()
+        .setProject(actionPool.getProjectId())
+        .setFilter("labels.%s = %s".formatted(Constants.IMAGE_BAKE_LABEL_KEY,
+            actionPool.getName()))
+        .build();
+    List<BakedImage> baked = new ArrayList<>();
+    for (Image image : gcpClients.images(actionPool.getServiceAccountPathOpt()).list(request)
+        .iterateAll()) {
+      if ("READY".equals(image.getStatus())) {
+        baked.add(new BakedImage(
+            "projects/%s/global/images/%s".formatted(actionPool.getProjectId(), image.getName()),
+            OffsetDateTime.parse(image.getCreationTimestamp()).toInstant()));
+      }
+    }
+    baked.sort(Comparator.comparing(BakedImage::createdAt).reversed());
+    return baked;
+  }
+
+  @Override
+  public void useImage(ActionPool autoscalerActionPool, String image) {
+    GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(autoscalerActionPool.getName());
+    actionPool.useBakedImage(image);
+  }
+
+  @Override
+  public boolean deleteImage(ActionPool autoscalerActionPool, String image) {
+    GCPConfig.ActionPool actionPool = this.gcpActionPoolMap.get(autoscalerActionPool.getName());
+    try {
+      Operation operation = gcpClients.images(actionPool.getServiceAccountPathOpt())
+          .deleteAsync(actionPool.getProjectId(), image.substring(image.lastIndexOf('/') + 1))
+          .get(DELETE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+      return !operation.hasError();
+    } catch (Exception e) {
+      Utils.excessiveErrorLog("Failed to delete image %s due to %s".formatted(image,
+          e.getMessage()), e, log);
+      return false;
+    }
   }
 
   public String parseZoneString(String zone) {
@@ -6,6 +6,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.nimbusrun.Utils;
+import com.nimbusrun.compute.BootImage;
+import com.nimbusrun.compute.BootstrapMode;
+import com.nimbusrun.compute.ImageBakeSettings;
 import com.nimbusrun.compute.ProcessorArchitecture;
 import java.util.List;
 import java.util.Map;
@@ -58,9 +61,16 @@ public class GCPConfig {
         actionPool::setIdleScaleDownInMinutes);
     setFromDefault(actionPool::getIdleScaleDownInMinutes, defaults::getIdleScaleDownInMinutes,
         actionPool::setIdleScaleDownInMinutes);
+    setFromDefault(actionPool::getMinIdleInstances, defaults::getMinIdleInstances,
+        actionPool::setMinIdleInstances);
     setFromDefault(actionPool::getArchitecture, defaults::getArchitecture,
         actionPool::setArchitecture);
     setFromDefault(actionPool::getOs, defaults::getOs, actionPool::setOs);
+    setFromDefault(actionPool::getImage, defaults::getImage, actionPool::setImage);
+    setFromDefault(actionPool::getBootstrapMode, defaults::getBootstrapMode,
+        actionPool::setBootstrapMode);
+    setFromDefault(actionPool::getImageBaking, defaults::getImageBaking,
+        actionPool::setImageBaking);
 
   }
 
@@ -131,6 +141,7 @@ public class GCPConfig {
     private String instanceType;
     private Integer maxInstanceCount;
     private Integer idleScaleDownInMinutes;
+    private Integer minIdleInstances;
     private String serviceAccountPath;
     private String subnet;
     private String vpc;
@@ -142,11 +153,23 @@ public class GCPConfig {
     @JsonDeserialize(using = GcpOperatingSystem.Deserialize.class)
     @JsonSerialize(using = GcpOperatingSystem.Serializer.class)
     private GcpOperatingSystem os;
+    /**
+     * Image to boot instead of the latest image of {@code os}.
+     */
+    private String image;
+    @JsonDeserialize(using = BootstrapMode.Deserialize.class)
+    private BootstrapMode bootstrapMode;
+    private ImageBakeSettings imageBaking;
+    /**
+     * Set once the pool switched to a baked image, overrides {@code image} and
+     * {@code bootstrapMode}.
+     */
+    private volatile BootImage bakedImage;
     private boolean isDefault;
 
     public com.nimbusrun.compute.ActionPool toAutoScalerActionPool() {
       return new com.nimbusrun.compute.ActionPool(this.name, this.maxInstanceCount,
-          this.idleScaleDownInMinutes, isDefault);
+          this.idleScaleDownInMinutes, this.minIdleInstances, isDefault);
     }
 
 
@@ -203,6 +226,14 @@ public class GCPConfig {
       this.idleScaleDownInMinutes = idleScaleDownInMinutes;
     }
 
+    public Integer getMinIdleInstances() {
+      return minIdleInstances;
+    }
+
+    public void setMinIdleInstances(Integer minIdleInstances) {
+      this.minIdleInstances = minIdleInstances;
+    }
+
     public String getServiceAccountPath() {
       return serviceAccountPath;
     }
@@ -274,6 +305,50 @@ public class GCPConfig {
     public void setOs(GcpOperatingSystem os) {
       this.os = os;
     }
+
+    public String getImage() {
+      return image;
+    }
+
+    public void setImage(String image) {
+      this.image = image;
+    }
+
+    @JsonIgnore
+    public Optional<String> getImageOpt() {
+      return Optional.ofNullable(this.image);
+    }
+
+    public BootstrapMode getBootstrapMode() {
+      return bootstrapMode;
+    }
+
+    public void setBootstrapMode(BootstrapMode bootstrapMode) {
+      this.bootstrapMode = bootstrapMode;
+    }
+
+    public ImageBakeSettings getImageBaking() {
+      return imageBaking;
+    }
+
+    /**
+     * @return the image and bootstrap mode to launch with, read together
+     */
+    public BootImage bootImage() {
+      BootImage baked = this.bakedImage;
+      return baked != null ? baked : new BootImage(this.image, this.bootstrapMode);
+    }
+
+    /**
+     * Switches the pool to boot {@code image} with {@link BootstrapMode#PREBAKED}.
+     */
+    public void useBakedImage(String image) {
+      this.bakedImage = new BootImage(image, BootstrapMode.PREBAKED);
+    }
+
+    public void setImageBaking(ImageBakeSettings imageBaking) {
+      this.imageBaking = imageBaking;
+    }
   }
 
 }
@@ -4,16 +4,22 @@ import java.util.Objects;
 
 public class InstanceStaticInfo {
 
+  private final String projectId;
   private final String instanceId;
   private final String zone;
   private final String name;
 
-  public InstanceStaticInfo(String instanceId, String zone, String name) {
+  public InstanceStaticInfo(String projectId, String instanceId, String zone, String name) {
+    this.projectId = projectId;
     this.instanceId = instanceId;
     this.zone = zone;
     this.name = name;
   }
 
+  public String getProjectId() {
+    return projectId;
+  }
+
   public String getInstanceId() {
     return instanceId;
   }
@@ -32,12 +38,12 @@ public class InstanceStaticInfo {
           return false;
       }
     InstanceStaticInfo that = (InstanceStaticInfo) object;
-    return Objects.equals(instanceId, that.instanceId) && Objects.equals(zone, that.zone)
-        && Objects.equals(name, that.name);
+    return Objects.equals(projectId, that.projectId) && Objects.equals(instanceId, that.instanceId)
+        && Objects.equals(zone, that.zone) && Objects.equals(name, that.name);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(instanceId, zone, name);
+    return Objects.hash(projectId, instanceId, zone, name);
   }
 }
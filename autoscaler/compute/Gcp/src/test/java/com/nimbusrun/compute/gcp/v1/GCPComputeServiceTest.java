@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertLinesMatch;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.google.cloud.compute.v1.Instance;
 import com.nimbusrun.compute.Constants;
 import com.nimbusrun.compute.GithubApi;
 import com.nimbusrun.compute.gcp.v1.GCPConfig.ActionPool;
@@ -107,6 +108,40 @@ public class GCPComputeServiceTest {
     assertTrue(cfg.getActionPools().stream().noneMatch(ActionPool::isDefault));
   }
 
+  @Test
+  public void testIndexedInstanceFoundWithoutListing() throws IOException {
+    GCPComputeService gcpComputeService = new GCPComputeService(githubApi);
+    ActionPool actionPool = new ActionPool();
+    actionPool.setName("pool");
+    actionPool.setProjectId("project");
+    Instance instance = Instance.newBuilder().setId(42).setName("runner")
+        .setZone("https://www.googleapis.com/compute/v1/projects/project/zones/us-east1-b")
+        .build();
+    gcpComputeService.indexInstance(actionPool, instance);
+
+    InstanceStaticInfo info = gcpComputeService.findInstanceAcrossZones(actionPool, "42")
+        .orElseThrow();
+    assertEquals(new InstanceStaticInfo("project", "42", "us-east1-b", "runner"), info);
+  }
+
+  @Test
+  public void testIdsAboveSignedRangeStayUnsigned() throws IOException {
+    GCPComputeService gcpComputeService = new GCPComputeService(githubApi);
+    ActionPool actionPool = new ActionPool();
+    actionPool.setName("pool");
+    actionPool.setProjectId("project");
+    String id = "18446744073709551615";
+    Instance instance = Instance.newBuilder().setId(Long.parseUnsignedLong(id)).setName("runner")
+        .setZone("https://www.googleapis.com/compute/v1/projects/project/zones/us-east1-b")
+        .build();
+
+    InstanceStaticInfo indexed = gcpComputeService.indexInstance(actionPool, instance);
+    assertEquals(id, indexed.getInstanceId());
+    InstanceStaticInfo info = gcpComputeService.findInstanceAcrossZones(actionPool, id)
+        .orElseThrow();
+    assertEquals(new InstanceStaticInfo("project", id, "us-east1-b", "runner"), info);
+  }
+
   public List<String> assertValues(List<String> items, List<String> messages) {
     List<String> missing = new ArrayList<>();
     OUTER:
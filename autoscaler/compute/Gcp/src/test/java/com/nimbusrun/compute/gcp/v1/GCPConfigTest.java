@@ -2,6 +2,8 @@ package com.nimbusrun.compute.gcp.v1;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.nimbusrun.compute.BootImage;
+import com.nimbusrun.compute.BootstrapMode;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
@@ -92,4 +94,40 @@ class GCPConfigTest {
     GCPConfig.ActionPool c4 = cfg.getActionPools().stream()
         .filter(p -> p.getName().equals("c4-standard-4-lssd")).findFirst().orElseThrow();
   }
+
+  @Test
+  void createGcpConfigs_prebakedPoolInheritsImage() {
+    Map<String, Object> computeMap = new Yaml().load(""
+        + "defaultSettings:\n"
+        + "  image: projects/my-super-project/global/images/github-runner\n"
+        + "defaultActionPool:\n"
+        + "  name: default-pool\n"
+        + "actionPools:\n"
+        + "  - name: prebaked\n"
+        + "    bootstrapMode: prebaked\n"
+        + "  - name: invalid\n"
+        + "    bootstrapMode: baked\n");
+
+    GCPConfig cfg = new GCPConfig().createGcpConfigs(computeMap);
+
+    GCPConfig.ActionPool prebaked = cfg.getActionPools().get(0);
+    assertEquals(BootstrapMode.PREBAKED, prebaked.getBootstrapMode());
+    assertEquals("projects/my-super-project/global/images/github-runner", prebaked.getImage());
+    assertEquals(BootstrapMode.UNKNOWN, cfg.getActionPools().get(1).getBootstrapMode());
+    assertNull(cfg.getDefaultActionPool().getBootstrapMode());
+  }
+
+  @Test
+  void bakedImageReplacesImageAndBootstrapModeTogether() {
+    GCPConfig.ActionPool pool = new GCPConfig.ActionPool();
+    pool.setImage("projects/my-super-project/global/images/ubuntu");
+    pool.setBootstrapMode(BootstrapMode.FULL);
+    assertEquals(new BootImage("projects/my-super-project/global/images/ubuntu",
+        BootstrapMode.FULL), pool.bootImage());
+
+    pool.useBakedImage("projects/my-super-project/global/images/baked");
+
+    assertEquals(new BootImage("projects/my-super-project/global/images/baked",
+        BootstrapMode.PREBAKED), pool.bootImage());
+  }
 }
@@ -37,7 +37,7 @@ public class TestGithubApi implements GithubApi {
   }
 
   @Override
-  public boolean isJobQueued(String runUrl) {
+  public boolean isJobQueued(String runUrl, String jobId) {
     return true;
   }
 }